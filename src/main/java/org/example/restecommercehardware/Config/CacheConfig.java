@@ -0,0 +1,66 @@
+package org.example.restecommercehardware.Config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Caché de segundo nivel de Hibernate para los datos de referencia
+ * (categorías y marcas). Las regiones se crean aquí con límite de tamaño y
+ * TTL; la región de marcas de tiempo no expira porque es la que invalida
+ * la caché de consultas tras cada escritura.
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String REGION_CATEGORIAS = "catalogo.categorias";
+    public static final String REGION_MARCAS = "catalogo.marcas";
+    private static final String REGION_CONSULTAS = "default-query-results-region";
+    private static final String REGION_MARCAS_DE_TIEMPO = "default-update-timestamps-region";
+
+    @Value("${catalogo.cache.referencias.tamano-maximo:1000}")
+    private long tamanoMaximo;
+
+    @Value("${catalogo.cache.referencias.ttl:1h}")
+    private Duration ttl;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerReferencias() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+        crearRegion(cacheManager, REGION_CATEGORIAS, limitada());
+        crearRegion(cacheManager, REGION_MARCAS, limitada());
+        crearRegion(cacheManager, REGION_CONSULTAS, limitada());
+        crearRegion(cacheManager, REGION_MARCAS_DE_TIEMPO, new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelCustomizer(CacheManager cacheManagerReferencias) {
+        return propiedades -> propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerReferencias);
+    }
+
+    private CaffeineConfiguration<Object, Object> limitada() {
+        CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+        configuracion.setMaximumSize(OptionalLong.of(tamanoMaximo));
+        configuracion.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuracion.setStatisticsEnabled(true);
+        return configuracion;
+    }
+
+    private static void crearRegion(CacheManager cacheManager, String nombre,
+                                    CaffeineConfiguration<Object, Object> configuracion) {
+        if (cacheManager.getCache(nombre) == null) {
+            cacheManager.createCache(nombre, configuracion);
+        }
+    }
+}
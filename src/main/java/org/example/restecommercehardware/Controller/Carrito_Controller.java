@@ -1,8 +1,13 @@
 package org.example.restecommercehardware.Controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.EstadisticasLimpiezaCarritosDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLimpiezaCarritosDTO;
 import org.example.restecommercehardware.Mapper.Carrito_Entity;
 import org.example.restecommercehardware.Service.Carrito_Service;
+import org.example.restecommercehardware.Service.LimpiezaCarritos_Service;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +20,7 @@ import java.util.List;
 public class Carrito_Controller {
 
     private final Carrito_Service carritoService;
+    private final LimpiezaCarritos_Service limpiezaCarritosService;
 
     @GetMapping
     public ResponseEntity<List<Carrito_Entity>> getAllCarritos() {
@@ -25,10 +31,21 @@ public class Carrito_Controller {
     @GetMapping("/{id}")
     public ResponseEntity<Carrito_Entity> getCarritoById(@PathVariable Long id) {
         return carritoService.getCarritoById(id)
-                .map(ResponseEntity::ok)
+                .map(entidad -> ResponseEntity.ok().eTag(PrecondicionesHttp.etag(entidad.getVersion())).body(entidad))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/limpieza/estadisticas")
+    public ResponseEntity<EstadisticasLimpiezaCarritosDTO> getEstadisticasLimpieza() {
+        return ResponseEntity.ok(limpiezaCarritosService.getEstadisticas());
+    }
+
+    // Lanza una pasada de la limpieza de abandonados sin esperar a la programada
+    @PostMapping("/limpieza")
+    public ResponseEntity<ResultadoLimpiezaCarritosDTO> limpiarAbandonados() {
+        return ResponseEntity.ok(limpiezaCarritosService.limpiar());
+    }
+
     @GetMapping("/usuario/{idUsuario}")
     public ResponseEntity<Carrito_Entity> getCarritoByUsuario(@PathVariable Long idUsuario) {
         return carritoService.getCarritoByUsuario(idUsuario)
@@ -49,10 +66,16 @@ public class Carrito_Controller {
     @PutMapping("/{id}")
     public ResponseEntity<Carrito_Entity> updateCarrito(
             @PathVariable Long id,
-            @RequestBody Carrito_Entity carrito) {
+            @RequestBody Carrito_Entity carrito,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Carrito_Entity carritoActualizado = carritoService.updateCarrito(id, carrito);
-            return ResponseEntity.ok(carritoActualizado);
+            Carrito_Entity carritoActualizado = carritoService.updateCarrito(id, carrito,
+                    PrecondicionesHttp.versionEsperada(ifMatch));
+            return ResponseEntity.ok().eTag(PrecondicionesHttp.etag(carritoActualizado.getVersion())).body(carritoActualizado);
+        } catch (OptimisticLockingFailureException e) {
+            return PrecondicionesHttp.conflicto(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
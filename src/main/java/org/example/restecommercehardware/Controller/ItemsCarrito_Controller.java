@@ -1,9 +1,15 @@
 package org.example.restecommercehardware.Controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.CarritoConImagenesDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasCarritosDTO;
 import org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO;
+import org.example.restecommercehardware.DTOs.OperacionCarritoDTO;
 import org.example.restecommercehardware.Mapper.ItemsCarrito_Entity;
+import org.example.restecommercehardware.Service.CarritosEnMemoria_Service;
 import org.example.restecommercehardware.Service.ItemsCarrito_Service;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,6 +22,7 @@ import java.util.List;
 public class ItemsCarrito_Controller {
 
     private final ItemsCarrito_Service itemsCarritoService;
+    private final CarritosEnMemoria_Service carritosEnMemoria;
 
     @GetMapping
     public ResponseEntity<List<ItemsCarrito_Entity>> getAllItemsCarrito() {
@@ -26,14 +33,22 @@ public class ItemsCarrito_Controller {
     @GetMapping("/{id}")
     public ResponseEntity<ItemsCarrito_Entity> getItemCarritoById(@PathVariable Long id) {
         return itemsCarritoService.getItemCarritoById(id)
-                .map(ResponseEntity::ok)
+                .map(entidad -> ResponseEntity.ok().eTag(PrecondicionesHttp.etag(entidad.getVersion())).body(entidad))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/carrito/{idCarrito}")
-    public ResponseEntity<List<ItemCarritoConImagenDTO>> getItemsByCarrito(@PathVariable Long idCarrito) {
-        List<ItemCarritoConImagenDTO> items = itemsCarritoService.getItemsByCarritoConImagen(idCarrito);
-        return ResponseEntity.ok(items);
+    public ResponseEntity<CarritoConImagenesDTO> getItemsByCarrito(@PathVariable Long idCarrito) {
+        try {
+            return ResponseEntity.ok(itemsCarritoService.getCarritoConImagenes(idCarrito));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping("/memoria/estadisticas")
+    public ResponseEntity<EstadisticasCarritosDTO> getEstadisticasCarritosEnMemoria() {
+        return ResponseEntity.ok(carritosEnMemoria.getEstadisticas());
     }
 
     @GetMapping("/producto/{idProducto}")
@@ -47,18 +62,59 @@ public class ItemsCarrito_Controller {
         try {
             ItemsCarrito_Entity nuevoItem = itemsCarritoService.createItemCarrito(itemCarrito);
             return ResponseEntity.status(HttpStatus.CREATED).body(nuevoItem);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Añade unidades a la línea del producto o la crea, en una sola sentencia; 409 si no hay stock
+    @PostMapping("/carrito/{idCarrito}/productos/{idProducto}")
+    public ResponseEntity<ItemCarritoConImagenDTO> agregarProducto(
+            @PathVariable Long idCarrito,
+            @PathVariable Long idProducto,
+            @RequestParam(required = false) Integer cantidad) {
+        try {
+            return ResponseEntity.ok(itemsCarritoService.agregarProducto(idCarrito, idProducto, cantidad));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Varias altas, cambios de cantidad y bajas en una transacción; devuelve el carrito ya recalculado
+    @PostMapping("/carrito/{idCarrito}/lote")
+    public ResponseEntity<CarritoConImagenesDTO> aplicarLote(
+            @PathVariable Long idCarrito,
+            @RequestBody List<OperacionCarritoDTO> operaciones) {
+        try {
+            return ResponseEntity.ok(itemsCarritoService.aplicarLote(idCarrito, operaciones));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
         }
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<ItemsCarrito_Entity> updateItemCarrito(
             @PathVariable Long id,
-            @RequestBody ItemsCarrito_Entity itemCarrito) {
+            @RequestBody ItemsCarrito_Entity itemCarrito,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            ItemsCarrito_Entity itemActualizado = itemsCarritoService.updateItemCarrito(id, itemCarrito);
-            return ResponseEntity.ok(itemActualizado);
+            ItemsCarrito_Entity itemActualizado = itemsCarritoService.updateItemCarrito(id, itemCarrito,
+                    PrecondicionesHttp.versionEsperada(ifMatch));
+            return ResponseEntity.ok().eTag(PrecondicionesHttp.etag(itemActualizado.getVersion())).body(itemActualizado);
+        } catch (OptimisticLockingFailureException e) {
+            return PrecondicionesHttp.conflicto(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
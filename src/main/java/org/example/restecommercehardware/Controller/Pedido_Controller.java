@@ -3,11 +3,14 @@ package org.example.restecommercehardware.Controller;
 import lombok.RequiredArgsConstructor;
 import org.example.restecommercehardware.Mapper.Pedido_Entity;
 import org.example.restecommercehardware.Service.Pedido_Service;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/pedidos")
@@ -22,25 +25,70 @@ public class Pedido_Controller {
         return ResponseEntity.ok(pedidos);
     }
 
+    // Con fields= solo se leen y se serializan las columnas pedidas (el id va siempre)
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllPedidosParcial(@RequestParam("fields") String campos) {
+        try {
+            return ResponseEntity.ok(pedidoService.getAllPedidosParcial(campos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Pedido_Entity> getPedidoById(@PathVariable Long id) {
         return pedidoService.getPedidoById(id)
-                .map(ResponseEntity::ok)
+                .map(entidad -> ResponseEntity.ok().eTag(PrecondicionesHttp.etag(entidad.getVersion())).body(entidad))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getPedidoParcialById(
+            @PathVariable Long id,
+            @RequestParam("fields") String campos) {
+        try {
+            return pedidoService.getPedidoParcialById(id, campos)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/usuario/{idUsuario}")
     public ResponseEntity<List<Pedido_Entity>> getPedidosByUsuario(@PathVariable Long idUsuario) {
         List<Pedido_Entity> pedidos = pedidoService.getPedidosByUsuario(idUsuario);
         return ResponseEntity.ok(pedidos);
     }
 
+    @GetMapping(value = "/usuario/{idUsuario}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getPedidosParcialByUsuario(
+            @PathVariable Long idUsuario,
+            @RequestParam("fields") String campos) {
+        try {
+            return ResponseEntity.ok(pedidoService.getPedidosParcialByUsuario(idUsuario, campos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/estado/{estado}")
     public ResponseEntity<List<Pedido_Entity>> getPedidosByEstado(@PathVariable String estado) {
         List<Pedido_Entity> pedidos = pedidoService.getPedidosByEstado(estado);
         return ResponseEntity.ok(pedidos);
     }
 
+    @GetMapping(value = "/estado/{estado}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getPedidosParcialByEstado(
+            @PathVariable String estado,
+            @RequestParam("fields") String campos) {
+        try {
+            return ResponseEntity.ok(pedidoService.getPedidosParcialByEstado(estado, campos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping
     public ResponseEntity<Pedido_Entity> createPedido(@RequestBody Pedido_Entity pedido) {
         try {
@@ -54,10 +102,16 @@ public class Pedido_Controller {
     @PutMapping("/{id}")
     public ResponseEntity<Pedido_Entity> updatePedido(
             @PathVariable Long id,
-            @RequestBody Pedido_Entity pedido) {
+            @RequestBody Pedido_Entity pedido,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Pedido_Entity pedidoActualizado = pedidoService.updatePedido(id, pedido);
-            return ResponseEntity.ok(pedidoActualizado);
+            Pedido_Entity pedidoActualizado = pedidoService.updatePedido(id, pedido,
+                    PrecondicionesHttp.versionEsperada(ifMatch));
+            return ResponseEntity.ok().eTag(PrecondicionesHttp.etag(pedidoActualizado.getVersion())).body(pedidoActualizado);
+        } catch (OptimisticLockingFailureException e) {
+            return PrecondicionesHttp.conflicto(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
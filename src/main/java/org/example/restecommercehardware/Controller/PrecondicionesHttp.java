@@ -0,0 +1,53 @@
+package org.example.restecommercehardware.Controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * ETag e If-Match para las entidades con @Version. El ETag es la versión de la
+ * fila entre comillas; un If-Match débil (W/) se acepta igual. Cuando el
+ * cuerpo incluye datos de otras tablas, el ETag añade tras un guion la versión
+ * del catálogo, y If-Match solo mira la parte de la fila.
+ */
+final class PrecondicionesHttp {
+
+    private PrecondicionesHttp() {
+    }
+
+    static String etag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    // Un cambio de nombre de categoría o marca no toca la fila del producto pero sí el catálogo
+    static String etag(Long version, String etagCatalogo) {
+        return "\"" + version + "-" + etagCatalogo.replace("\"", "") + "\"";
+    }
+
+    // null o "*" no condicionan la escritura
+    static Long versionEsperada(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String valor = ifMatch.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+            valor = valor.substring(1, valor.length() - 1);
+        }
+        int guion = valor.indexOf('-');
+        if (guion > 0) {
+            valor = valor.substring(0, guion);
+        }
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match no válido: " + ifMatch);
+        }
+    }
+
+    static <T> ResponseEntity<T> conflicto(String ifMatch) {
+        // Con If-Match el cliente tenía una versión vieja; sin él, se agotaron los reintentos
+        return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT).build();
+    }
+}
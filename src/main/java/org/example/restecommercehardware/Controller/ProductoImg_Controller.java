@@ -1,5 +1,7 @@
 package org.example.restecommercehardware.Controller;
 
+import org.example.restecommercehardware.DTOs.ImagenesProductoDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLoteDTO;
 import org.example.restecommercehardware.Mapper.ProductoImg_Entity;
 import org.example.restecommercehardware.Service.ProductoImg_Service;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +38,16 @@ public class ProductoImg_Controller {
         return ResponseEntity.ok(productoImgService.getImagenesByProducto(idProducto));
     }
 
+    // Imágenes de varios productos con una sola consulta, en el orden de los ids pedidos
+    @GetMapping("/productos")
+    public ResponseEntity<ResultadoLoteDTO<ImagenesProductoDTO>> getImagenesByProductos(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(productoImgService.getImagenesByProductos(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping(value = "/producto/{idProducto}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> uploadImagen(
             @PathVariable Long idProducto,
@@ -1,14 +1,47 @@
 package org.example.restecommercehardware.Controller;
 
 import lombok.RequiredArgsConstructor;
-import org.example.restecommercehardware.DTOs.ProductoDetalleDTO;
+import org.example.restecommercehardware.DTOs.ActualizacionPrecioStockDTO;
+import org.example.restecommercehardware.DTOs.DetalleProductoDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasCacheDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasConsultasDTO;
+import org.example.restecommercehardware.DTOs.FiltroProductosDTO;
+import org.example.restecommercehardware.DTOs.FormatoImportacion;
+import org.example.restecommercehardware.DTOs.InstantaneaPortadaDTO;
+import org.example.restecommercehardware.DTOs.OrdenCatalogo;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ProductoResumenDTO;
+import org.example.restecommercehardware.DTOs.ResultadoActualizacionMasivaDTO;
+import org.example.restecommercehardware.DTOs.ResultadoFiltroDTO;
+import org.example.restecommercehardware.DTOs.ResultadoImportacionDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLoteDTO;
+import org.example.restecommercehardware.DTOs.SugerenciaDTO;
+import org.example.restecommercehardware.DTOs.ValoracionDTO;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Service.ActualizacionPrecioStock_Service;
+import org.example.restecommercehardware.Service.DetalleProducto_Service;
+import org.example.restecommercehardware.Service.ImportacionProductos_Service;
+import org.example.restecommercehardware.Service.PortadaProductos_Service;
 import org.example.restecommercehardware.Service.Producto_Service;
+import org.example.restecommercehardware.Service.SugerenciasProductos_Service;
+import org.example.restecommercehardware.Service.ValoracionesProductos_Service;
+import org.example.restecommercehardware.Service.VersionCatalogo_Service;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/productos")
@@ -16,49 +49,293 @@ import java.util.List;
 public class Producto_Controller {
 
     private final Producto_Service productoService;
+    private final ImportacionProductos_Service importacionService;
+    private final ActualizacionPrecioStock_Service actualizacionPrecioStockService;
+    private final SugerenciasProductos_Service sugerenciasService;
+    private final VersionCatalogo_Service versionCatalogoService;
+    private final PortadaProductos_Service portadaService;
+    private final ValoracionesProductos_Service valoracionesService;
+    private final DetalleProducto_Service detalleProductoService;
 
     @GetMapping
-    public ResponseEntity<List<Producto_Entity>> getAllProductos() {
-        List<Producto_Entity> productos = productoService.getAllProductos();
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<PaginaDTO<ProductoResumenDTO>> getAllProductos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(required = false) String orden,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productoService.getAllProductos(cursor, tamano, OrdenCatalogo.desde(orden)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Listado paginado con fields=: mismo cursor y orden, pero solo se leen y serializan las columnas pedidas
+    @GetMapping(params = "fields")
+    public ResponseEntity<PaginaDTO<Map<String, Object>>> getProductosParciales(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(required = false) String orden,
+            @RequestParam("fields") String campos,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productoService.getProductosParciales(cursor, tamano, OrdenCatalogo.desde(orden), campos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
+    // Varios productos por id con una sola consulta, en el orden pedido (carrito, favoritos, comparador)
+    @GetMapping(params = "ids")
+    public ResponseEntity<ResultadoLoteDTO<ProductoResumenDTO>> getProductosByIds(
+            @RequestParam List<Long> ids,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productoService.getProductosByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Con fields= solo se leen y se serializan las columnas pedidas (el id va siempre)
+    @GetMapping(params = {"ids", "fields"})
+    public ResponseEntity<ResultadoLoteDTO<Map<String, Object>>> getProductosParcialesByIds(
+            @RequestParam List<Long> ids,
+            @RequestParam("fields") String campos,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productoService.getProductosParcialesByIds(ids, campos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Se sirve la instantánea ya serializada; el ETag es el de su contenido, no la versión del catálogo
     @GetMapping("/portada")
-    public ResponseEntity<List<ProductoDetalleDTO>> getProductosConImagenPortada() {
-        List<ProductoDetalleDTO> productos = productoService.getProductosConImagenPortada();
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<byte[]> getProductosConImagenPortada(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String codificaciones,
+            WebRequest request) {
+        InstantaneaPortadaDTO instantanea = portadaService.getInstantanea();
+        boolean gzip = aceptaGzip(codificaciones);
+        String etag = gzip ? instantanea.getEtagGzip() : instantanea.getEtagIdentidad();
+        if (request.checkNotModified(etag, instantanea.getUltimaModificacion().toEpochMilli())) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(instantanea.getGzip());
+        }
+        return respuesta.body(instantanea.getIdentidad());
     }
 
+    // El ETag combina la versión de la fila, que PUT acepta en If-Match, con la del catálogo, porque el cuerpo
+    // incluye los nombres de categoría y marca; la lectura sale de la caché
     @GetMapping("/{id}")
-    public ResponseEntity<Producto_Entity> getProductoById(@PathVariable Long id) {
-        return productoService.getProductoById(id)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Producto_Entity> getProductoById(@PathVariable Long id, WebRequest request) {
+        // La versión del catálogo se lee antes que el producto: si cambia entre medias, el ETag queda viejo y no al revés
+        String etagCatalogo = versionCatalogoService.getEtag();
+        Optional<Producto_Entity> producto = productoService.getProductoById(id);
+        if (producto.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = PrecondicionesHttp.etag(producto.get().getVersion(), etagCatalogo);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(producto.get());
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProductoParcialById(
+            @PathVariable Long id,
+            @RequestParam("fields") String campos,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return productoService.getProductoParcialById(id, campos)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Producto, imágenes, valoración y primera página de reseñas en una sola respuesta
+    @GetMapping("/{id}/detalle")
+    public ResponseEntity<DetalleProductoDTO> getDetalleProducto(@PathVariable Long id, WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return detalleProductoService.getDetalle(id)
+                    .map(detalle -> detalle.getPartesNoDisponibles().isEmpty()
+                            ? ResponseEntity.ok(detalle)
+                            // Una respuesta incompleta no debe quedar en caché asociada al ETag
+                            : ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(detalle))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (QueryTimeoutException e) {
+            // Sin el producto no hay página que servir, pero tampoco es que no exista: se puede reintentar
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).cacheControl(CacheControl.noStore()).build();
+        }
+    }
+
+    @GetMapping("/{id}/valoracion")
+    public ResponseEntity<ValoracionDTO> getValoracion(@PathVariable Long id, WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        if (productoService.getProductoById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(valoracionesService.getValoracion(id));
     }
 
     @GetMapping("/sku/{sku}")
-    public ResponseEntity<Producto_Entity> getProductoBySku(@PathVariable String sku) {
+    public ResponseEntity<Producto_Entity> getProductoBySku(@PathVariable String sku, WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
         return productoService.getProductoBySku(sku)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/sku/{sku}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProductoParcialBySku(
+            @PathVariable String sku,
+            @RequestParam("fields") String campos,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return productoService.getProductoParcialBySku(sku, campos)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/categoria/{idCategoria}")
-    public ResponseEntity<List<Producto_Entity>> getProductosByCategoria(@PathVariable Long idCategoria) {
-        List<Producto_Entity> productos = productoService.getProductosByCategoria(idCategoria);
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<PaginaDTO<ProductoResumenDTO>> getProductosByCategoria(
+            @PathVariable Long idCategoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(required = false) String orden,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productoService.getProductosByCategoria(
+                    idCategoria, cursor, tamano, OrdenCatalogo.desde(orden)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/marca/{idMarca}")
-    public ResponseEntity<List<Producto_Entity>> getProductosByMarca(@PathVariable Long idMarca) {
-        List<Producto_Entity> productos = productoService.getProductosByMarca(idMarca);
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<PaginaDTO<ProductoResumenDTO>> getProductosByMarca(
+            @PathVariable Long idMarca,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(required = false) String orden,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productoService.getProductosByMarca(
+                    idMarca, cursor, tamano, OrdenCatalogo.desde(orden)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/buscar")
-    public ResponseEntity<List<Producto_Entity>> searchProductosByNombre(@RequestParam String nombre) {
-        List<Producto_Entity> productos = productoService.searchProductosByNombre(nombre);
-        return ResponseEntity.ok(productos);
+    public ResponseEntity<PaginaDTO<ProductoResumenDTO>> searchProductosByNombre(
+            @RequestParam String nombre,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok(productoService.searchProductosByNombre(nombre, cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/filtrar")
+    public ResponseEntity<ResultadoFiltroDTO<ProductoResumenDTO>> filtrarProductos(
+            @RequestParam(required = false) List<Long> categoria,
+            @RequestParam(required = false) List<Long> marca,
+            @RequestParam(required = false) BigDecimal precioMin,
+            @RequestParam(required = false) BigDecimal precioMax,
+            @RequestParam(required = false) Boolean enStock,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            WebRequest request) {
+        if (noModificado(request)) {
+            return null;
+        }
+        FiltroProductosDTO filtro = new FiltroProductosDTO(categoria, marca, precioMin, precioMax, enStock);
+        try {
+            return ResponseEntity.ok(productoService.filtrarProductos(filtro, cursor, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<SugerenciaDTO>> getSugerencias(
+            @RequestParam String prefijo,
+            @RequestParam(defaultValue = "10") int limite) {
+        return ResponseEntity.ok(sugerenciasService.sugerir(prefijo, limite));
+    }
+
+    @GetMapping("/cache/estadisticas")
+    public ResponseEntity<List<EstadisticasCacheDTO>> getEstadisticasCache() {
+        return ResponseEntity.ok(productoService.getEstadisticasCache());
+    }
+
+    @GetMapping("/consultas/estadisticas")
+    public ResponseEntity<EstadisticasConsultasDTO> getEstadisticasConsultas() {
+        return ResponseEntity.ok(productoService.getEstadisticasConsultas());
+    }
+
+    // Carga masiva desde CSV (con cabecera) o NDJSON; el cuerpo se lee en streaming
+    @PostMapping(value = "/importar", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ResultadoImportacionDTO> importarProductos(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipo,
+            InputStream cuerpo) throws IOException {
+        return ResponseEntity.ok(importacionService.importar(cuerpo, FormatoImportacion.desde(tipo)));
+    }
+
+    // Precio y stock por SKU para los feeds de proveedores
+    @PutMapping("/precios-stock")
+    public ResponseEntity<ResultadoActualizacionMasivaDTO> actualizarPreciosStock(
+            @RequestBody List<ActualizacionPrecioStockDTO> actualizaciones) {
+        return ResponseEntity.ok(actualizacionPrecioStockService.actualizar(actualizaciones));
     }
 
     @PostMapping
@@ -74,10 +351,16 @@ public class Producto_Controller {
     @PutMapping("/{id}")
     public ResponseEntity<Producto_Entity> updateProducto(
             @PathVariable Long id,
-            @RequestBody Producto_Entity producto) {
+            @RequestBody Producto_Entity producto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Producto_Entity productoActualizado = productoService.updateProducto(id, producto);
-            return ResponseEntity.ok(productoActualizado);
+            Producto_Entity productoActualizado = productoService.updateProducto(id, producto,
+                    PrecondicionesHttp.versionEsperada(ifMatch));
+            return ResponseEntity.ok().eTag(PrecondicionesHttp.etag(productoActualizado.getVersion())).body(productoActualizado);
+        } catch (OptimisticLockingFailureException e) {
+            return PrecondicionesHttp.conflicto(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -92,5 +375,24 @@ public class Producto_Controller {
             return ResponseEntity.notFound().build();
         }
     }
-}
 
+    // Acepta "gzip" salvo que venga con q=0
+    private boolean aceptaGzip(String codificaciones) {
+        if (codificaciones == null) {
+            return false;
+        }
+        for (String codificacion : codificaciones.split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                return partes.length == 1 || !partes[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Responde 304 (y fija ETag / Last-Modified) antes de cargar o serializar nada
+    private boolean noModificado(WebRequest request) {
+        return request.checkNotModified(versionCatalogoService.getEtag(),
+                versionCatalogoService.getUltimaModificacion().toEpochMilli());
+    }
+}
@@ -1,6 +1,9 @@
 package org.example.restecommercehardware.Controller;
 
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.OrdenResenas;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ResenaResumenDTO;
 import org.example.restecommercehardware.Mapper.Resena_Entity;
 import org.example.restecommercehardware.Service.Resena_Service;
 import org.springframework.http.HttpStatus;
@@ -30,15 +33,39 @@ public class Resena_Controller {
     }
 
     @GetMapping("/producto/{idProducto}")
-    public ResponseEntity<List<Resena_Entity>> getResenasByProducto(@PathVariable Long idProducto) {
-        List<Resena_Entity> resenas = resenaService.getResenasByProducto(idProducto);
-        return ResponseEntity.ok(resenas);
+    public ResponseEntity<PaginaDTO<ResenaResumenDTO>> getResenasByProducto(
+            @PathVariable Long idProducto,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) Integer calificacionMin,
+            @RequestParam(required = false) Integer calificacionMax) {
+        try {
+            return ResponseEntity.ok(resenaService.getResenasByProducto(
+                    idProducto, cursor, tamano, OrdenResenas.desde(orden), calificacionMin, calificacionMax));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
 
     @GetMapping("/usuario/{idUsuario}")
-    public ResponseEntity<List<Resena_Entity>> getResenasByUsuario(@PathVariable Long idUsuario) {
-        List<Resena_Entity> resenas = resenaService.getResenasByUsuario(idUsuario);
-        return ResponseEntity.ok(resenas);
+    public ResponseEntity<PaginaDTO<ResenaResumenDTO>> getResenasByUsuario(
+            @PathVariable Long idUsuario,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) Integer calificacionMin,
+            @RequestParam(required = false) Integer calificacionMax) {
+        try {
+            return ResponseEntity.ok(resenaService.getResenasByUsuario(
+                    idUsuario, cursor, tamano, OrdenResenas.desde(orden), calificacionMin, calificacionMax));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
     }
 
     @GetMapping("/calificacion/{calificacion}")
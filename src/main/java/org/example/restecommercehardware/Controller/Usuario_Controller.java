@@ -10,6 +10,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/usuarios")
@@ -24,6 +25,16 @@ public class Usuario_Controller {
         return ResponseEntity.ok(usuarios);
     }
 
+    // Con fields= solo se leen y se serializan las columnas pedidas (el id va siempre)
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllUsuariosParcial(@RequestParam("fields") String campos) {
+        try {
+            return ResponseEntity.ok(usuarioService.getAllUsuariosParcial(campos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Usuario_Entity> getUsuarioById(@PathVariable Long id) {
         return usuarioService.getUsuarioById(id)
@@ -31,6 +42,19 @@ public class Usuario_Controller {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUsuarioParcialById(
+            @PathVariable Long id,
+            @RequestParam("fields") String campos) {
+        try {
+            return usuarioService.getUsuarioParcialById(id, campos)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/email/{correo}")
     public ResponseEntity<Usuario_Entity> getUsuarioByEmail(@PathVariable String correo) {
         return usuarioService.getUsuarioByEmail(correo)
@@ -38,6 +62,19 @@ public class Usuario_Controller {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/email/{correo}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUsuarioParcialByEmail(
+            @PathVariable String correo,
+            @RequestParam("fields") String campos) {
+        try {
+            return usuarioService.getUsuarioParcialByEmail(correo, campos)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping("/register")
     public ResponseEntity<Usuario_Entity> createUsuario(@RequestBody Usuario_Entity usuario) {
         try {
@@ -0,0 +1,17 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Precio y/o stock nuevos para un SKU; un campo nulo conserva el valor actual
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActualizacionPrecioStockDTO {
+    private String sku;
+    private BigDecimal precio;
+    private Integer stock;
+}
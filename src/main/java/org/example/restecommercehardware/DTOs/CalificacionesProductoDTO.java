@@ -0,0 +1,8 @@
+package org.example.restecommercehardware.DTOs;
+
+// Proyección de reseñas por producto y calificación (resenas agrupado)
+public interface CalificacionesProductoDTO {
+    Long getIdProducto();
+    Integer getCalificacion();
+    Long getTotal();
+}
@@ -0,0 +1,18 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioPrecioStockDTO {
+    private String sku;
+    private BigDecimal precioAnterior;
+    private BigDecimal precioNuevo;
+    private Integer stockAnterior;
+    private Integer stockNuevo;
+}
@@ -0,0 +1,20 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CarritoConImagenesDTO {
+    private Long idCarrito;
+    private List<ItemCarritoConImagenDTO> items;
+    private Integer cantidadTotal;
+    private BigDecimal total;
+}
@@ -0,0 +1,11 @@
+package org.example.restecommercehardware.DTOs;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+// Proyección con las claves de orden del catálogo; no lee la descripción
+public interface ClaveProductoDTO {
+    Long getId();
+    BigDecimal getPrecio();
+    Instant getCreadoEn();
+}
@@ -0,0 +1,10 @@
+package org.example.restecommercehardware.DTOs;
+
+import java.time.Instant;
+
+// Proyección con las claves de orden de las reseñas; no lee el comentario
+public interface ClaveResenaDTO {
+    Long getId();
+    Integer getCalificacion();
+    Instant getCreadoEn();
+}
@@ -0,0 +1,22 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+
+import java.util.List;
+
+// Página de producto en una sola respuesta; partesNoDisponibles lista las partes que fallaron o tardaron demasiado
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DetalleProductoDTO {
+    private Producto_Entity producto;
+    private List<ImagenProductoDTO> imagenes;
+    private ValoracionDTO valoracion;
+    private PaginaDTO<ResenaResumenDTO> resenas;
+    private List<String> partesNoDisponibles;
+}
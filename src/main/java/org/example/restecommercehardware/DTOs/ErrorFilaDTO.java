@@ -0,0 +1,14 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorFilaDTO {
+    private long fila;
+    private String sku;
+    private String mensaje;
+}
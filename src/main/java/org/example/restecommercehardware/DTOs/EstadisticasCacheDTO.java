@@ -0,0 +1,19 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasCacheDTO {
+    private String nombre;
+    private long entradas;
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+    private double tasaAciertos;
+}
@@ -0,0 +1,22 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasCarritosDTO {
+    private boolean habilitado;
+    private long carritosEnMemoria;
+    private long carritosPendientes;
+    private long volcados;
+    private long filasEscritas;
+    private long erroresVolcado;
+    private Instant ultimoVolcado;
+}
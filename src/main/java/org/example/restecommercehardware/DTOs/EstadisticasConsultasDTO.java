@@ -0,0 +1,18 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasConsultasDTO {
+    private String nombre;
+    private long cargas;
+    private long colapsadas;
+    private long enCurso;
+    private double tasaColapso;
+}
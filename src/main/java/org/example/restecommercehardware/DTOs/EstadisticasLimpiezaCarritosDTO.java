@@ -0,0 +1,23 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasLimpiezaCarritosDTO {
+    private boolean habilitado;
+    private String ttl;
+    private long ejecuciones;
+    private long carritosEliminados;
+    private long itemsEliminados;
+    private long errores;
+    private Instant ultimaEjecucion;
+    private ResultadoLimpiezaCarritosDTO ultimoResultado;
+}
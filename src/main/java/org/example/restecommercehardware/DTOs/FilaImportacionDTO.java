@@ -0,0 +1,19 @@
+package org.example.restecommercehardware.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Fila de importación tal como llega (CSV o NDJSON); los tipos se validan al procesar el lote
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FilaImportacionDTO {
+    private String nombre;
+    private String descripcion;
+    private String precio;
+    private String stock;
+    private String sku;
+    private String idCategoria;
+    private String idMarca;
+}
@@ -0,0 +1,21 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FiltroProductosDTO {
+    private List<Long> categorias;
+    private List<Long> marcas;
+    private BigDecimal precioMin;
+    private BigDecimal precioMax;
+    private Boolean enStock;
+}
@@ -0,0 +1,18 @@
+package org.example.restecommercehardware.DTOs;
+
+import org.springframework.http.MediaType;
+
+public enum FormatoImportacion {
+    CSV,
+    NDJSON;
+
+    public static FormatoImportacion desde(MediaType tipo) {
+        if (tipo != null && tipo.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+            return CSV;
+        }
+        if (tipo != null && tipo.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Formato de importación no soportado: " + tipo);
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Imagen de un producto sin el grafo del producto; para el detalle y las consultas por lotes
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImagenProductoDTO {
+    private Long id;
+    private Long idProducto;
+    private String urlImagen;
+    private Integer orden;
+}
@@ -0,0 +1,17 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImagenesProductoDTO {
+    private Long idProducto;
+    private List<ImagenProductoDTO> imagenes;
+}
@@ -0,0 +1,17 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+// Respuesta de /api/productos/portada ya serializada, sin comprimir y en gzip
+@Getter
+@AllArgsConstructor
+public class InstantaneaPortadaDTO {
+    private final byte[] identidad;
+    private final byte[] gzip;
+    private final String etagIdentidad;
+    private final String etagGzip;
+    private final Instant ultimaModificacion;
+}
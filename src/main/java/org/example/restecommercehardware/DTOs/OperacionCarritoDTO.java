@@ -0,0 +1,15 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Una operación del lote: "agregar" suma unidades, "fijar" deja la cantidad indicada y "eliminar" quita la línea
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperacionCarritoDTO {
+    private String operacion;
+    private Long idProducto;
+    private Integer cantidad;
+}
@@ -0,0 +1,42 @@
+package org.example.restecommercehardware.DTOs;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+
+/**
+ * Ordenes estables para el catálogo. Todas terminan en "id" para que el
+ * cursor keyset sea único aunque haya precios o fechas repetidas.
+ */
+public enum OrdenCatalogo {
+    ID("id", Sort.by(Sort.Order.asc("id"))),
+    PRECIO_ASC("precio_asc", Sort.by(Sort.Order.asc("precio"), Sort.Order.asc("id"))),
+    PRECIO_DESC("precio_desc", Sort.by(Sort.Order.desc("precio"), Sort.Order.desc("id"))),
+    RECIENTES("recientes", Sort.by(Sort.Order.desc("creadoEn"), Sort.Order.desc("id")));
+
+    private final String valor;
+    private final Sort sort;
+
+    OrdenCatalogo(String valor, Sort sort) {
+        this.valor = valor;
+        this.sort = sort;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public static OrdenCatalogo desde(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return ID;
+        }
+        return Arrays.stream(values())
+                .filter(orden -> orden.valor.equalsIgnoreCase(valor))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Orden no soportado: " + valor));
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.restecommercehardware.DTOs;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+
+/**
+ * Órdenes estables para los listados de reseñas. Todas terminan en "id" y
+ * van en una sola dirección para que el índice (producto, fecha) o
+ * (producto, calificación, fecha) se recorra sin ordenar.
+ */
+public enum OrdenResenas {
+    RECIENTES("recientes", Sort.by(Sort.Order.desc("creadoEn"), Sort.Order.desc("id"))),
+    ANTIGUAS("antiguas", Sort.by(Sort.Order.asc("creadoEn"), Sort.Order.asc("id"))),
+    CALIFICACION_DESC("calificacion_desc",
+            Sort.by(Sort.Order.desc("calificacion"), Sort.Order.desc("creadoEn"), Sort.Order.desc("id"))),
+    CALIFICACION_ASC("calificacion_asc",
+            Sort.by(Sort.Order.asc("calificacion"), Sort.Order.asc("creadoEn"), Sort.Order.asc("id")));
+
+    private final String valor;
+    private final Sort sort;
+
+    OrdenResenas(String valor, Sort sort) {
+        this.valor = valor;
+        this.sort = sort;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public static OrdenResenas desde(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return RECIENTES;
+        }
+        return Arrays.stream(values())
+                .filter(orden -> orden.valor.equalsIgnoreCase(valor))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Orden no soportado: " + valor));
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.restecommercehardware.DTOs;
+
+import java.math.BigDecimal;
+
+// Proyección con el precio y stock actuales de un producto, para las actualizaciones masivas
+public interface PrecioStockDTO {
+    Long getId();
+    String getSku();
+    BigDecimal getPrecio();
+    Integer getStock();
+}
@@ -19,4 +19,14 @@ public class ProductoDetalleDTO {
     private String nombreMarca;
     private Long idCategoria;
     private String nombreCategoria;
+    private Double calificacionMedia;
+    private long totalResenas;
+
+    // Usado por la consulta JPQL; la valoración se completa después desde memoria
+    public ProductoDetalleDTO(Long id, String nombre, String descripcion, Double precio, Integer stock, String sku,
+                              String imagenPortada, Long idMarca, String nombreMarca, Long idCategoria,
+                              String nombreCategoria) {
+        this(id, nombre, descripcion, precio, stock, sku, imagenPortada, idMarca, nombreMarca, idCategoria,
+                nombreCategoria, null, 0);
+    }
 }
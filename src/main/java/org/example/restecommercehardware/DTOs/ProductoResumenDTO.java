@@ -0,0 +1,34 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// Fila de los listados del catálogo: sin descripción, con portada y nombres de marca/categoría
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoResumenDTO {
+    private Long id;
+    private String nombre;
+    private BigDecimal precio;
+    private Integer stock;
+    private String sku;
+    private String imagenPortada;
+    private Long idMarca;
+    private String nombreMarca;
+    private Long idCategoria;
+    private String nombreCategoria;
+    private Double calificacionMedia;
+    private long totalResenas;
+
+    // Usado por la consulta JPQL; la valoración se completa después desde memoria
+    public ProductoResumenDTO(Long id, String nombre, BigDecimal precio, Integer stock, String sku,
+                              String imagenPortada, Long idMarca, String nombreMarca, Long idCategoria,
+                              String nombreCategoria) {
+        this(id, nombre, precio, stock, sku, imagenPortada, idMarca, nombreMarca, idCategoria, nombreCategoria,
+                null, 0);
+    }
+}
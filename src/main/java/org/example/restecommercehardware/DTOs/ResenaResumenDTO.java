@@ -0,0 +1,36 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Fila de los listados de reseñas: el comentario llega recortado y se indica si había más texto
+@Getter
+@Setter
+@NoArgsConstructor
+public class ResenaResumenDTO {
+    private Long id;
+    private Long idProducto;
+    private String nombreProducto;
+    private Long idUsuario;
+    private String nombreUsuario;
+    private Integer calificacion;
+    private String extracto;
+    private boolean comentarioRecortado;
+    private Instant creadoEn;
+
+    // Usado por la consulta JPQL; el servicio recorta el extracto y marca comentarioRecortado
+    public ResenaResumenDTO(Long id, Long idProducto, String nombreProducto, Long idUsuario, String nombreUsuario,
+                            Integer calificacion, String extracto, Instant creadoEn) {
+        this.id = id;
+        this.idProducto = idProducto;
+        this.nombreProducto = nombreProducto;
+        this.idUsuario = idUsuario;
+        this.nombreUsuario = nombreUsuario;
+        this.calificacion = calificacion;
+        this.extracto = extracto;
+        this.creadoEn = creadoEn;
+    }
+}
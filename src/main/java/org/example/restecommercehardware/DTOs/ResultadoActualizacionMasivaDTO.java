@@ -0,0 +1,26 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Resumen de una actualización masiva; las listas se recortan a catalogo.actualizacion-masiva.maximo-detalle
+@Data
+@NoArgsConstructor
+public class ResultadoActualizacionMasivaDTO {
+    private long recibidos;
+    private long actualizados;
+    private long sinCambios;
+    private long noEncontrados;
+    private long conflictos;
+    private long rechazados;
+    private long cambiosPrecio;
+    private long cambiosStock;
+    private long agotados;
+    private long repuestos;
+    private List<String> skusNoEncontrados = new ArrayList<>();
+    private List<ErrorFilaDTO> errores = new ArrayList<>();
+    private List<CambioPrecioStockDTO> cambios = new ArrayList<>();
+}
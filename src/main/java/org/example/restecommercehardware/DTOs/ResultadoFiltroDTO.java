@@ -0,0 +1,21 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoFiltroDTO<T> {
+    private PaginaDTO<T> productos;
+    private int total;
+    private List<FacetaValorDTO> categorias;
+    private List<FacetaValorDTO> marcas;
+    private List<FacetaValorDTO> rangosPrecio;
+    private List<FacetaValorDTO> disponibilidad;
+}
@@ -0,0 +1,18 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resumen de una importación; errores contiene como máximo catalogo.importacion.maximo-errores filas
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoImportacionDTO {
+    private long filasLeidas;
+    private long insertados;
+    private long rechazados;
+    private List<ErrorFilaDTO> errores;
+}
@@ -0,0 +1,17 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLimpiezaCarritosDTO {
+    private long carritosEliminados;
+    private long itemsEliminados;
+    private int lotes;
+    private long duracionMs;
+}
@@ -0,0 +1,18 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Respuesta de las consultas por lista de ids: en el orden pedido y con los ids que no existen
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLoteDTO<T> {
+    private List<T> contenido;
+    private List<Long> idsNoEncontrados;
+}
@@ -0,0 +1,29 @@
+package org.example.restecommercehardware.DTOs;
+
+import java.util.Arrays;
+
+public enum TipoOperacionCarrito {
+    AGREGAR("agregar"),
+    FIJAR("fijar"),
+    ELIMINAR("eliminar");
+
+    private final String valor;
+
+    TipoOperacionCarrito(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+
+    public static TipoOperacionCarrito desde(String valor) {
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("La operación es obligatoria");
+        }
+        return Arrays.stream(values())
+                .filter(tipo -> tipo.valor.equalsIgnoreCase(valor.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Operación no soportada: " + valor));
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.restecommercehardware.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Resumen de reseñas de un producto; histograma[i] = reseñas con calificación i (0 a 5)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValoracionDTO {
+    private Long idProducto;
+    private long totalResenas;
+    private long sumaCalificaciones;
+    private Double calificacionMedia;
+    private long[] histograma;
+}
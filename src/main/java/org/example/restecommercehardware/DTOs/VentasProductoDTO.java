@@ -0,0 +1,7 @@
+package org.example.restecommercehardware.DTOs;
+
+// Proyección de unidades vendidas por producto (items_pedido agrupado)
+public interface VentasProductoDTO {
+    Long getIdProducto();
+    Long getUnidades();
+}
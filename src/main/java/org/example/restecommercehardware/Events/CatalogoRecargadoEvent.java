@@ -0,0 +1,15 @@
+package org.example.restecommercehardware.Events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica tras una carga o actualización masiva del catálogo. Los oyentes
+ * reconstruyen sus estructuras completas en lugar de procesar un evento por producto.
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogoRecargadoEvent {
+    private final String origen;
+    private final long productosAfectados;
+}
@@ -0,0 +1,22 @@
+package org.example.restecommercehardware.Events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica desde Producto_Service_Impl cada vez que se crea, actualiza o
+ * elimina un producto. Los oyentes lo reciben tras el commit de la transacción.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductoCambiadoEvent {
+
+    public enum Tipo {
+        CREADO,
+        ACTUALIZADO,
+        ELIMINADO
+    }
+
+    private final Long idProducto;
+    private final Tipo tipo;
+}
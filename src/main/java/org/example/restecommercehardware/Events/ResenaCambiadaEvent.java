@@ -0,0 +1,18 @@
+package org.example.restecommercehardware.Events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Se publica desde Resena_Service_Impl al crear, actualizar o eliminar una
+ * reseña, con el producto y la calificación de antes y de después (null si no
+ * había o ya no hay). Los oyentes lo reciben tras el commit de la transacción.
+ */
+@Getter
+@AllArgsConstructor
+public class ResenaCambiadaEvent {
+    private final Long idProductoAnterior;
+    private final Integer calificacionAnterior;
+    private final Long idProductoNuevo;
+    private final Integer calificacionNueva;
+}
@@ -1,5 +1,6 @@
 package org.example.restecommercehardware.Mapper;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,6 +11,7 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "carrito", schema = "dbo")
 public class Carrito_Entity {
     @Id
@@ -17,7 +19,7 @@ public class Carrito_Entity {
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_usuario")
     private Usuario_Entity idUsuario;
 
@@ -25,4 +27,13 @@ public class Carrito_Entity {
     @Column(name = "creado_en")
     private Instant creadoEn;
 
+    // Último cambio del carrito o de sus líneas; null en filas anteriores a la columna
+    @Column(name = "actualizado_en")
+    private Instant actualizadoEn;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 }
\ No newline at end of file
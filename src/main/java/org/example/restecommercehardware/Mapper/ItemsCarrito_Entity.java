@@ -9,18 +9,22 @@ import org.hibernate.annotations.ColumnDefault;
 @Getter
 @Setter
 @Entity
-@Table(name = "items_carrito", schema = "dbo")
+// Una línea por producto en cada carrito. En una base con líneas repetidas hay que fusionarlas (sumando
+// cantidades en la de menor id y borrando el resto) antes de crear la restricción
+@Table(name = "items_carrito", schema = "dbo", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_items_carrito_carrito_producto", columnNames = {"id_carrito", "id_producto"})
+})
 public class ItemsCarrito_Entity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_carrito")
     private Carrito_Entity idCarrito;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_producto")
     private Producto_Entity idProducto;
 
@@ -29,4 +33,9 @@ public class ItemsCarrito_Entity {
     @Column(name = "cantidad", nullable = false)
     private Integer cantidad;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 }
\ No newline at end of file
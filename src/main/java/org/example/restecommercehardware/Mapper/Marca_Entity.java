@@ -1,14 +1,21 @@
 package org.example.restecommercehardware.Mapper;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.example.restecommercehardware.Config.CacheConfig;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Getter
 @Setter
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.REGION_MARCAS)
 @Table(name = "marcas", schema = "dbo", uniqueConstraints = {
         @UniqueConstraint(name = "UQ__marcas__72AFBCC63A874283", columnNames = {"nombre"})
 })
@@ -1,5 +1,6 @@
 package org.example.restecommercehardware.Mapper;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -13,6 +14,7 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "pedidos", schema = "dbo")
 public class Pedido_Entity {
     @Id
@@ -20,7 +22,7 @@ public class Pedido_Entity {
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_usuario")
     private Usuario_Entity idUsuario;
 
@@ -54,4 +56,9 @@ public class Pedido_Entity {
     @Column(name = "codigo_postal_envio", length = 10)
     private String codigoPostalEnvio;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 }
\ No newline at end of file
@@ -16,7 +16,7 @@ public class ProductoImg_Entity {
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_producto")
     private Producto_Entity idProducto;
 
@@ -1,5 +1,6 @@
 package org.example.restecommercehardware.Mapper;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -14,6 +15,7 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "productos", schema = "dbo", uniqueConstraints = {
         @UniqueConstraint(name = "UQ__producto__DDDF4BE783EDAB62", columnNames = {"sku"})
 })
@@ -44,11 +46,11 @@ public class Producto_Entity {
     @Column(name = "sku", length = 50)
     private String sku;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_categoria")
     private Categoria_Entity idCategoria;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_marca")
     private Marca_Entity idMarca;
 
@@ -60,4 +62,9 @@ public class Producto_Entity {
     @Column(name = "actualizado_en")
     private Instant actualizadoEn;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
 }
\ No newline at end of file
@@ -11,18 +11,22 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
-@Table(name = "resenas", schema = "dbo")
+@Table(name = "resenas", schema = "dbo", indexes = {
+        @Index(name = "ix_resenas_producto_creado_en", columnList = "id_producto, creado_en"),
+        @Index(name = "ix_resenas_producto_calificacion", columnList = "id_producto, calificacion, creado_en"),
+        @Index(name = "ix_resenas_usuario_creado_en", columnList = "id_usuario, creado_en")
+})
 public class Resena_Entity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_producto")
     private Producto_Entity idProducto;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_usuario")
     private Usuario_Entity idUsuario;
 
@@ -1,5 +1,6 @@
 package org.example.restecommercehardware.Mapper;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -12,6 +13,7 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Table(name = "usuarios", schema = "dbo", uniqueConstraints = {
         @UniqueConstraint(name = "UQ__usuarios__5B8A0682472D3DC4", columnNames = {"correo_electronico"})
 })
@@ -2,12 +2,19 @@ package org.example.restecommercehardware.Repository;
 
 import org.example.restecommercehardware.Mapper.Carrito_Entity;
 import org.example.restecommercehardware.Mapper.Usuario_Entity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface Carrito_Repository extends JpaRepository<Carrito_Entity, Long> {
+    @EntityGraph(attributePaths = {"idUsuario"})
+    List<Carrito_Entity> findAllConRelacionesBy();
+    @EntityGraph(attributePaths = {"idUsuario"})
+    Optional<Carrito_Entity> findConRelacionesById(Long id);
+    @EntityGraph(attributePaths = {"idUsuario"})
     Optional<Carrito_Entity> findByIdUsuario(Usuario_Entity usuario);
 }
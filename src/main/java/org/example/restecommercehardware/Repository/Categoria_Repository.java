@@ -1,14 +1,26 @@
 package org.example.restecommercehardware.Repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.restecommercehardware.Mapper.Categoria_Entity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface Categoria_Repository extends JpaRepository<Categoria_Entity, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Categoria_Entity> findAll();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Categoria_Entity> findByNombre(String nombre);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByNombre(String nombre);
 }
 
@@ -1,15 +1,62 @@
 package org.example.restecommercehardware.Repository;
 
+import org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO;
 import org.example.restecommercehardware.Mapper.Carrito_Entity;
 import org.example.restecommercehardware.Mapper.ItemsCarrito_Entity;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemsCarrito_Repository extends JpaRepository<ItemsCarrito_Entity, Long> {
+    @EntityGraph(attributePaths = {"idCarrito.idUsuario", "idProducto.idCategoria", "idProducto.idMarca"})
+    List<ItemsCarrito_Entity> findAllConRelacionesBy();
+    @EntityGraph(attributePaths = {"idCarrito.idUsuario", "idProducto.idCategoria", "idProducto.idMarca"})
+    Optional<ItemsCarrito_Entity> findConRelacionesById(Long id);
+    @EntityGraph(attributePaths = {"idCarrito.idUsuario", "idProducto.idCategoria", "idProducto.idMarca"})
     List<ItemsCarrito_Entity> findByIdCarrito(Carrito_Entity carrito);
+    @EntityGraph(attributePaths = {"idCarrito.idUsuario", "idProducto.idCategoria", "idProducto.idMarca"})
     List<ItemsCarrito_Entity> findByIdProducto(Producto_Entity producto);
-}
\ No newline at end of file
+
+    @Query("select i.idCarrito.id from ItemsCarrito_Entity i where i.id = :id")
+    Optional<Long> findIdCarritoById(@Param("id") Long id);
+
+    // Vista del carrito en una sola consulta: la portada es la imagen de menor orden
+    @Query("""
+            select new org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO(
+                i.id, c.id, p.id, p.nombre, p.descripcion, p.precio, p.stock, p.sku, i.cantidad,
+                (select img.urlImagen from ProductoImg_Entity img
+                 where img.idProducto = p
+                 order by img.orden asc, img.id asc
+                 limit 1),
+                p.precio * i.cantidad)
+            from ItemsCarrito_Entity i
+            join i.idCarrito c
+            join i.idProducto p
+            where c.id = :idCarrito
+            order by i.id
+            """)
+    List<ItemCarritoConImagenDTO> findVistaByIdCarrito(@Param("idCarrito") Long idCarrito);
+
+    @Query("""
+            select new org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO(
+                i.id, c.id, p.id, p.nombre, p.descripcion, p.precio, p.stock, p.sku, i.cantidad,
+                (select img.urlImagen from ProductoImg_Entity img
+                 where img.idProducto = p
+                 order by img.orden asc, img.id asc
+                 limit 1),
+                p.precio * i.cantidad)
+            from ItemsCarrito_Entity i
+            join i.idCarrito c
+            join i.idProducto p
+            where c.id = :idCarrito and p.id = :idProducto
+            """)
+    Optional<ItemCarritoConImagenDTO> findVistaByIdCarritoAndIdProducto(@Param("idCarrito") Long idCarrito,
+                                                                       @Param("idProducto") Long idProducto);
+}
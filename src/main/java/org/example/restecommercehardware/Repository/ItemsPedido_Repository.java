@@ -1,15 +1,33 @@
 package org.example.restecommercehardware.Repository;
 
+import org.example.restecommercehardware.DTOs.VentasProductoDTO;
 import org.example.restecommercehardware.Mapper.ItemsPedido_Entity;
 import org.example.restecommercehardware.Mapper.Pedido_Entity;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemsPedido_Repository extends JpaRepository<ItemsPedido_Entity, Long> {
+    @EntityGraph(attributePaths = {"idPedido.idUsuario", "idProducto.idCategoria", "idProducto.idMarca"})
+    List<ItemsPedido_Entity> findAllConRelacionesBy();
+    @EntityGraph(attributePaths = {"idPedido.idUsuario", "idProducto.idCategoria", "idProducto.idMarca"})
+    Optional<ItemsPedido_Entity> findConRelacionesById(Long id);
+    @EntityGraph(attributePaths = {"idPedido.idUsuario", "idProducto.idCategoria", "idProducto.idMarca"})
     List<ItemsPedido_Entity> findByIdPedido(Pedido_Entity pedido);
+    @EntityGraph(attributePaths = {"idPedido.idUsuario", "idProducto.idCategoria", "idProducto.idMarca"})
     List<ItemsPedido_Entity> findByIdProducto(Producto_Entity producto);
+
+    @Query("""
+            select i.idProducto.id as idProducto, sum(i.cantidad) as unidades
+            from ItemsPedido_Entity i
+            where i.idProducto is not null
+            group by i.idProducto.id
+            """)
+    List<VentasProductoDTO> sumarUnidadesVendidasPorProducto();
 }
\ No newline at end of file
@@ -1,13 +1,25 @@
 package org.example.restecommercehardware.Repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.restecommercehardware.Mapper.Marca_Entity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface Marca_Repository extends JpaRepository<Marca_Entity, Long> {
+    @Override
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Marca_Entity> findAll();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     Optional<Marca_Entity> findByNombre(String nombre);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     boolean existsByNombre(String nombre);
 }
@@ -2,13 +2,21 @@ package org.example.restecommercehardware.Repository;
 
 import org.example.restecommercehardware.Mapper.Pedido_Entity;
 import org.example.restecommercehardware.Mapper.Usuario_Entity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface Pedido_Repository extends JpaRepository<Pedido_Entity, Long> {
+    @EntityGraph(attributePaths = {"idUsuario"})
+    List<Pedido_Entity> findAllConRelacionesBy();
+    @EntityGraph(attributePaths = {"idUsuario"})
+    Optional<Pedido_Entity> findConRelacionesById(Long id);
+    @EntityGraph(attributePaths = {"idUsuario"})
     List<Pedido_Entity> findByIdUsuario(Usuario_Entity usuario);
+    @EntityGraph(attributePaths = {"idUsuario"})
     List<Pedido_Entity> findByEstado(String estado);
 }
\ No newline at end of file
@@ -1,14 +1,46 @@
 package org.example.restecommercehardware.Repository;
 
+import org.example.restecommercehardware.DTOs.ImagenProductoDTO;
 import org.example.restecommercehardware.Mapper.ProductoImg_Entity;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductoImg_Repository extends JpaRepository<ProductoImg_Entity, Long> {
+    @EntityGraph(attributePaths = {"idProducto.idCategoria", "idProducto.idMarca"})
+    List<ProductoImg_Entity> findAllConRelacionesBy();
+    @EntityGraph(attributePaths = {"idProducto.idCategoria", "idProducto.idMarca"})
+    Optional<ProductoImg_Entity> findConRelacionesById(Long id);
+    @EntityGraph(attributePaths = {"idProducto.idCategoria", "idProducto.idMarca"})
     List<ProductoImg_Entity> findByIdProducto(Producto_Entity producto);
+    @EntityGraph(attributePaths = {"idProducto.idCategoria", "idProducto.idMarca"})
     List<ProductoImg_Entity> findByIdProductoOrderByOrdenAsc(Producto_Entity producto);
+
+    @Query("""
+            select new org.example.restecommercehardware.DTOs.ImagenProductoDTO(
+                img.id, img.idProducto.id, img.urlImagen, img.orden)
+            from ProductoImg_Entity img
+            where img.idProducto.id = :idProducto
+            order by img.orden asc, img.id asc
+            """)
+    List<ImagenProductoDTO> findImagenesByIdProducto(@Param("idProducto") Long idProducto);
+
+    // Parte del producto para distinguir "sin imágenes" (id de imagen null) de "no existe" (sin fila)
+    @Query("""
+            select new org.example.restecommercehardware.DTOs.ImagenProductoDTO(
+                img.id, p.id, img.urlImagen, img.orden)
+            from Producto_Entity p
+            left join ProductoImg_Entity img on img.idProducto = p
+            where p.id in :ids
+            order by p.id, img.orden asc, img.id asc
+            """)
+    List<ImagenProductoDTO> findImagenesByIdProductoIn(@Param("ids") Collection<Long> ids);
 }
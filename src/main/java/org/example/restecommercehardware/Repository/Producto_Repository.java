@@ -1,23 +1,113 @@
 package org.example.restecommercehardware.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.example.restecommercehardware.DTOs.ClaveProductoDTO;
+import org.example.restecommercehardware.DTOs.PrecioStockDTO;
+import org.example.restecommercehardware.DTOs.ProductoCarritoDTO;
+import org.example.restecommercehardware.DTOs.ProductoDetalleDTO;
+import org.example.restecommercehardware.DTOs.ProductoResumenDTO;
 import org.example.restecommercehardware.Mapper.Categoria_Entity;
 import org.example.restecommercehardware.Mapper.Marca_Entity;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface Producto_Repository extends JpaRepository<Producto_Entity, Long> {
-    Optional<Producto_Entity> findBySku(String sku);
-    List<Producto_Entity> findByIdCategoria(Categoria_Entity categoria);
-    List<Producto_Entity> findByIdMarca(Marca_Entity marca);
-    List<Producto_Entity> findByNombreContainingIgnoreCase(String nombre);
     boolean existsBySku(String sku);
 
-    @Query(value = "EXEC ObtenerProductoConImagenPortada", nativeQuery = true)
-    List<Object[]> obtenerProductosConImagenPortada();
+    // Paginación keyset del catálogo
+    Window<ClaveProductoDTO> findAllBy(ScrollPosition posicion, Sort sort, Limit limite);
+    Window<ClaveProductoDTO> findByIdCategoria(Categoria_Entity categoria, ScrollPosition posicion, Sort sort, Limit limite);
+    Window<ClaveProductoDTO> findByIdMarca(Marca_Entity marca, ScrollPosition posicion, Sort sort, Limit limite);
+    // Orden "recientes": una fecha de alta nula no tiene posición en el cursor, así que esas filas se excluyen
+    Window<ClaveProductoDTO> findByCreadoEnNotNull(ScrollPosition posicion, Sort sort, Limit limite);
+    Window<ClaveProductoDTO> findByIdCategoriaAndCreadoEnNotNull(Categoria_Entity categoria, ScrollPosition posicion,
+                                                                 Sort sort, Limit limite);
+    Window<ClaveProductoDTO> findByIdMarcaAndCreadoEnNotNull(Marca_Entity marca, ScrollPosition posicion, Sort sort,
+                                                             Limit limite);
+
+    // Carga de productos con marca y categoría para los índices en memoria
+    @EntityGraph(attributePaths = {"idCategoria", "idMarca"})
+    List<Producto_Entity> findAllConRelacionesBy();
+    @EntityGraph(attributePaths = {"idCategoria", "idMarca"})
+    Optional<Producto_Entity> findConRelacionesById(Long id);
+    @EntityGraph(attributePaths = {"idCategoria", "idMarca"})
+    List<Producto_Entity> findConRelacionesByIdIn(Collection<Long> ids);
+
+    // Filas de listado para una página de ids; nunca lee la columna LOB de descripción
+    @Query("""
+            select new org.example.restecommercehardware.DTOs.ProductoResumenDTO(
+                p.id, p.nombre, p.precio, p.stock, p.sku,
+                (select img.urlImagen from ProductoImg_Entity img
+                 where img.idProducto = p
+                 order by img.orden asc, img.id asc
+                 limit 1),
+                m.id, m.nombre, c.id, c.nombre)
+            from Producto_Entity p
+            left join p.idMarca m
+            left join p.idCategoria c
+            where p.id in :ids
+            """)
+    List<ProductoResumenDTO> findResumenesByIdIn(@Param("ids") Collection<Long> ids);
+
+    List<PrecioStockDTO> findPrecioStockBySkuIn(Collection<String> skus);
+
+    // Datos de producto que muestra una línea del carrito, con la imagen de portada
+    @Query("""
+            select new org.example.restecommercehardware.DTOs.ProductoCarritoDTO(
+                p.id, p.nombre, p.descripcion, p.precio, p.stock, p.sku,
+                (select img.urlImagen from ProductoImg_Entity img
+                 where img.idProducto = p
+                 order by img.orden asc, img.id asc
+                 limit 1))
+            from Producto_Entity p
+            where p.id in :ids
+            """)
+    List<ProductoCarritoDTO> findProductosCarritoByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.sku from Producto_Entity p where p.sku in :skus")
+    List<String> findSkusExistentes(@Param("skus") Collection<String> skus);
+
+    @Query("select p.id from Producto_Entity p where p.id in :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    @Query("select p.id from Producto_Entity p where p.sku = :sku")
+    Optional<Long> findIdBySku(@Param("sku") String sku);
+
+    // Reemplaza a EXEC ObtenerProductoConImagenPortada; se recorre con un cursor de solo avance
+    @Query("""
+            select new org.example.restecommercehardware.DTOs.ProductoDetalleDTO(
+                p.id, p.nombre, p.descripcion, cast(p.precio as Double), p.stock, p.sku,
+                (select img.urlImagen from ProductoImg_Entity img
+                 where img.idProducto = p
+                 order by img.orden asc, img.id asc
+                 limit 1),
+                m.id, m.nombre, c.id, c.nombre)
+            from Producto_Entity p
+            left join p.idMarca m
+            left join p.idCategoria c
+            order by p.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<ProductoDetalleDTO> streamProductosConImagenPortada();
 }
@@ -1,16 +1,72 @@
 package org.example.restecommercehardware.Repository;
 
+import org.example.restecommercehardware.DTOs.CalificacionesProductoDTO;
+import org.example.restecommercehardware.DTOs.ClaveResenaDTO;
+import org.example.restecommercehardware.DTOs.ResenaResumenDTO;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
 import org.example.restecommercehardware.Mapper.Resena_Entity;
 import org.example.restecommercehardware.Mapper.Usuario_Entity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface Resena_Repository extends JpaRepository<Resena_Entity, Long> {
-    List<Resena_Entity> findByIdProducto(Producto_Entity producto);
-    List<Resena_Entity> findByIdUsuario(Usuario_Entity usuario);
+    @EntityGraph(attributePaths = {"idProducto.idCategoria", "idProducto.idMarca", "idUsuario"})
+    List<Resena_Entity> findAllConRelacionesBy();
+    @EntityGraph(attributePaths = {"idProducto.idCategoria", "idProducto.idMarca", "idUsuario"})
+    Optional<Resena_Entity> findConRelacionesById(Long id);
+    @EntityGraph(attributePaths = {"idProducto.idCategoria", "idProducto.idMarca", "idUsuario"})
     List<Resena_Entity> findByCalificacion(Integer calificacion);
+
+    // Paginación keyset de reseñas por producto o usuario, con rango de calificación. Todos los órdenes
+    // pasan por la fecha, y una fecha nula no tiene posición en el cursor, así que esas filas se excluyen
+    Window<ClaveResenaDTO> findByIdProductoAndCalificacionBetweenAndCreadoEnNotNull(Producto_Entity producto,
+                                                                                    Integer minima, Integer maxima,
+                                                                                    ScrollPosition posicion,
+                                                                                    Sort sort, Limit limite);
+    Window<ClaveResenaDTO> findByIdUsuarioAndCalificacionBetweenAndCreadoEnNotNull(Usuario_Entity usuario,
+                                                                                   Integer minima, Integer maxima,
+                                                                                   ScrollPosition posicion,
+                                                                                   Sort sort, Limit limite);
+
+    // Filas de listado para una página de ids; del comentario solo se leen los primeros caracteres.
+    // El cast es necesario porque substring() de HQL no acepta atributos @Lob
+    @Query("""
+            select new org.example.restecommercehardware.DTOs.ResenaResumenDTO(
+                r.id, p.id, p.nombre, u.id, u.nombre, r.calificacion,
+                substring(cast(r.comentario as String), 1, :largoLectura), r.creadoEn)
+            from Resena_Entity r
+            left join r.idProducto p
+            left join r.idUsuario u
+            where r.id in :ids
+            """)
+    List<ResenaResumenDTO> findResumenesByIdIn(@Param("ids") Collection<Long> ids,
+                                               @Param("largoLectura") int largoLectura);
+
+    @Query("""
+            select r.idProducto.id as idProducto, r.calificacion as calificacion, count(r) as total
+            from Resena_Entity r
+            where r.idProducto is not null
+            group by r.idProducto.id, r.calificacion
+            """)
+    List<CalificacionesProductoDTO> contarPorProductoYCalificacion();
+
+    @Query("""
+            select r.idProducto.id as idProducto, r.calificacion as calificacion, count(r) as total
+            from Resena_Entity r
+            where r.idProducto.id in :ids
+            group by r.idProducto.id, r.calificacion
+            """)
+    List<CalificacionesProductoDTO> contarPorCalificacionDeProductos(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
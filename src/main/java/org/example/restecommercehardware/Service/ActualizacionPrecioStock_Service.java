@@ -0,0 +1,10 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.ActualizacionPrecioStockDTO;
+import org.example.restecommercehardware.DTOs.ResultadoActualizacionMasivaDTO;
+
+import java.util.List;
+
+public interface ActualizacionPrecioStock_Service {
+    ResultadoActualizacionMasivaDTO actualizar(List<ActualizacionPrecioStockDTO> actualizaciones);
+}
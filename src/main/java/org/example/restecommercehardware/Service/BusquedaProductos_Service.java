@@ -0,0 +1,12 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+
+import java.util.List;
+
+public interface BusquedaProductos_Service {
+    void reconstruirIndice();
+    void indexarProducto(Producto_Entity producto);
+    void eliminarProducto(Long idProducto);
+    List<Long> buscar(String consulta, int desde, int limite);
+}
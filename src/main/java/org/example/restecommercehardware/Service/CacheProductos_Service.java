@@ -0,0 +1,14 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.EstadisticasCacheDTO;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CacheProductos_Service {
+    Optional<Producto_Entity> buscarPorId(Long id);
+    Optional<Producto_Entity> buscarPorSku(String sku);
+    void invalidar(Long idProducto);
+    List<EstadisticasCacheDTO> getEstadisticas();
+}
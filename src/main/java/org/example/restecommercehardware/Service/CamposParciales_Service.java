@@ -0,0 +1,13 @@
+package org.example.restecommercehardware.Service;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface CamposParciales_Service {
+    <E> List<Map<String, Object>> proyectar(Class<E> entidad, String campos, Specification<E> filtro, Sort orden);
+    <E> Optional<Map<String, Object>> proyectarUno(Class<E> entidad, String campos, Specification<E> filtro);
+}
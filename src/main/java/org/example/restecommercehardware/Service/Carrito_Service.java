@@ -10,7 +10,7 @@ public interface Carrito_Service {
     Optional<Carrito_Entity> getCarritoById(Long id);
     Optional<Carrito_Entity> getCarritoByUsuario(Long idUsuario);
     Carrito_Entity createCarrito(Carrito_Entity carrito);
-    Carrito_Entity updateCarrito(Long id, Carrito_Entity carrito);
+    Carrito_Entity updateCarrito(Long id, Carrito_Entity carrito, Long versionEsperada);
     void deleteCarrito(Long id);
 }
 
@@ -0,0 +1,22 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.CarritoConImagenesDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasCarritosDTO;
+import org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO;
+import org.example.restecommercehardware.DTOs.OperacionCarritoDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CarritosEnMemoria_Service {
+    boolean isHabilitado();
+    CarritoConImagenesDTO getCarrito(Long idCarrito);
+    ItemCarritoConImagenDTO agregar(Long idCarrito, Long idProducto, int cantidad);
+    Optional<ItemCarritoConImagenDTO> fijarCantidad(Long idCarrito, Long idProducto, int cantidad);
+    CarritoConImagenesDTO aplicarLote(Long idCarrito, List<OperacionCarritoDTO> operaciones);
+    void volcar();
+    void volcar(Long idCarrito);
+    void volcarConProducto(Long idProducto);
+    void descartar(Long idCarrito);
+    EstadisticasCarritosDTO getEstadisticas();
+}
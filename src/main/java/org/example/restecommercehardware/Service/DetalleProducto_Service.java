@@ -0,0 +1,9 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.DetalleProductoDTO;
+
+import java.util.Optional;
+
+public interface DetalleProducto_Service {
+    Optional<DetalleProductoDTO> getDetalle(Long idProducto);
+}
@@ -0,0 +1,12 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.FiltroProductosDTO;
+import org.example.restecommercehardware.DTOs.ResultadoFiltroDTO;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+
+public interface FacetasProductos_Service {
+    void reconstruir();
+    void indexarProducto(Producto_Entity producto);
+    void eliminarProducto(Long idProducto);
+    ResultadoFiltroDTO<Long> filtrar(FiltroProductosDTO filtro, int desde, int limite);
+}
@@ -0,0 +1,207 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.ActualizacionPrecioStockDTO;
+import org.example.restecommercehardware.DTOs.CambioPrecioStockDTO;
+import org.example.restecommercehardware.DTOs.ErrorFilaDTO;
+import org.example.restecommercehardware.DTOs.PrecioStockDTO;
+import org.example.restecommercehardware.DTOs.ResultadoActualizacionMasivaDTO;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.ActualizacionPrecioStock_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Actualización masiva de precio y stock por SKU. Cada lote lee los valores
+ * actuales con una sola consulta, calcula el diff en memoria y aplica un
+ * UPDATE por lotes solo a las filas que cambian. El UPDATE exige los valores
+ * leídos, así que una fila modificada entre medias se cuenta como conflicto.
+ */
+@Service
+@RequiredArgsConstructor
+public class ActualizacionPrecioStock_Service_Impl implements ActualizacionPrecioStock_Service {
+
+    private static final String SQL_ACTUALIZAR = """
+            update dbo.productos
+            set precio = ?, stock = ?, actualizado_en = ?, version = version + 1
+            where id = ? and precio = ? and stock = ?
+            """;
+
+    // SQL Server admite como máximo 2100 parámetros por sentencia
+    private static final int MAXIMO_SKUS_POR_CONSULTA = 2000;
+    private static final BigDecimal PRECIO_MAXIMO = new BigDecimal("99999999.99");
+
+    private final Producto_Repository productoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalogo.actualizacion-masiva.tamano-lote:1000}")
+    private int tamanoLote;
+
+    @Value("${catalogo.actualizacion-masiva.maximo-detalle:500}")
+    private int maximoDetalle;
+
+    @Override
+    public ResultadoActualizacionMasivaDTO actualizar(List<ActualizacionPrecioStockDTO> actualizaciones) {
+        ResultadoActualizacionMasivaDTO resultado = new ResultadoActualizacionMasivaDTO();
+        resultado.setRecibidos(actualizaciones.size());
+
+        try {
+            procesar(actualizaciones, resultado);
+        } finally {
+            // Cada lote confirma por su cuenta: si uno falla, los anteriores ya están en la base
+            if (resultado.getActualizados() > 0) {
+                eventPublisher.publishEvent(new CatalogoRecargadoEvent("precios-stock", resultado.getActualizados()));
+            }
+        }
+        return resultado;
+    }
+
+    private void procesar(List<ActualizacionPrecioStockDTO> actualizaciones, ResultadoActualizacionMasivaDTO resultado) {
+        // Una sola marca de tiempo para toda la solicitud
+        Timestamp ahora = Timestamp.from(Instant.now());
+        Set<String> skusVistos = new HashSet<>();
+        List<Fila> lote = new ArrayList<>();
+        int limiteLote = Math.min(tamanoLote, MAXIMO_SKUS_POR_CONSULTA);
+
+        for (int i = 0; i < actualizaciones.size(); i++) {
+            ActualizacionPrecioStockDTO actualizacion = actualizaciones.get(i);
+            String error = validar(actualizacion);
+            if (error == null && !skusVistos.add(NormalizadorTexto.claveSku(actualizacion.getSku()))) {
+                error = "SKU repetido en la solicitud: " + actualizacion.getSku();
+            }
+            if (error != null) {
+                rechazar(resultado, i + 1, actualizacion.getSku(), error);
+                continue;
+            }
+
+            lote.add(new Fila(actualizacion.getSku().trim(),
+                    actualizacion.getPrecio() == null ? null : actualizacion.getPrecio().setScale(2, RoundingMode.HALF_UP),
+                    actualizacion.getStock()));
+            if (lote.size() >= limiteLote) {
+                procesarLote(lote, ahora, resultado);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            procesarLote(lote, ahora, resultado);
+        }
+    }
+
+    private void procesarLote(List<Fila> lote, Timestamp ahora, ResultadoActualizacionMasivaDTO resultado) {
+        transactionTemplate.executeWithoutResult(estado -> {
+            Map<String, PrecioStockDTO> actuales = productoRepository
+                    .findPrecioStockBySkuIn(lote.stream().map(Fila::sku).toList()).stream()
+                    .collect(Collectors.toMap(actual -> NormalizadorTexto.claveSku(actual.getSku()), Function.identity()));
+
+            List<Cambio> cambios = new ArrayList<>();
+            for (Fila fila : lote) {
+                PrecioStockDTO actual = actuales.get(NormalizadorTexto.claveSku(fila.sku()));
+                if (actual == null) {
+                    resultado.setNoEncontrados(resultado.getNoEncontrados() + 1);
+                    if (resultado.getSkusNoEncontrados().size() < maximoDetalle) {
+                        resultado.getSkusNoEncontrados().add(fila.sku());
+                    }
+                    continue;
+                }
+
+                BigDecimal precio = fila.precio() != null ? fila.precio() : actual.getPrecio();
+                int stock = fila.stock() != null ? fila.stock() : actual.getStock();
+                if (precio.compareTo(actual.getPrecio()) == 0 && stock == actual.getStock()) {
+                    resultado.setSinCambios(resultado.getSinCambios() + 1);
+                } else {
+                    cambios.add(new Cambio(actual, precio, stock));
+                }
+            }
+            if (cambios.isEmpty()) {
+                return;
+            }
+
+            int[][] filasAfectadas = jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, cambios, cambios.size(),
+                    (sentencia, cambio) -> {
+                        sentencia.setBigDecimal(1, cambio.precio());
+                        sentencia.setInt(2, cambio.stock());
+                        sentencia.setTimestamp(3, ahora);
+                        sentencia.setLong(4, cambio.actual().getId());
+                        sentencia.setBigDecimal(5, cambio.actual().getPrecio());
+                        sentencia.setInt(6, cambio.actual().getStock());
+                    });
+
+            for (int i = 0; i < cambios.size(); i++) {
+                // Algunos drivers devuelven SUCCESS_NO_INFO (-2) en lugar del recuento
+                if (filasAfectadas[0][i] == 0) {
+                    resultado.setConflictos(resultado.getConflictos() + 1);
+                } else {
+                    registrarCambio(resultado, cambios.get(i));
+                }
+            }
+        });
+    }
+
+    private void registrarCambio(ResultadoActualizacionMasivaDTO resultado, Cambio cambio) {
+        PrecioStockDTO actual = cambio.actual();
+        resultado.setActualizados(resultado.getActualizados() + 1);
+        if (cambio.precio().compareTo(actual.getPrecio()) != 0) {
+            resultado.setCambiosPrecio(resultado.getCambiosPrecio() + 1);
+        }
+        if (cambio.stock() != actual.getStock()) {
+            resultado.setCambiosStock(resultado.getCambiosStock() + 1);
+            if (cambio.stock() == 0) {
+                resultado.setAgotados(resultado.getAgotados() + 1);
+            } else if (actual.getStock() == 0) {
+                resultado.setRepuestos(resultado.getRepuestos() + 1);
+            }
+        }
+        if (resultado.getCambios().size() < maximoDetalle) {
+            resultado.getCambios().add(new CambioPrecioStockDTO(actual.getSku(), actual.getPrecio(), cambio.precio(),
+                    actual.getStock(), cambio.stock()));
+        }
+    }
+
+    private void rechazar(ResultadoActualizacionMasivaDTO resultado, long fila, String sku, String mensaje) {
+        resultado.setRechazados(resultado.getRechazados() + 1);
+        if (resultado.getErrores().size() < maximoDetalle) {
+            resultado.getErrores().add(new ErrorFilaDTO(fila, sku, mensaje));
+        }
+    }
+
+    private String validar(ActualizacionPrecioStockDTO actualizacion) {
+        if (actualizacion.getSku() == null || actualizacion.getSku().isBlank()) {
+            return "El SKU es obligatorio";
+        }
+        if (actualizacion.getPrecio() == null && actualizacion.getStock() == null) {
+            return "Debe indicar precio o stock";
+        }
+        if (actualizacion.getPrecio() != null
+                && (actualizacion.getPrecio().signum() < 0 || actualizacion.getPrecio().compareTo(PRECIO_MAXIMO) > 0)) {
+            return "Precio fuera de rango: " + actualizacion.getPrecio();
+        }
+        if (actualizacion.getStock() != null && actualizacion.getStock() < 0) {
+            return "El stock no puede ser negativo";
+        }
+        return null;
+    }
+
+    private record Fila(String sku, BigDecimal precio, Integer stock) {
+    }
+
+    private record Cambio(PrecioStockDTO actual, BigDecimal precio, int stock) {
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.BusquedaProductos_Service;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria sobre nombre, sku, descripción, marca y
+ * categoría. Se reconstruye al arrancar y se mantiene con los eventos de
+ * cambio de producto, así la búsqueda no ejecuta LIKE '%x%' contra la base.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BusquedaProductos_Service_Impl implements BusquedaProductos_Service {
+
+    private static final float PESO_SKU = 4f;
+    private static final float PESO_NOMBRE = 3f;
+    private static final float PESO_MARCA = 2f;
+    private static final float PESO_CATEGORIA = 2f;
+    private static final float PESO_DESCRIPCION = 1f;
+
+    // Un término de la consulta que solo coincide como prefijo puntúa menos que uno exacto
+    private static final float FACTOR_PREFIJO = 0.5f;
+    private static final int MAX_EXPANSIONES_PREFIJO = 64;
+
+    private final Producto_Repository productoRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CambiosDuranteReconstruccion cambios = new CambiosDuranteReconstruccion();
+
+    // término -> (id producto -> peso)
+    private NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    // id producto -> términos indexados, para poder retirarlo al actualizar o eliminar
+    private Map<Long, Map<String, Float>> terminosPorProducto = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        reconstruirIndice();
+    }
+
+    @Order(0)
+    @TransactionalEventListener
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        cambios.registrar(evento.getIdProducto());
+        if (evento.getTipo() == ProductoCambiadoEvent.Tipo.ELIMINADO) {
+            eliminarProducto(evento.getIdProducto());
+            return;
+        }
+        productoRepository.findConRelacionesById(evento.getIdProducto())
+                .ifPresentOrElse(this::indexarProducto, () -> eliminarProducto(evento.getIdProducto()));
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecargarCatalogo(CatalogoRecargadoEvent evento) {
+        reconstruirIndice();
+    }
+
+    @Override
+    public void reconstruirIndice() {
+        long inicio = System.nanoTime();
+        long generacion = cambios.comenzar();
+        try {
+            NavigableMap<String, Map<Long, Float>> nuevosPostings = new TreeMap<>();
+            Map<Long, Map<String, Float>> nuevosTerminos = new HashMap<>();
+
+            for (Producto_Entity producto : productoRepository.findAllConRelacionesBy()) {
+                Map<String, Float> terminos = extraerTerminos(producto);
+                nuevosTerminos.put(producto.getId(), terminos);
+                terminos.forEach((termino, peso) ->
+                        nuevosPostings.computeIfAbsent(termino, t -> new HashMap<>()).put(producto.getId(), peso));
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (!cambios.sustituir(generacion)) {
+                    log.info("Reconstrucción del índice de búsqueda descartada: ya se aplicó una más reciente");
+                    return;
+                }
+                postings = nuevosPostings;
+                terminosPorProducto = nuevosTerminos;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Los productos que cambiaron durante la lectura se releen sobre el índice nuevo
+            cambios.releerPendientes(this::releer);
+            log.info("Índice de búsqueda reconstruido: {} productos, {} términos en {} ms",
+                    nuevosTerminos.size(), nuevosPostings.size(), (System.nanoTime() - inicio) / 1_000_000);
+        } finally {
+            cambios.terminar();
+        }
+    }
+
+    @Override
+    public void indexarProducto(Producto_Entity producto) {
+        Map<String, Float> terminos = extraerTerminos(producto);
+        lock.writeLock().lock();
+        try {
+            retirar(producto.getId());
+            terminosPorProducto.put(producto.getId(), terminos);
+            terminos.forEach((termino, peso) ->
+                    postings.computeIfAbsent(termino, t -> new HashMap<>()).put(producto.getId(), peso));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eliminarProducto(Long idProducto) {
+        lock.writeLock().lock();
+        try {
+            retirar(idProducto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Long> buscar(String consulta, int desde, int limite) {
+        List<String> tokens = NormalizadorTexto.tokenizar(consulta);
+        if (tokens.isEmpty() || limite < 1) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, Float> puntuaciones = null;
+        lock.readLock().lock();
+        try {
+            int totalProductos = Math.max(terminosPorProducto.size(), 1);
+            for (String token : tokens) {
+                Map<Long, Float> delToken = puntuarToken(token, totalProductos);
+                // Todas las palabras de la consulta deben aparecer (AND)
+                puntuaciones = puntuaciones == null ? delToken : intersectar(puntuaciones, delToken);
+                if (puntuaciones.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Float>> ordenados = new ArrayList<>(puntuaciones.entrySet());
+        // Mayor puntuación primero; a igual puntuación, el id da un orden estable entre páginas
+        ordenados.sort(Map.Entry.<Long, Float>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        int hasta = Math.min(ordenados.size(), desde + limite);
+        List<Long> ids = new ArrayList<>(Math.max(hasta - desde, 0));
+        for (int i = desde; i < hasta; i++) {
+            ids.add(ordenados.get(i).getKey());
+        }
+        return ids;
+    }
+
+    private Map<Long, Float> puntuarToken(String token, int totalProductos) {
+        Map<Long, Float> puntuaciones = new HashMap<>();
+        int expansiones = 0;
+        for (Map.Entry<String, Map<Long, Float>> entrada
+                : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            if (expansiones++ >= MAX_EXPANSIONES_PREFIJO) {
+                break;
+            }
+            Map<Long, Float> productos = entrada.getValue();
+            float idf = (float) Math.log(1.0 + (double) totalProductos / productos.size());
+            float factor = entrada.getKey().equals(token) ? 1f : FACTOR_PREFIJO;
+            productos.forEach((id, peso) -> puntuaciones.merge(id, peso * idf * factor, Math::max));
+        }
+        return puntuaciones;
+    }
+
+    private Map<Long, Float> intersectar(Map<Long, Float> acumuladas, Map<Long, Float> delToken) {
+        Map<Long, Float> resultado = new HashMap<>();
+        acumuladas.forEach((id, puntuacion) -> {
+            Float otra = delToken.get(id);
+            if (otra != null) {
+                resultado.put(id, puntuacion + otra);
+            }
+        });
+        return resultado;
+    }
+
+    private void releer(List<Long> ids) {
+        Map<Long, Producto_Entity> actuales = new HashMap<>();
+        productoRepository.findConRelacionesByIdIn(ids).forEach(producto -> actuales.put(producto.getId(), producto));
+        for (Long id : ids) {
+            Producto_Entity producto = actuales.get(id);
+            if (producto != null) {
+                indexarProducto(producto);
+            } else {
+                eliminarProducto(id);
+            }
+        }
+    }
+
+    private void retirar(Long idProducto) {
+        Map<String, Float> anteriores = terminosPorProducto.remove(idProducto);
+        if (anteriores == null) {
+            return;
+        }
+        for (String termino : anteriores.keySet()) {
+            Map<Long, Float> productos = postings.get(termino);
+            if (productos != null) {
+                productos.remove(idProducto);
+                if (productos.isEmpty()) {
+                    postings.remove(termino);
+                }
+            }
+        }
+    }
+
+    private Map<String, Float> extraerTerminos(Producto_Entity producto) {
+        Map<String, Float> terminos = new HashMap<>();
+        agregar(terminos, producto.getNombre(), PESO_NOMBRE);
+        agregar(terminos, producto.getDescripcion(), PESO_DESCRIPCION);
+        if (producto.getSku() != null) {
+            agregar(terminos, producto.getSku(), PESO_SKU);
+            String skuCompacto = NormalizadorTexto.compactar(producto.getSku());
+            if (!skuCompacto.isEmpty()) {
+                terminos.merge(skuCompacto, PESO_SKU, Float::sum);
+            }
+        }
+        if (producto.getIdMarca() != null) {
+            agregar(terminos, producto.getIdMarca().getNombre(), PESO_MARCA);
+        }
+        if (producto.getIdCategoria() != null) {
+            agregar(terminos, producto.getIdCategoria().getNombre(), PESO_CATEGORIA);
+        }
+        return terminos;
+    }
+
+    // Cada campo suma su peso una sola vez por término, aunque la palabra se repita
+    private void agregar(Map<String, Float> terminos, String texto, float peso) {
+        NormalizadorTexto.tokenizar(texto).stream()
+                .distinct()
+                .forEach(token -> terminos.merge(token, peso, Float::sum));
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.example.restecommercehardware.DTOs.EstadisticasCacheDTO;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.CacheProductos_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Caché de lectura para el detalle de producto. Las entradas se invalidan
+ * cuando se confirma la transacción que modificó el producto; Caffeine
+ * espera a una carga en curso de la misma clave antes de invalidarla, así
+ * que un valor leído antes del commit no sobrevive a la invalidación.
+ */
+@Service
+public class CacheProductos_Service_Impl implements CacheProductos_Service {
+
+    private final Producto_Repository productoRepository;
+    private final Cache<Long, Producto_Entity> productosPorId;
+    // Solo guarda sku -> id; el producto siempre sale de productosPorId
+    private final Cache<String, Long> idsPorSku;
+
+    public CacheProductos_Service_Impl(Producto_Repository productoRepository,
+                                       @Value("${catalogo.cache.productos.tamano-maximo:10000}") long tamanoMaximo,
+                                       @Value("${catalogo.cache.productos.ttl:10m}") Duration ttl) {
+        this.productoRepository = productoRepository;
+        this.productosPorId = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idsPorSku = Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Order(0)
+    @TransactionalEventListener
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        invalidar(evento.getIdProducto());
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecargarCatalogo(CatalogoRecargadoEvent evento) {
+        productosPorId.invalidateAll();
+        idsPorSku.invalidateAll();
+    }
+
+    @Override
+    public Optional<Producto_Entity> buscarPorId(Long id) {
+        return Optional.ofNullable(productosPorId.get(id,
+                clave -> productoRepository.findConRelacionesById(clave).orElse(null)));
+    }
+
+    // La clave va normalizada igual que en la base, donde el SKU no distingue mayúsculas
+    @Override
+    public Optional<Producto_Entity> buscarPorSku(String sku) {
+        String clave = NormalizadorTexto.claveSku(sku);
+        Long id = idsPorSku.get(clave, k -> productoRepository.findIdBySku(sku).orElse(null));
+        if (id == null) {
+            return Optional.empty();
+        }
+
+        Optional<Producto_Entity> producto = buscarPorId(id);
+        if (producto.isPresent() && producto.get().getSku() != null
+                && clave.equals(NormalizadorTexto.claveSku(producto.get().getSku()))) {
+            return producto;
+        }
+        // El SKU cambió o el producto se eliminó desde que se guardó la relación
+        idsPorSku.invalidate(clave);
+        return productoRepository.findIdBySku(sku).flatMap(this::buscarPorId);
+    }
+
+    @Override
+    public void invalidar(Long idProducto) {
+        Producto_Entity anterior = productosPorId.getIfPresent(idProducto);
+        productosPorId.invalidate(idProducto);
+        if (anterior != null && anterior.getSku() != null) {
+            idsPorSku.invalidate(NormalizadorTexto.claveSku(anterior.getSku()));
+        }
+    }
+
+    @Override
+    public List<EstadisticasCacheDTO> getEstadisticas() {
+        return List.of(
+                estadisticas("productosPorId", productosPorId),
+                estadisticas("idsPorSku", idsPorSku));
+    }
+
+    private static EstadisticasCacheDTO estadisticas(String nombre, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new EstadisticasCacheDTO(nombre, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Ids cambiados mientras se reconstruye un índice en memoria. La reconstrucción
+ * lee el catálogo fuera del lock y después sustituye el índice entero, así que
+ * un cambio que llega a mitad se aplicaría al índice viejo y se perdería. Los
+ * oyentes anotan el id antes de aplicar el cambio y, tras la sustitución, el
+ * índice vuelve a leer esos ids de la base. Releer deja el estado que hay en la
+ * base, así que no importa si la lectura completa ya incluía el cambio.
+ *
+ * <p>Cada reconstrucción recibe una generación creciente; una que empezó antes
+ * que otra ya aplicada no sustituye el índice, porque su lectura es anterior.
+ * Los ids se conservan hasta que termina la última reconstrucción en curso.
+ */
+final class CambiosDuranteReconstruccion {
+
+    private final List<Long> pendientes = new ArrayList<>();
+    private long ultimaGeneracion;
+    private long generacionAplicada;
+    private int enCurso;
+
+    // Antes de leer el catálogo; cada comenzar() va seguido de terminar() en un finally
+    synchronized long comenzar() {
+        enCurso++;
+        return ++ultimaGeneracion;
+    }
+
+    // El oyente lo llama antes de tocar el índice, para no escaparse entre la lectura y la sustitución
+    synchronized void registrar(Long id) {
+        if (enCurso > 0 && id != null) {
+            pendientes.add(id);
+        }
+    }
+
+    // Bajo el lock de escritura del índice, justo antes de sustituirlo
+    synchronized boolean sustituir(long generacion) {
+        if (generacion <= generacionAplicada) {
+            return false;
+        }
+        generacionAplicada = generacion;
+        return true;
+    }
+
+    // Relee por lotes hasta que no quedan ids nuevos; los cambios pueden seguir llegando mientras tanto
+    void releerPendientes(Consumer<List<Long>> releer) {
+        int releidos = 0;
+        List<Long> ids;
+        while (!(ids = desde(releidos)).isEmpty()) {
+            releidos += ids.size();
+            releer.accept(ids.stream().distinct().toList());
+        }
+    }
+
+    synchronized void terminar() {
+        if (--enCurso == 0) {
+            pendientes.clear();
+        }
+    }
+
+    private synchronized List<Long> desde(int posicion) {
+        return List.copyOf(pendientes.subList(Math.min(posicion, pendientes.size()), pendientes.size()));
+    }
+}
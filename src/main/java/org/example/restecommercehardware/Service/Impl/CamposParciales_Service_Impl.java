@@ -0,0 +1,175 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.Mapper.Pedido_Entity;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Mapper.Usuario_Entity;
+import org.example.restecommercehardware.Service.CamposParciales_Service;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Proyecciones parciales para el parámetro {@code fields}. Solo se seleccionan
+ * las columnas pedidas (y el id, siempre) y cada fila se devuelve como un mapa
+ * con esas mismas claves, así que la respuesta JSON no lleva nada más. Las
+ * relaciones se exponen como campos planos: {@code idCategoria} sale de la
+ * clave foránea sin join y {@code nombreCategoria} añade un left join.
+ */
+@Service
+@RequiredArgsConstructor
+public class CamposParciales_Service_Impl implements CamposParciales_Service {
+
+    // Campo público -> ruta del atributo. Lo que no figura aquí no puede pedirse (p. ej. el hash de contraseña)
+    private static final Map<Class<?>, Map<String, String>> CAMPOS = Map.of(
+            Producto_Entity.class, campos(
+                    "id", "id",
+                    "nombre", "nombre",
+                    "descripcion", "descripcion",
+                    "precio", "precio",
+                    "stock", "stock",
+                    "sku", "sku",
+                    "idCategoria", "idCategoria.id",
+                    "nombreCategoria", "idCategoria.nombre",
+                    "idMarca", "idMarca.id",
+                    "nombreMarca", "idMarca.nombre",
+                    "creadoEn", "creadoEn",
+                    "actualizadoEn", "actualizadoEn"),
+            Pedido_Entity.class, campos(
+                    "id", "id",
+                    "idUsuario", "idUsuario.id",
+                    "fechaPedido", "fechaPedido",
+                    "montoTotal", "montoTotal",
+                    "estado", "estado",
+                    "direccionEnvio", "direccionEnvio",
+                    "ciudadEnvio", "ciudadEnvio",
+                    "paisEnvio", "paisEnvio",
+                    "codigoPostalEnvio", "codigoPostalEnvio"),
+            Usuario_Entity.class, campos(
+                    "id", "id",
+                    "nombre", "nombre",
+                    "apellido", "apellido",
+                    "correoElectronico", "correoElectronico",
+                    "numeroTelefono", "numeroTelefono",
+                    "direccion", "direccion",
+                    "ciudad", "ciudad",
+                    "pais", "pais",
+                    "codigoPostal", "codigoPostal",
+                    "rol", "rol",
+                    "creadoEn", "creadoEn",
+                    "actualizadoEn", "actualizadoEn"));
+
+    private final EntityManager entityManager;
+
+    @Override
+    public <E> List<Map<String, Object>> proyectar(Class<E> entidad, String campos, Specification<E> filtro, Sort orden) {
+        return ejecutar(entidad, campos, filtro, orden, null);
+    }
+
+    @Override
+    public <E> Optional<Map<String, Object>> proyectarUno(Class<E> entidad, String campos, Specification<E> filtro) {
+        return ejecutar(entidad, campos, filtro, Sort.unsorted(), 1).stream().findFirst();
+    }
+
+    private <E> List<Map<String, Object>> ejecutar(Class<E> entidad, String campos, Specification<E> filtro,
+                                                   Sort orden, Integer limite) {
+        Map<String, String> rutas = CAMPOS.get(entidad);
+        if (rutas == null) {
+            throw new IllegalArgumentException("Entidad sin proyección parcial: " + entidad.getSimpleName());
+        }
+        List<String> seleccion = parsear(campos, rutas);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<E> raiz = consulta.from(entidad);
+        Map<String, Join<E, ?>> uniones = new HashMap<>();
+        List<Selection<?>> columnas = new ArrayList<>();
+        for (String campo : seleccion) {
+            columnas.add(ruta(raiz, uniones, rutas.get(campo)).alias(campo));
+        }
+        consulta.multiselect(columnas);
+        if (filtro != null) {
+            Predicate condicion = filtro.toPredicate(raiz, consulta, cb);
+            if (condicion != null) {
+                consulta.where(condicion);
+            }
+        }
+        if (orden.isSorted()) {
+            consulta.orderBy(QueryUtils.toOrders(orden, raiz, cb));
+        }
+
+        var query = entityManager.createQuery(consulta);
+        if (limite != null) {
+            query.setMaxResults(limite);
+        }
+        return query.getResultList().stream()
+                .map(tupla -> {
+                    Map<String, Object> fila = new LinkedHashMap<>();
+                    for (String campo : seleccion) {
+                        fila.put(campo, tupla.get(campo));
+                    }
+                    return fila;
+                })
+                .toList();
+    }
+
+    private static List<String> parsear(String campos, Map<String, String> rutas) {
+        Set<String> seleccion = new LinkedHashSet<>();
+        seleccion.add("id");
+        if (campos != null) {
+            for (String campo : campos.split(",")) {
+                String nombre = campo.trim();
+                if (nombre.isEmpty()) {
+                    continue;
+                }
+                if (!rutas.containsKey(nombre)) {
+                    throw new IllegalArgumentException("Campo no admitido: " + nombre);
+                }
+                seleccion.add(nombre);
+            }
+        }
+        return List.copyOf(seleccion);
+    }
+
+    private static <E> Path<?> ruta(Root<E> raiz, Map<String, Join<E, ?>> uniones, String ruta) {
+        int punto = ruta.indexOf('.');
+        if (punto < 0) {
+            return raiz.get(ruta);
+        }
+        String relacion = ruta.substring(0, punto);
+        String atributo = ruta.substring(punto + 1);
+        if (atributo.equals("id")) {
+            // Se resuelve con la columna de la clave foránea, sin join
+            return raiz.get(relacion).get(atributo);
+        }
+        return uniones.computeIfAbsent(relacion, r -> raiz.join(r, JoinType.LEFT)).get(atributo);
+    }
+
+    private static Map<String, String> campos(String... pares) {
+        Map<String, String> rutas = new LinkedHashMap<>();
+        for (int i = 0; i < pares.length; i += 2) {
+            rutas.put(pares[i], pares[i + 1]);
+        }
+        return rutas;
+    }
+}
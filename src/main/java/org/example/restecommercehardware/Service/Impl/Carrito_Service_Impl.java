@@ -5,8 +5,11 @@ import org.example.restecommercehardware.Mapper.Carrito_Entity;
 import org.example.restecommercehardware.Mapper.Usuario_Entity;
 import org.example.restecommercehardware.Repository.Carrito_Repository;
 import org.example.restecommercehardware.Repository.Usuario_Repository;
+import org.example.restecommercehardware.Service.CarritosEnMemoria_Service;
 import org.example.restecommercehardware.Service.Carrito_Service;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
@@ -19,17 +22,22 @@ public class Carrito_Service_Impl implements Carrito_Service {
 
     private final Carrito_Repository carritoRepository;
     private final Usuario_Repository usuarioRepository;
+    private final CarritosEnMemoria_Service carritosEnMemoria;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${concurrencia.maximo-reintentos:3}")
+    private int maximoReintentos;
 
     @Override
     @Transactional(readOnly = true)
     public List<Carrito_Entity> getAllCarritos() {
-        return carritoRepository.findAll();
+        return carritoRepository.findAllConRelacionesBy();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Carrito_Entity> getCarritoById(Long id) {
-        return carritoRepository.findById(id);
+        return carritoRepository.findConRelacionesById(id);
     }
 
     @Override
@@ -44,19 +52,23 @@ public class Carrito_Service_Impl implements Carrito_Service {
     @Transactional
     public Carrito_Entity createCarrito(Carrito_Entity carrito) {
         carrito.setCreadoEn(Instant.now());
+        carrito.setActualizadoEn(carrito.getCreadoEn());
         return carritoRepository.save(carrito);
     }
 
     @Override
-    @Transactional
-    public Carrito_Entity updateCarrito(Long id, Carrito_Entity carritoActualizado) {
-        Carrito_Entity carrito = carritoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Carrito no encontrado con id: " + id));
+    public Carrito_Entity updateCarrito(Long id, Carrito_Entity carritoActualizado, Long versionEsperada) {
+        return ReintentosOptimistas.ejecutar(transactionManager, maximoReintentos, versionEsperada, () -> {
+            Carrito_Entity carrito = carritoRepository.findConRelacionesById(id)
+                    .orElseThrow(() -> new RuntimeException("Carrito no encontrado con id: " + id));
+            ReintentosOptimistas.comprobarVersion(versionEsperada, carrito.getVersion(), Carrito_Entity.class, id);
 
-        if (carritoActualizado.getIdUsuario() != null) {
-            carrito.setIdUsuario(carritoActualizado.getIdUsuario());
-        }
-        return carritoRepository.save(carrito);
+            if (carritoActualizado.getIdUsuario() != null) {
+                carrito.setIdUsuario(carritoActualizado.getIdUsuario());
+            }
+            carrito.setActualizadoEn(Instant.now());
+            return carritoRepository.save(carrito);
+        });
     }
 
     @Override
@@ -65,6 +77,7 @@ public class Carrito_Service_Impl implements Carrito_Service {
         if (!carritoRepository.existsById(id)) {
             throw new RuntimeException("Carrito no encontrado con id: " + id);
         }
+        carritosEnMemoria.descartar(id);
         carritoRepository.deleteById(id);
     }
 }
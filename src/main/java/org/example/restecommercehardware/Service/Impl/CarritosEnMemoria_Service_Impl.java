@@ -0,0 +1,671 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.restecommercehardware.DTOs.CarritoConImagenesDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasCarritosDTO;
+import org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO;
+import org.example.restecommercehardware.DTOs.OperacionCarritoDTO;
+import org.example.restecommercehardware.DTOs.ProductoCarritoDTO;
+import org.example.restecommercehardware.DTOs.TipoOperacionCarrito;
+import org.example.restecommercehardware.Repository.Carrito_Repository;
+import org.example.restecommercehardware.Repository.ItemsCarrito_Repository;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.CarritosEnMemoria_Service;
+import org.example.restecommercehardware.Service.VersionCatalogo_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Carritos vivos en memoria con escritura diferida (write-behind). Cada
+ * carrito se carga de la base en su primer uso y a partir de ahí las lecturas
+ * y los cambios se resuelven en memoria; las líneas modificadas se vuelcan a
+ * items_carrito en lotes JDBC cada {@code intervalo-volcado} y al parar la
+ * aplicación. Ese intervalo es lo que se puede perder si el proceso cae.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CarritosEnMemoria_Service_Impl implements CarritosEnMemoria_Service {
+
+    private static final String SQL_ACTUALIZAR = """
+            update dbo.items_carrito set cantidad = ?, version = version + 1
+            where id_carrito = ? and id_producto = ?
+            """;
+    private static final String SQL_INSERTAR = """
+            insert into dbo.items_carrito (id_carrito, id_producto, cantidad, version)
+            values (?, ?, ?, 0)
+            """;
+    private static final String SQL_ELIMINAR = """
+            delete from dbo.items_carrito
+            where id_carrito = ? and id_producto = ?
+            """;
+    private static final String SQL_TOCAR = """
+            update dbo.carrito set actualizado_en = ? where id = ?
+            """;
+
+    private final Carrito_Repository carritoRepository;
+    private final ItemsCarrito_Repository itemsCarritoRepository;
+    private final Producto_Repository productoRepository;
+    private final VersionCatalogo_Service versionCatalogoService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${carrito.write-behind.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${carrito.write-behind.intervalo-volcado:2s}")
+    private Duration intervaloVolcado;
+
+    @Value("${carrito.write-behind.tamano-batch-jdbc:500}")
+    private int tamanoBatch;
+
+    @Value("${carrito.write-behind.inactividad:30m}")
+    private Duration inactividad;
+
+    private final ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "carritos-write-behind");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Cada carrito se bloquea por separado; el mapa concurrente reparte el resto entre segmentos
+    private final Map<Long, CarritoVivo> carritos = new ConcurrentHashMap<>();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder volcados = new LongAdder();
+    private final LongAdder filasEscritas = new LongAdder();
+    private final LongAdder erroresVolcado = new LongAdder();
+    private volatile Instant ultimoVolcado;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        if (habilitado) {
+            long intervalo = intervaloVolcado.toMillis();
+            ejecutor.scheduleWithFixedDelay(this::ejecutarVolcado, intervalo, intervalo, TimeUnit.MILLISECONDS);
+            log.info("Carritos en memoria activos; volcado cada {} ms", intervalo);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        ejecutor.shutdown();
+        ejecutor.awaitTermination(10, TimeUnit.SECONDS);
+        if (habilitado) {
+            volcar();
+        }
+    }
+
+    @Override
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    @Override
+    public CarritoConImagenesDTO getCarrito(Long idCarrito) {
+        long version = versionCatalogoService.getVersion();
+        Set<Long> desactualizados = enCarrito(idCarrito,
+                carrito -> carrito.versionCatalogo == version ? Set.<Long>of() : Set.copyOf(carrito.lineas.keySet()));
+        // Tras un cambio de catálogo se refrescan precio, stock e imagen de todas las líneas con una consulta
+        Map<Long, ProductoCarritoDTO> productos = desactualizados.isEmpty() ? Map.of() : cargarProductos(desactualizados);
+
+        return enCarrito(idCarrito, carrito -> {
+            if (!desactualizados.isEmpty()) {
+                for (Long idProducto : desactualizados) {
+                    Linea linea = carrito.lineas.get(idProducto);
+                    ProductoCarritoDTO producto = productos.get(idProducto);
+                    if (linea == null) {
+                        continue;
+                    }
+                    if (producto == null) {
+                        carrito.lineas.remove(idProducto);
+                        marcar(idCarrito, carrito, idProducto);
+                    } else {
+                        linea.producto = producto;
+                    }
+                }
+                carrito.versionCatalogo = version;
+            }
+            return vista(idCarrito, carrito);
+        });
+    }
+
+    @Override
+    public ItemCarritoConImagenDTO agregar(Long idCarrito, Long idProducto, int cantidad) {
+        if (cantidad < 1) {
+            throw new IllegalArgumentException("La cantidad debe ser al menos 1");
+        }
+        ProductoCarritoDTO producto = productoActual(idCarrito, idProducto);
+
+        return enCarrito(idCarrito, carrito -> {
+            Linea linea = carrito.lineas.get(idProducto);
+            if (linea == null) {
+                // Sin producto precargado: la línea se quitó mientras se leía
+                linea = new Linea(null, producto != null ? producto : cargarProducto(idProducto), 0);
+            } else if (producto != null) {
+                linea.producto = producto;
+            }
+            comprobarStock(linea.producto, linea.cantidad + cantidad);
+            carrito.lineas.putIfAbsent(idProducto, linea);
+            linea.cantidad += cantidad;
+            marcar(idCarrito, carrito, idProducto);
+            return item(idCarrito, linea);
+        });
+    }
+
+    @Override
+    public Optional<ItemCarritoConImagenDTO> fijarCantidad(Long idCarrito, Long idProducto, int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa");
+        }
+        if (cantidad == 0) {
+            return enCarrito(idCarrito, carrito -> {
+                if (carrito.lineas.remove(idProducto) != null) {
+                    marcar(idCarrito, carrito, idProducto);
+                }
+                return Optional.empty();
+            });
+        }
+        ProductoCarritoDTO producto = productoActual(idCarrito, idProducto);
+
+        return enCarrito(idCarrito, carrito -> {
+            Linea linea = carrito.lineas.get(idProducto);
+            if (linea == null) {
+                linea = new Linea(null, producto != null ? producto : cargarProducto(idProducto), 0);
+            } else if (producto != null) {
+                linea.producto = producto;
+            }
+            comprobarStock(linea.producto, cantidad);
+            carrito.lineas.putIfAbsent(idProducto, linea);
+            linea.cantidad = cantidad;
+            marcar(idCarrito, carrito, idProducto);
+            return Optional.of(item(idCarrito, linea));
+        });
+    }
+
+    @Override
+    public CarritoConImagenesDTO aplicarLote(Long idCarrito, List<OperacionCarritoDTO> operaciones) {
+        long version = versionCatalogoService.getVersion();
+        Set<Long> idsProducto = operaciones.stream().map(OperacionCarritoDTO::getIdProducto).collect(Collectors.toSet());
+        Set<Long> aLeer = enCarrito(idCarrito, carrito -> idsProducto.stream()
+                .filter(id -> !carrito.lineas.containsKey(id) || carrito.versionCatalogo != version)
+                .collect(Collectors.toSet()));
+        Map<Long, ProductoCarritoDTO> productos = aLeer.isEmpty() ? Map.of() : cargarProductos(aLeer);
+
+        return enCarrito(idCarrito, carrito -> {
+            // Se calcula el resultado aparte y solo se aplica si todas las líneas son válidas
+            Map<Long, Integer> cantidades = new LinkedHashMap<>();
+            for (OperacionCarritoDTO operacion : operaciones) {
+                Long idProducto = operacion.getIdProducto();
+                Linea linea = carrito.lineas.get(idProducto);
+                int actual = cantidades.getOrDefault(idProducto, linea == null ? 0 : linea.cantidad);
+                cantidades.put(idProducto, switch (TipoOperacionCarrito.desde(operacion.getOperacion())) {
+                    case AGREGAR -> actual + operacion.getCantidad();
+                    case FIJAR -> operacion.getCantidad();
+                    case ELIMINAR -> 0;
+                });
+            }
+            Map<Long, ProductoCarritoDTO> vigentes = new LinkedHashMap<>();
+            cantidades.forEach((idProducto, cantidad) -> {
+                Linea linea = carrito.lineas.get(idProducto);
+                ProductoCarritoDTO producto = aLeer.contains(idProducto) || linea == null
+                        ? productos.get(idProducto) : linea.producto;
+                if (cantidad > 0) {
+                    if (producto == null) {
+                        throw new RuntimeException("Producto no encontrado con id: " + idProducto);
+                    }
+                    comprobarStock(producto, cantidad);
+                    vigentes.put(idProducto, producto);
+                }
+            });
+
+            cantidades.forEach((idProducto, cantidad) -> {
+                if (cantidad == 0) {
+                    if (carrito.lineas.remove(idProducto) != null) {
+                        marcar(idCarrito, carrito, idProducto);
+                    }
+                    return;
+                }
+                Linea linea = carrito.lineas.computeIfAbsent(idProducto,
+                        id -> new Linea(null, vigentes.get(id), 0));
+                linea.producto = vigentes.get(idProducto);
+                linea.cantidad = cantidad;
+                marcar(idCarrito, carrito, idProducto);
+            });
+            return vista(idCarrito, carrito);
+        });
+    }
+
+    @Override
+    public synchronized void volcar() {
+        List<Escritura> escrituras = new ArrayList<>();
+        // Los carritos quedan bloqueados hasta escribir sus líneas, para que un volcado suelto no se adelante
+        List<CarritoVivo> bloqueados = new ArrayList<>();
+        try {
+            for (Long idCarrito : List.copyOf(pendientes)) {
+                CarritoVivo carrito = carritos.get(idCarrito);
+                if (carrito == null) {
+                    pendientes.remove(idCarrito);
+                    continue;
+                }
+                carrito.volcado.lock();
+                bloqueados.add(carrito);
+                pendientes.remove(idCarrito);
+                escrituras.addAll(tomarEscrituras(idCarrito, carrito));
+            }
+            volcarEscrituras(escrituras);
+        } finally {
+            bloqueados.forEach(carrito -> carrito.volcado.unlock());
+        }
+    }
+
+    // Para leer un carrito de la base basta con volcar ese carrito; no espera al volcado de los demás
+    @Override
+    public void volcar(Long idCarrito) {
+        CarritoVivo carrito = carritos.get(idCarrito);
+        if (carrito == null) {
+            return;
+        }
+        carrito.volcado.lock();
+        try {
+            pendientes.remove(idCarrito);
+            List<Escritura> escrituras = tomarEscrituras(idCarrito, carrito);
+            if (!escrituras.isEmpty()) {
+                volcarCarrito(idCarrito, escrituras);
+            }
+        } finally {
+            carrito.volcado.unlock();
+        }
+    }
+
+    @Override
+    public void volcarConProducto(Long idProducto) {
+        for (Long idCarrito : List.copyOf(pendientes)) {
+            CarritoVivo carrito = carritos.get(idCarrito);
+            if (carrito == null) {
+                continue;
+            }
+            boolean afectado;
+            synchronized (carrito) {
+                afectado = carrito.modificados.contains(idProducto);
+            }
+            if (afectado) {
+                volcar(idCarrito);
+            }
+        }
+    }
+
+    // Saca las líneas modificadas del carrito; quien llama tiene tomado su bloqueo de volcado
+    private List<Escritura> tomarEscrituras(Long idCarrito, CarritoVivo carrito) {
+        List<Escritura> escrituras = new ArrayList<>();
+        synchronized (carrito) {
+            for (Long idProducto : carrito.modificados) {
+                Linea linea = carrito.lineas.get(idProducto);
+                escrituras.add(new Escritura(idCarrito, idProducto, linea == null ? 0 : linea.cantidad,
+                        carrito.reescribir.contains(idProducto)));
+            }
+            carrito.modificados.clear();
+            carrito.reescribir.clear();
+        }
+        return escrituras;
+    }
+
+    private void volcarEscrituras(List<Escritura> escrituras) {
+        if (escrituras.isEmpty()) {
+            return;
+        }
+
+        // Lo normal es un único lote para todos los carritos; si falla se repite carrito a carrito para que una
+        // fila imposible no bloquee a los demás
+        try {
+            escribirEnTransaccion(escrituras);
+            registrarVolcado(escrituras.size());
+            return;
+        } catch (RuntimeException e) {
+            erroresVolcado.increment();
+            log.warn("Falló el volcado conjunto de {} líneas; se reintenta por carrito", escrituras.size(), e);
+        }
+        Map<Long, List<Escritura>> porCarrito = escrituras.stream()
+                .collect(Collectors.groupingBy(Escritura::idCarrito, LinkedHashMap::new, Collectors.toList()));
+        porCarrito.forEach(this::volcarCarrito);
+    }
+
+    private void volcarCarrito(Long idCarrito, List<Escritura> escrituras) {
+        List<Escritura> aEscribir = escrituras;
+        try {
+            try {
+                escribirEnTransaccion(aEscribir);
+            } catch (DataIntegrityViolationException e) {
+                // Lo habitual es que el carrito o algún producto se haya borrado mientras la línea esperaba
+                aEscribir = descartarHuerfanas(idCarrito, aEscribir);
+                if (aEscribir.isEmpty()) {
+                    return;
+                }
+                escribirEnTransaccion(aEscribir);
+            }
+            registrarVolcado(aEscribir.size());
+        } catch (RuntimeException e) {
+            // Lo que hay en memoria sigue siendo lo correcto: se vuelve a marcar y se reintenta en el próximo volcado
+            erroresVolcado.increment();
+            log.error("No se pudo volcar el carrito {}; se reintentará", idCarrito, e);
+            remarcar(idCarrito, aEscribir);
+        }
+    }
+
+    // Quita de memoria las líneas que ya no se pueden escribir y devuelve el resto
+    private List<Escritura> descartarHuerfanas(Long idCarrito, List<Escritura> escrituras) {
+        if (!carritoRepository.existsById(idCarrito)) {
+            log.warn("El carrito {} ya no existe; se descartan {} líneas sin volcar", idCarrito, escrituras.size());
+            descartar(idCarrito);
+            return List.of();
+        }
+        Set<Long> existentes = new HashSet<>(productoRepository.findIdsExistentes(
+                escrituras.stream().map(Escritura::idProducto).toList()));
+        List<Escritura> validas = new ArrayList<>();
+        List<Long> huerfanas = new ArrayList<>();
+        for (Escritura escritura : escrituras) {
+            if (escritura.cantidad() == 0 || existentes.contains(escritura.idProducto())) {
+                validas.add(escritura);
+            } else {
+                huerfanas.add(escritura.idProducto());
+            }
+        }
+        if (!huerfanas.isEmpty()) {
+            log.warn("Se descartan líneas del carrito {} con productos borrados: {}", idCarrito, huerfanas);
+            CarritoVivo carrito = carritos.get(idCarrito);
+            if (carrito != null) {
+                synchronized (carrito) {
+                    huerfanas.forEach(carrito.lineas::remove);
+                    huerfanas.forEach(carrito.modificados::remove);
+                    huerfanas.forEach(carrito.reescribir::remove);
+                }
+            }
+        }
+        return validas;
+    }
+
+    private void escribirEnTransaccion(List<Escritura> escrituras) {
+        // Transacción propia: el volcado no depende de que confirme la petición que lo provoca
+        TransactionTemplate escritura = new TransactionTemplate(transactionManager);
+        escritura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        escritura.executeWithoutResult(estado -> escribir(escrituras));
+    }
+
+    private void registrarVolcado(int filas) {
+        volcados.increment();
+        filasEscritas.add(filas);
+        ultimoVolcado = Instant.now();
+    }
+
+    private void remarcar(Long idCarrito, List<Escritura> escrituras) {
+        CarritoVivo carrito = carritos.get(idCarrito);
+        if (carrito == null) {
+            return;
+        }
+        synchronized (carrito) {
+            for (Escritura escritura : escrituras) {
+                carrito.modificados.add(escritura.idProducto());
+                if (escritura.reescribir()) {
+                    carrito.reescribir.add(escritura.idProducto());
+                }
+            }
+        }
+        pendientes.add(idCarrito);
+    }
+
+    @Override
+    public void descartar(Long idCarrito) {
+        CarritoVivo carrito = carritos.remove(idCarrito);
+        if (carrito != null) {
+            synchronized (carrito) {
+                carrito.descartado = true;
+            }
+        }
+        pendientes.remove(idCarrito);
+    }
+
+    @Override
+    public EstadisticasCarritosDTO getEstadisticas() {
+        return new EstadisticasCarritosDTO(habilitado, carritos.size(), pendientes.size(), volcados.sum(),
+                filasEscritas.sum(), erroresVolcado.sum(), ultimoVolcado);
+    }
+
+    private void ejecutarVolcado() {
+        try {
+            volcar();
+        } catch (RuntimeException e) {
+            log.error("Error inesperado en el volcado de carritos", e);
+        }
+        expulsarInactivos();
+    }
+
+    // Los carritos sin cambios pendientes y sin uso reciente salen de memoria; se recargan si vuelven
+    private synchronized void expulsarInactivos() {
+        long limite = System.nanoTime() - inactividad.toNanos();
+        carritos.forEach((idCarrito, carrito) -> {
+            // Un carrito que se está volcando aún no tiene sus líneas en la base: se deja para la siguiente pasada
+            if (!carrito.volcado.tryLock()) {
+                return;
+            }
+            try {
+                synchronized (carrito) {
+                    if (carrito.modificados.isEmpty() && carrito.ultimoAcceso - limite < 0) {
+                        carrito.descartado = true;
+                        carritos.remove(idCarrito, carrito);
+                    }
+                }
+            } finally {
+                carrito.volcado.unlock();
+            }
+        });
+    }
+
+    private void escribir(List<Escritura> escrituras) {
+        // Primero la fila del carrito, en el mismo orden de bloqueo que la limpieza de abandonados
+        Timestamp ahora = Timestamp.from(Instant.now());
+        List<Long> idsCarrito = escrituras.stream().map(Escritura::idCarrito).distinct().toList();
+        jdbcTemplate.batchUpdate(SQL_TOCAR, idsCarrito, tamanoBatch, (sentencia, idCarrito) -> {
+            sentencia.setTimestamp(1, ahora);
+            sentencia.setLong(2, idCarrito);
+        });
+
+        List<Escritura> eliminaciones = new ArrayList<>();
+        List<Escritura> actualizaciones = new ArrayList<>();
+        List<Escritura> inserciones = new ArrayList<>();
+        for (Escritura escritura : escrituras) {
+            if (escritura.cantidad() == 0 || escritura.reescribir()) {
+                eliminaciones.add(escritura);
+            }
+            if (escritura.cantidad() > 0) {
+                (escritura.reescribir() ? inserciones : actualizaciones).add(escritura);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(SQL_ELIMINAR, eliminaciones, tamanoBatch, (sentencia, escritura) -> {
+            sentencia.setLong(1, escritura.idCarrito());
+            sentencia.setLong(2, escritura.idProducto());
+        });
+        int[][] filasAfectadas = jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, actualizaciones, tamanoBatch,
+                (sentencia, escritura) -> {
+                    sentencia.setInt(1, escritura.cantidad());
+                    sentencia.setLong(2, escritura.idCarrito());
+                    sentencia.setLong(3, escritura.idProducto());
+                });
+        int i = 0;
+        for (int[] lote : filasAfectadas) {
+            for (int filas : lote) {
+                // Algunos drivers devuelven SUCCESS_NO_INFO (-2) en lugar del recuento
+                if (filas == 0) {
+                    inserciones.add(actualizaciones.get(i));
+                }
+                i++;
+            }
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, inserciones, tamanoBatch, (sentencia, escritura) -> {
+            sentencia.setLong(1, escritura.idCarrito());
+            sentencia.setLong(2, escritura.idProducto());
+            sentencia.setInt(3, escritura.cantidad());
+        });
+    }
+
+    private <R> R enCarrito(Long idCarrito, Function<CarritoVivo, R> accion) {
+        while (true) {
+            CarritoVivo carrito = carritos.get(idCarrito);
+            if (carrito == null) {
+                // La carga se hace fuera del mapa; si otra petición se adelanta se usa la suya
+                CarritoVivo cargado = cargar(idCarrito);
+                carrito = carritos.putIfAbsent(idCarrito, cargado);
+                if (carrito == null) {
+                    carrito = cargado;
+                    if (!cargado.modificados.isEmpty()) {
+                        pendientes.add(idCarrito);
+                    }
+                }
+            }
+            synchronized (carrito) {
+                if (!carrito.descartado) {
+                    carrito.ultimoAcceso = System.nanoTime();
+                    return accion.apply(carrito);
+                }
+            }
+        }
+    }
+
+    private CarritoVivo cargar(Long idCarrito) {
+        long version = versionCatalogoService.getVersion();
+        if (!carritoRepository.existsById(idCarrito)) {
+            throw new RuntimeException("Carrito no encontrado con id: " + idCarrito);
+        }
+        CarritoVivo carrito = new CarritoVivo(version);
+        for (ItemCarritoConImagenDTO item : itemsCarritoRepository.findVistaByIdCarrito(idCarrito)) {
+            Linea existente = carrito.lineas.get(item.getIdProducto());
+            if (existente != null) {
+                // Varias filas del mismo producto: se suman y se reescriben como una sola
+                existente.cantidad += item.getCantidad();
+                carrito.reescribir.add(item.getIdProducto());
+                carrito.modificados.add(item.getIdProducto());
+                continue;
+            }
+            ProductoCarritoDTO producto = new ProductoCarritoDTO(item.getIdProducto(), item.getNombreProducto(),
+                    item.getDescripcionProducto(), item.getPrecioProducto(), item.getStockProducto(),
+                    item.getSkuProducto(), item.getImagenPortada());
+            carrito.lineas.put(item.getIdProducto(), new Linea(item.getId(), producto, item.getCantidad()));
+        }
+        return carrito;
+    }
+
+    // Solo hace falta leer el producto si no está en el carrito o el catálogo cambió desde que se leyó
+    private ProductoCarritoDTO productoActual(Long idCarrito, Long idProducto) {
+        long version = versionCatalogoService.getVersion();
+        boolean vigente = enCarrito(idCarrito,
+                carrito -> carrito.lineas.containsKey(idProducto) && carrito.versionCatalogo == version);
+        return vigente ? null : cargarProducto(idProducto);
+    }
+
+    private ProductoCarritoDTO cargarProducto(Long idProducto) {
+        ProductoCarritoDTO producto = cargarProductos(Set.of(idProducto)).get(idProducto);
+        if (producto == null) {
+            throw new RuntimeException("Producto no encontrado con id: " + idProducto);
+        }
+        return producto;
+    }
+
+    private Map<Long, ProductoCarritoDTO> cargarProductos(Set<Long> idsProducto) {
+        return productoRepository.findProductosCarritoByIdIn(idsProducto).stream()
+                .collect(Collectors.toMap(ProductoCarritoDTO::getIdProducto, Function.identity()));
+    }
+
+    // Se valida contra el stock de la última lectura del producto, que se refresca con cada cambio de catálogo
+    private static void comprobarStock(ProductoCarritoDTO producto, int cantidad) {
+        if (producto.getStock() == null || cantidad > producto.getStock()) {
+            throw new IllegalStateException("Stock insuficiente para el producto con id: " + producto.getIdProducto()
+                    + " (disponible: " + producto.getStock() + ")");
+        }
+    }
+
+    private void marcar(Long idCarrito, CarritoVivo carrito, Long idProducto) {
+        carrito.modificados.add(idProducto);
+        pendientes.add(idCarrito);
+    }
+
+    private CarritoConImagenesDTO vista(Long idCarrito, CarritoVivo carrito) {
+        List<ItemCarritoConImagenDTO> items = new ArrayList<>(carrito.lineas.size());
+        int cantidadTotal = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for (Linea linea : carrito.lineas.values()) {
+            ItemCarritoConImagenDTO item = item(idCarrito, linea);
+            items.add(item);
+            cantidadTotal += item.getCantidad();
+            total = total.add(item.getSubtotal());
+        }
+        return new CarritoConImagenesDTO(idCarrito, items, cantidadTotal, total);
+    }
+
+    private ItemCarritoConImagenDTO item(Long idCarrito, Linea linea) {
+        ProductoCarritoDTO producto = linea.producto;
+        return new ItemCarritoConImagenDTO(linea.idItem, idCarrito, producto.getIdProducto(), producto.getNombre(),
+                producto.getDescripcion(), producto.getPrecio(), producto.getStock(), producto.getSku(),
+                linea.cantidad, producto.getImagenPortada(),
+                producto.getPrecio().multiply(BigDecimal.valueOf(linea.cantidad)));
+    }
+
+    // Estado de un carrito; todo acceso se hace con su monitor tomado
+    private static final class CarritoVivo {
+        private final Map<Long, Linea> lineas = new LinkedHashMap<>();
+        private final Set<Long> modificados = new HashSet<>();
+        private final Set<Long> reescribir = new HashSet<>();
+        // Aparte del monitor: se mantiene mientras se escriben sus líneas, sin frenar las operaciones en memoria
+        private final ReentrantLock volcado = new ReentrantLock();
+        private long versionCatalogo;
+        private long ultimoAcceso = System.nanoTime();
+        private boolean descartado;
+
+        private CarritoVivo(long versionCatalogo) {
+            this.versionCatalogo = versionCatalogo;
+        }
+    }
+
+    // El id de la fila solo se conoce si la línea venía de la base; las nuevas lo obtienen al recargarse
+    private static final class Linea {
+        private final Long idItem;
+        private ProductoCarritoDTO producto;
+        private int cantidad;
+
+        private Linea(Long idItem, ProductoCarritoDTO producto, int cantidad) {
+            this.idItem = idItem;
+            this.producto = producto;
+            this.cantidad = cantidad;
+        }
+    }
+
+    private record Escritura(Long idCarrito, Long idProducto, int cantidad, boolean reescribir) {
+    }
+}
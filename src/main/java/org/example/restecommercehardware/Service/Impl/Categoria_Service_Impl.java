@@ -1,9 +1,11 @@
 package org.example.restecommercehardware.Service.Impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
 import org.example.restecommercehardware.Mapper.Categoria_Entity;
 import org.example.restecommercehardware.Repository.Categoria_Repository;
 import org.example.restecommercehardware.Service.Categoria_Service;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +17,7 @@ import java.util.Optional;
 public class Categoria_Service_Impl implements Categoria_Service {
 
     private final Categoria_Repository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional(readOnly = true)
@@ -53,7 +56,10 @@ public class Categoria_Service_Impl implements Categoria_Service {
         }
 
         actualizarCampos(categoria, categoriaActualizada);
-        return categoriaRepository.save(categoria);
+        Categoria_Entity guardada = categoriaRepository.save(categoria);
+        // El nombre aparece en los listados, las facetas y el índice de búsqueda
+        eventPublisher.publishEvent(new CatalogoRecargadoEvent("categorias", 0));
+        return guardada;
     }
 
     @Override
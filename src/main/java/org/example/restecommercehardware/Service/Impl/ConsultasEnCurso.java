@@ -0,0 +1,68 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import org.example.restecommercehardware.DTOs.EstadisticasConsultasDTO;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa consultas idénticas concurrentes (single-flight): el primer hilo con
+ * una clave ejecuta la carga y los que llegan mientras sigue en curso esperan
+ * y reciben el mismo resultado, o la misma excepción. No guarda nada: la
+ * entrada desaparece en cuanto la carga termina.
+ */
+final class ConsultasEnCurso {
+
+    private final Map<Object, CompletableFuture<Object>> enCurso = new ConcurrentHashMap<>();
+    private final LongAdder cargas = new LongAdder();
+    private final LongAdder colapsadas = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    <T> T ejecutar(Object clave, Supplier<T> carga) {
+        CompletableFuture<Object> propia = new CompletableFuture<>();
+        CompletableFuture<Object> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            colapsadas.increment();
+            return (T) esperar(existente);
+        }
+
+        cargas.increment();
+        try {
+            T resultado = carga.get();
+            propia.complete(resultado);
+            return resultado;
+        } catch (RuntimeException | Error e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    EstadisticasConsultasDTO getEstadisticas(String nombre) {
+        long totalCargas = cargas.sum();
+        long totalColapsadas = colapsadas.sum();
+        long total = totalCargas + totalColapsadas;
+        return new EstadisticasConsultasDTO(nombre, totalCargas, totalColapsadas, enCurso.size(),
+                total == 0 ? 0.0 : (double) totalColapsadas / total);
+    }
+
+    private Object esperar(CompletableFuture<Object> existente) {
+        try {
+            return existente.join();
+        } catch (CompletionException e) {
+            // Se relanza la excepción original para que el llamador la trate igual que en la carga propia
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
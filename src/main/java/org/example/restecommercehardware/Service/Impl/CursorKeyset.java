@@ -0,0 +1,43 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Codifica las claves del último elemento de una página en un cursor opaco.
+ * El cursor incluye el orden con el que se generó para rechazar cursores
+ * reutilizados con un orden distinto.
+ */
+final class CursorKeyset {
+
+    private static final String SEPARADOR = "|";
+
+    private CursorKeyset() {
+    }
+
+    static String codificar(String orden, List<?> valores) {
+        String contenido = orden + SEPARADOR + valores.stream()
+                .map(valor -> valor == null ? "" : valor.toString())
+                .collect(Collectors.joining(SEPARADOR));
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static List<String> decodificar(String cursor, String orden) {
+        String contenido;
+        try {
+            contenido = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+
+        List<String> partes = Arrays.asList(contenido.split("\\" + SEPARADOR, -1));
+        if (partes.size() < 2 || !partes.get(0).equals(orden)) {
+            throw new IllegalArgumentException("El cursor no corresponde al orden solicitado");
+        }
+        return partes.subList(1, partes.size());
+    }
+}
@@ -0,0 +1,178 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.restecommercehardware.DTOs.DetalleProductoDTO;
+import org.example.restecommercehardware.DTOs.ImagenProductoDTO;
+import org.example.restecommercehardware.DTOs.OrdenResenas;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ResenaResumenDTO;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.ProductoImg_Repository;
+import org.example.restecommercehardware.Service.DetalleProducto_Service;
+import org.example.restecommercehardware.Service.Producto_Service;
+import org.example.restecommercehardware.Service.Resena_Service;
+import org.example.restecommercehardware.Service.ValoracionesProductos_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Arma la página de producto en una sola llamada. Producto, imágenes y
+ * primera página de reseñas se piden a la vez, cada una con su propio
+ * límite de tiempo, así la respuesta tarda lo que la parte más lenta y no la
+ * suma. La valoración sale de memoria y no necesita hilo propio.
+ *
+ * <p>Agotar el límite no basta con completar el futuro: cada parte corre en
+ * una transacción de solo lectura con ese límite, que se aplica como timeout
+ * a sus consultas, y además se interrumpe su hilo, así la conexión vuelve al
+ * pool en lugar de seguir ocupada con una lectura que nadie espera.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DetalleProducto_Service_Impl implements DetalleProducto_Service {
+
+    private static final String PARTE_IMAGENES = "imagenes";
+    private static final String PARTE_RESENAS = "resenas";
+
+    private final Producto_Service productoService;
+    private final ProductoImg_Repository productoImgRepository;
+    private final Resena_Service resenaService;
+    private final ValoracionesProductos_Service valoracionesService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${catalogo.detalle.timeout-producto:2s}")
+    private Duration timeoutProducto;
+
+    @Value("${catalogo.detalle.timeout-partes:800ms}")
+    private Duration timeoutPartes;
+
+    @Value("${catalogo.detalle.tamano-resenas:5}")
+    private int tamanoResenas;
+
+    // Java 17: hilos de plataforma acotados; con la cola llena la parte se ejecuta en el hilo de la petición
+    private final ThreadPoolExecutor ejecutor = crearEjecutor();
+
+    @Override
+    public Optional<DetalleProductoDTO> getDetalle(Long idProducto) {
+        CompletableFuture<Optional<Producto_Entity>> producto = lanzar(
+                () -> productoService.getProductoById(idProducto), timeoutProducto);
+        CompletableFuture<List<ImagenProductoDTO>> imagenes = lanzar(
+                () -> productoImgRepository.findImagenesByIdProducto(idProducto), timeoutPartes);
+        CompletableFuture<PaginaDTO<ResenaResumenDTO>> resenas = lanzar(
+                () -> resenaService.getResenasByProducto(idProducto, null, tamanoResenas, OrdenResenas.RECIENTES,
+                        null, null), timeoutPartes);
+
+        // Sin producto no hay página: se propaga el fallo o el tiempo agotado
+        Optional<Producto_Entity> encontrado;
+        try {
+            encontrado = esperar(producto, idProducto);
+        } catch (RuntimeException e) {
+            imagenes.cancel(true);
+            resenas.cancel(true);
+            throw e;
+        }
+        if (encontrado.isEmpty()) {
+            imagenes.cancel(true);
+            resenas.cancel(true);
+            return Optional.empty();
+        }
+
+        List<String> noDisponibles = new ArrayList<>();
+        return Optional.of(new DetalleProductoDTO(
+                encontrado.get(),
+                parteOpcional(imagenes, PARTE_IMAGENES, idProducto, noDisponibles),
+                valoracionesService.getValoracion(idProducto),
+                parteOpcional(resenas, PARTE_RESENAS, idProducto, noDisponibles),
+                noDisponibles));
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> lanzar(Supplier<T> parte, Duration timeout) {
+        TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+        // En segundos, redondeado hacia arriba: el futuro vence antes y la base corta la consulta poco después
+        lectura.setTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        Future<?> tarea = ejecutor.submit(() -> {
+            try {
+                resultado.complete(lectura.execute(estado -> parte.get()));
+            } catch (Throwable e) {
+                resultado.completeExceptionally(e);
+            }
+        });
+        resultado.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((valor, error) -> {
+                    if (error instanceof TimeoutException || error instanceof CancellationException) {
+                        tarea.cancel(true);
+                    }
+                });
+        return resultado;
+    }
+
+    private <T> T esperar(CompletableFuture<T> parte, Long idProducto) {
+        try {
+            return parte.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException || e.getCause() instanceof TransactionTimedOutException) {
+                throw new QueryTimeoutException("Tiempo agotado al leer el producto con id: " + idProducto, e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // Una parte secundaria que falla o tarda no tumba la página: se devuelve null y se informa
+    private <T> T parteOpcional(CompletableFuture<T> parte, String nombre, Long idProducto,
+                                List<String> noDisponibles) {
+        try {
+            return parte.join();
+        } catch (CompletionException e) {
+            log.warn("Detalle del producto {}: la parte '{}' no está disponible", idProducto, nombre, e.getCause());
+            noDisponibles.add(nombre);
+            return null;
+        }
+    }
+
+    private ThreadPoolExecutor crearEjecutor() {
+        AtomicInteger contador = new AtomicInteger();
+        int hilos = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(hilos * 16),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "detalle-producto-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,376 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.restecommercehardware.DTOs.FacetaValorDTO;
+import org.example.restecommercehardware.DTOs.FiltroProductosDTO;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ResultadoFiltroDTO;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.FacetasProductos_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Facetas del catálogo en memoria. Cada producto ocupa una posición
+ * (ordinal) y cada valor de faceta guarda un BitSet con las posiciones que
+ * lo tienen, así filtrar es un AND de bits y contar es recorrer el resultado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FacetasProductos_Service_Impl implements FacetasProductos_Service {
+
+    private static final int SIN_BANDA = -1;
+
+    private final Producto_Repository productoRepository;
+
+    @Value("${catalogo.facetas.bandas-precio:0,50,100,250,500,1000,2000}")
+    private BigDecimal[] limitesBandas;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CambiosDuranteReconstruccion cambios = new CambiosDuranteReconstruccion();
+
+    private Indice indice = new Indice(0);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        reconstruir();
+    }
+
+    @Order(0)
+    @TransactionalEventListener
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        cambios.registrar(evento.getIdProducto());
+        if (evento.getTipo() == ProductoCambiadoEvent.Tipo.ELIMINADO) {
+            eliminarProducto(evento.getIdProducto());
+            return;
+        }
+        productoRepository.findConRelacionesById(evento.getIdProducto())
+                .ifPresentOrElse(this::indexarProducto, () -> eliminarProducto(evento.getIdProducto()));
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecargarCatalogo(CatalogoRecargadoEvent evento) {
+        reconstruir();
+    }
+
+    @Override
+    public void reconstruir() {
+        long generacion = cambios.comenzar();
+        try {
+            List<Producto_Entity> productos = new ArrayList<>(productoRepository.findAllConRelacionesBy());
+            // Los ordinales siguen el orden de id, así recorrer los bits devuelve los productos por id
+            productos.sort(Comparator.comparing(Producto_Entity::getId));
+
+            Indice nuevo = new Indice(productos.size());
+            for (Producto_Entity producto : productos) {
+                nuevo.agregar(producto, banda(producto.getPrecio()));
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (!cambios.sustituir(generacion)) {
+                    log.info("Reconstrucción de las facetas descartada: ya se aplicó una más reciente");
+                    return;
+                }
+                indice = nuevo;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Los productos que cambiaron durante la lectura se releen sobre el índice nuevo
+            cambios.releerPendientes(this::releer);
+            log.info("Facetas del catálogo reconstruidas con {} productos", productos.size());
+        } finally {
+            cambios.terminar();
+        }
+    }
+
+    @Override
+    public void indexarProducto(Producto_Entity producto) {
+        lock.writeLock().lock();
+        try {
+            indice.quitar(producto.getId());
+            indice.agregar(producto, banda(producto.getPrecio()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eliminarProducto(Long idProducto) {
+        lock.writeLock().lock();
+        try {
+            indice.quitar(idProducto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void releer(List<Long> ids) {
+        Map<Long, Producto_Entity> actuales = new HashMap<>();
+        productoRepository.findConRelacionesByIdIn(ids).forEach(producto -> actuales.put(producto.getId(), producto));
+        for (Long id : ids) {
+            Producto_Entity producto = actuales.get(id);
+            if (producto != null) {
+                indexarProducto(producto);
+            } else {
+                eliminarProducto(id);
+            }
+        }
+    }
+
+    @Override
+    public ResultadoFiltroDTO<Long> filtrar(FiltroProductosDTO filtro, int desde, int limite) {
+        lock.readLock().lock();
+        try {
+            Indice actual = indice;
+            BitSet categorias = actual.union(actual.porCategoria, filtro.getCategorias());
+            BitSet marcas = actual.union(actual.porMarca, filtro.getMarcas());
+            BitSet precio = actual.enRangoDePrecio(filtro.getPrecioMin(), filtro.getPrecioMax());
+            BitSet stock = filtro.getEnStock() == null ? null
+                    : filtro.getEnStock() ? actual.enStock : actual.sinStock();
+
+            BitSet coincidencias = interseccion(actual.vivos, categorias, marcas, precio, stock);
+
+            // Cada faceta se cuenta sin su propio filtro, para que la barra lateral muestre las alternativas
+            Map<Long, Integer> conteoCategorias = new HashMap<>();
+            recorrer(interseccion(actual.vivos, marcas, precio, stock),
+                    ordinal -> contar(conteoCategorias, actual.categoriaPorOrdinal[ordinal]));
+            Map<Long, Integer> conteoMarcas = new HashMap<>();
+            recorrer(interseccion(actual.vivos, categorias, precio, stock),
+                    ordinal -> contar(conteoMarcas, actual.marcaPorOrdinal[ordinal]));
+            int[] conteoBandas = new int[limitesBandas.length];
+            recorrer(interseccion(actual.vivos, categorias, marcas, stock), ordinal -> {
+                int banda = actual.bandaPorOrdinal[ordinal];
+                if (banda != SIN_BANDA) {
+                    conteoBandas[banda]++;
+                }
+            });
+            BitSet sinFiltroStock = interseccion(actual.vivos, categorias, marcas, precio);
+            int conStock = interseccion(sinFiltroStock, actual.enStock).cardinality();
+
+            List<Long> ids = new ArrayList<>(Math.max(limite, 0));
+            int posicion = 0;
+            for (int ordinal = coincidencias.nextSetBit(0); ordinal >= 0 && ids.size() < limite;
+                 ordinal = coincidencias.nextSetBit(ordinal + 1)) {
+                if (posicion++ >= desde) {
+                    ids.add(actual.idPorOrdinal[ordinal]);
+                }
+            }
+
+            return new ResultadoFiltroDTO<>(
+                    new PaginaDTO<>(ids, null, false),
+                    coincidencias.cardinality(),
+                    facetas(conteoCategorias, actual.nombresCategoria),
+                    facetas(conteoMarcas, actual.nombresMarca),
+                    facetasPrecio(conteoBandas),
+                    List.of(new FacetaValorDTO("en_stock", "En stock", conStock),
+                            new FacetaValorDTO("sin_stock", "Sin stock", sinFiltroStock.cardinality() - conStock)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int banda(BigDecimal precio) {
+        if (precio == null || limitesBandas.length == 0 || precio.compareTo(limitesBandas[0]) < 0) {
+            return SIN_BANDA;
+        }
+        int banda = 0;
+        while (banda + 1 < limitesBandas.length && precio.compareTo(limitesBandas[banda + 1]) >= 0) {
+            banda++;
+        }
+        return banda;
+    }
+
+    private List<FacetaValorDTO> facetasPrecio(int[] conteo) {
+        List<FacetaValorDTO> facetas = new ArrayList<>();
+        for (int i = 0; i < conteo.length; i++) {
+            String etiqueta = i + 1 < limitesBandas.length
+                    ? limitesBandas[i].toPlainString() + "-" + limitesBandas[i + 1].toPlainString()
+                    : limitesBandas[i].toPlainString() + "+";
+            facetas.add(new FacetaValorDTO(etiqueta, etiqueta, conteo[i]));
+        }
+        return facetas;
+    }
+
+    private static List<FacetaValorDTO> facetas(Map<Long, Integer> conteo, Map<Long, String> nombres) {
+        return conteo.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(e -> new FacetaValorDTO(e.getKey().toString(), nombres.get(e.getKey()), e.getValue()))
+                .toList();
+    }
+
+    private static void contar(Map<Long, Integer> conteo, Long valor) {
+        if (valor != null) {
+            conteo.merge(valor, 1, Integer::sum);
+        }
+    }
+
+    private static BitSet interseccion(BitSet base, BitSet... filtros) {
+        BitSet resultado = (BitSet) base.clone();
+        for (BitSet filtro : filtros) {
+            if (filtro != null) {
+                resultado.and(filtro);
+            }
+        }
+        return resultado;
+    }
+
+    private static void recorrer(BitSet bits, IntConsumer accion) {
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            accion.accept(i);
+        }
+    }
+
+    /**
+     * Estado del índice. Se reemplaza completo al reconstruir; las
+     * actualizaciones incrementales lo modifican bajo el write lock.
+     */
+    private static final class Indice {
+        private final Map<Long, Integer> ordinalPorId = new HashMap<>();
+        private long[] idPorOrdinal;
+        private long[] centavosPorOrdinal;
+        private Long[] categoriaPorOrdinal;
+        private Long[] marcaPorOrdinal;
+        private int[] bandaPorOrdinal;
+        private int siguienteOrdinal;
+
+        private final BitSet vivos = new BitSet();
+        private final BitSet enStock = new BitSet();
+        private final Map<Long, BitSet> porCategoria = new HashMap<>();
+        private final Map<Long, BitSet> porMarca = new HashMap<>();
+        private final Map<Long, String> nombresCategoria = new HashMap<>();
+        private final Map<Long, String> nombresMarca = new HashMap<>();
+
+        private Indice(int capacidad) {
+            int inicial = Math.max(capacidad, 16);
+            idPorOrdinal = new long[inicial];
+            centavosPorOrdinal = new long[inicial];
+            categoriaPorOrdinal = new Long[inicial];
+            marcaPorOrdinal = new Long[inicial];
+            bandaPorOrdinal = new int[inicial];
+        }
+
+        private void agregar(Producto_Entity producto, int banda) {
+            // Un producto nuevo recibe el siguiente ordinal; uno actualizado conserva el suyo
+            Integer ordinal = ordinalPorId.get(producto.getId());
+            if (ordinal == null) {
+                ordinal = siguienteOrdinal++;
+                asegurarCapacidad(ordinal + 1);
+                ordinalPorId.put(producto.getId(), ordinal);
+                idPorOrdinal[ordinal] = producto.getId();
+            }
+
+            vivos.set(ordinal);
+            centavosPorOrdinal[ordinal] = producto.getPrecio() == null ? 0
+                    : producto.getPrecio().movePointRight(2).longValue();
+            bandaPorOrdinal[ordinal] = banda;
+            enStock.set(ordinal, producto.getStock() != null && producto.getStock() > 0);
+
+            if (producto.getIdCategoria() != null) {
+                Long idCategoria = producto.getIdCategoria().getId();
+                categoriaPorOrdinal[ordinal] = idCategoria;
+                porCategoria.computeIfAbsent(idCategoria, id -> new BitSet()).set(ordinal);
+                if (producto.getIdCategoria().getNombre() != null) {
+                    nombresCategoria.put(idCategoria, producto.getIdCategoria().getNombre());
+                }
+            }
+            if (producto.getIdMarca() != null) {
+                Long idMarca = producto.getIdMarca().getId();
+                marcaPorOrdinal[ordinal] = idMarca;
+                porMarca.computeIfAbsent(idMarca, id -> new BitSet()).set(ordinal);
+                if (producto.getIdMarca().getNombre() != null) {
+                    nombresMarca.put(idMarca, producto.getIdMarca().getNombre());
+                }
+            }
+        }
+
+        // Limpia los bits del producto; el ordinal se conserva por si vuelve a indexarse
+        private void quitar(Long idProducto) {
+            Integer ordinal = ordinalPorId.get(idProducto);
+            if (ordinal == null) {
+                return;
+            }
+            vivos.clear(ordinal);
+            enStock.clear(ordinal);
+            if (categoriaPorOrdinal[ordinal] != null) {
+                porCategoria.get(categoriaPorOrdinal[ordinal]).clear(ordinal);
+                categoriaPorOrdinal[ordinal] = null;
+            }
+            if (marcaPorOrdinal[ordinal] != null) {
+                porMarca.get(marcaPorOrdinal[ordinal]).clear(ordinal);
+                marcaPorOrdinal[ordinal] = null;
+            }
+            bandaPorOrdinal[ordinal] = SIN_BANDA;
+        }
+
+        private BitSet union(Map<Long, BitSet> postings, List<Long> valores) {
+            if (valores == null || valores.isEmpty()) {
+                return null;
+            }
+            BitSet resultado = new BitSet();
+            for (Long valor : valores) {
+                BitSet bits = postings.get(valor);
+                if (bits != null) {
+                    resultado.or(bits);
+                }
+            }
+            return resultado;
+        }
+
+        private BitSet enRangoDePrecio(BigDecimal minimo, BigDecimal maximo) {
+            if (minimo == null && maximo == null) {
+                return null;
+            }
+            long desde = minimo == null ? Long.MIN_VALUE : minimo.movePointRight(2).longValue();
+            long hasta = maximo == null ? Long.MAX_VALUE : maximo.movePointRight(2).longValue();
+            BitSet resultado = new BitSet();
+            for (int i = vivos.nextSetBit(0); i >= 0; i = vivos.nextSetBit(i + 1)) {
+                if (centavosPorOrdinal[i] >= desde && centavosPorOrdinal[i] <= hasta) {
+                    resultado.set(i);
+                }
+            }
+            return resultado;
+        }
+
+        private BitSet sinStock() {
+            BitSet resultado = (BitSet) vivos.clone();
+            resultado.andNot(enStock);
+            return resultado;
+        }
+
+        private void asegurarCapacidad(int minimo) {
+            if (minimo <= idPorOrdinal.length) {
+                return;
+            }
+            int nueva = Math.max(minimo, idPorOrdinal.length * 2);
+            idPorOrdinal = Arrays.copyOf(idPorOrdinal, nueva);
+            centavosPorOrdinal = Arrays.copyOf(centavosPorOrdinal, nueva);
+            categoriaPorOrdinal = Arrays.copyOf(categoriaPorOrdinal, nueva);
+            marcaPorOrdinal = Arrays.copyOf(marcaPorOrdinal, nueva);
+            bandaPorOrdinal = Arrays.copyOf(bandaPorOrdinal, nueva);
+        }
+    }
+}
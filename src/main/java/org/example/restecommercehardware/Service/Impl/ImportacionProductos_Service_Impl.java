@@ -0,0 +1,320 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.ErrorFilaDTO;
+import org.example.restecommercehardware.DTOs.FilaImportacionDTO;
+import org.example.restecommercehardware.DTOs.FormatoImportacion;
+import org.example.restecommercehardware.DTOs.ResultadoImportacionDTO;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Mapper.Categoria_Entity;
+import org.example.restecommercehardware.Mapper.Marca_Entity;
+import org.example.restecommercehardware.Repository.Categoria_Repository;
+import org.example.restecommercehardware.Repository.Marca_Repository;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.ImportacionProductos_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de productos. La entrada se lee fila a fila y se procesa
+ * en lotes: una consulta por lote para los SKU ya existentes y una inserción
+ * JDBC por lotes en su propia transacción (la clave IDENTITY impide que
+ * Hibernate agrupe los insert).
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportacionProductos_Service_Impl implements ImportacionProductos_Service {
+
+    private static final String SQL_INSERTAR = """
+            insert into dbo.productos
+                (nombre, descripcion, precio, stock, sku, id_categoria, id_marca, creado_en, actualizado_en, version)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)
+            """;
+
+    // SQL Server admite como máximo 2100 parámetros por sentencia
+    private static final int MAXIMO_SKUS_POR_CONSULTA = 2000;
+    private static final BigDecimal PRECIO_MAXIMO = new BigDecimal("99999999.99");
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private final Producto_Repository productoRepository;
+    private final Categoria_Repository categoriaRepository;
+    private final Marca_Repository marcaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalogo.importacion.tamano-lote:1000}")
+    private int tamanoLote;
+
+    @Value("${catalogo.importacion.tamano-batch-jdbc:500}")
+    private int tamanoBatchJdbc;
+
+    @Value("${catalogo.importacion.maximo-errores:1000}")
+    private int maximoErrores;
+
+    @Override
+    public ResultadoImportacionDTO importar(InputStream entrada, FormatoImportacion formato) throws IOException {
+        Importacion importacion = new Importacion(
+                categoriaRepository.findAll().stream().map(Categoria_Entity::getId).collect(Collectors.toSet()),
+                marcaRepository.findAll().stream().map(Marca_Entity::getId).collect(Collectors.toSet()));
+
+        try {
+            switch (formato) {
+                case CSV -> leerCsv(entrada, importacion);
+                case NDJSON -> leerNdjson(entrada, importacion);
+            }
+            importacion.procesarPendientes();
+        } finally {
+            // Cada lote confirma por su cuenta: si la lectura se corta, lo ya insertado también debe verse
+            if (importacion.insertados > 0) {
+                eventPublisher.publishEvent(new CatalogoRecargadoEvent("importacion", importacion.insertados));
+            }
+        }
+        importacion.errores.sort(Comparator.comparingLong(ErrorFilaDTO::getFila));
+        return new ResultadoImportacionDTO(importacion.filasLeidas, importacion.insertados,
+                importacion.rechazados, importacion.errores);
+    }
+
+    private void leerCsv(InputStream entrada, Importacion importacion) throws IOException {
+        CsvSchema esquema = CsvSchema.emptySchema().withHeader();
+        try (MappingIterator<FilaImportacionDTO> filas = CSV_MAPPER.readerFor(FilaImportacionDTO.class)
+                .with(esquema)
+                .readValues(entrada)) {
+            long numero = 0;
+            while (true) {
+                try {
+                    if (!filas.hasNextValue()) {
+                        break;
+                    }
+                    numero++;
+                    importacion.filasLeidas++;
+                    importacion.agregar(numero, filas.nextValue());
+                } catch (JsonProcessingException e) {
+                    // Tras un error de estructura no se puede saber dónde empieza la fila siguiente
+                    importacion.rechazar(numero, null, "CSV mal formado, se detiene la lectura: " + e.getOriginalMessage());
+                    break;
+                }
+            }
+        }
+    }
+
+    private void leerNdjson(InputStream entrada, Importacion importacion) throws IOException {
+        ObjectReader lectorFila = objectMapper.readerFor(FilaImportacionDTO.class);
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String linea;
+        long numero = 0;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            importacion.filasLeidas++;
+            try {
+                importacion.agregar(numero, lectorFila.readValue(linea));
+            } catch (JsonProcessingException e) {
+                importacion.rechazar(numero, null, "JSON inválido: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private record FilaPendiente(long numero, FilaImportacionDTO fila) {
+    }
+
+    private record ProductoNuevo(long numero, String nombre, String descripcion, BigDecimal precio, int stock,
+                                 String sku, Long idCategoria, Long idMarca) {
+    }
+
+    // Estado de una importación en curso; no se comparte entre peticiones
+    private class Importacion {
+        private final Set<Long> idsCategoria;
+        private final Set<Long> idsMarca;
+        private final Set<String> skusImportados = new HashSet<>();
+        private final List<FilaPendiente> pendientes = new ArrayList<>();
+        private final List<ErrorFilaDTO> errores = new ArrayList<>();
+        private long filasLeidas;
+        private long insertados;
+        private long rechazados;
+
+        Importacion(Set<Long> idsCategoria, Set<Long> idsMarca) {
+            this.idsCategoria = idsCategoria;
+            this.idsMarca = idsMarca;
+        }
+
+        void agregar(long numero, FilaImportacionDTO fila) {
+            pendientes.add(new FilaPendiente(numero, fila));
+            if (pendientes.size() >= Math.min(tamanoLote, MAXIMO_SKUS_POR_CONSULTA)) {
+                procesarPendientes();
+            }
+        }
+
+        void rechazar(long numero, String sku, String mensaje) {
+            rechazados++;
+            if (errores.size() < maximoErrores) {
+                errores.add(new ErrorFilaDTO(numero, sku, mensaje));
+            }
+        }
+
+        void procesarPendientes() {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+
+            List<ProductoNuevo> validos = new ArrayList<>(pendientes.size());
+            for (FilaPendiente pendiente : pendientes) {
+                try {
+                    validos.add(convertir(pendiente));
+                } catch (IllegalArgumentException e) {
+                    rechazar(pendiente.numero(), pendiente.fila().getSku(), e.getMessage());
+                }
+            }
+            pendientes.clear();
+
+            // Una sola consulta por lote para los SKU que ya están en la base
+            Set<String> existentes = validos.isEmpty()
+                    ? Set.of()
+                    : productoRepository.findSkusExistentes(validos.stream().map(ProductoNuevo::sku).toList())
+                            .stream().map(NormalizadorTexto::claveSku).collect(Collectors.toSet());
+
+            List<ProductoNuevo> aInsertar = new ArrayList<>(validos.size());
+            for (ProductoNuevo producto : validos) {
+                String clave = NormalizadorTexto.claveSku(producto.sku());
+                if (existentes.contains(clave)) {
+                    rechazar(producto.numero(), producto.sku(), "Ya existe un producto con el SKU: " + producto.sku());
+                } else if (!skusImportados.add(clave)) {
+                    rechazar(producto.numero(), producto.sku(), "SKU repetido en la importación: " + producto.sku());
+                } else {
+                    aInsertar.add(producto);
+                }
+            }
+
+            if (!aInsertar.isEmpty()) {
+                insertar(aInsertar);
+            }
+        }
+
+        private void insertar(List<ProductoNuevo> productos) {
+            Timestamp ahora = Timestamp.from(Instant.now());
+            try {
+                transactionTemplate.executeWithoutResult(estado ->
+                        jdbcTemplate.batchUpdate(SQL_INSERTAR, productos, tamanoBatchJdbc, (sentencia, producto) -> {
+                            sentencia.setString(1, producto.nombre());
+                            sentencia.setString(2, producto.descripcion());
+                            sentencia.setBigDecimal(3, producto.precio());
+                            sentencia.setInt(4, producto.stock());
+                            sentencia.setString(5, producto.sku());
+                            sentencia.setObject(6, producto.idCategoria(), Types.BIGINT);
+                            sentencia.setObject(7, producto.idMarca(), Types.BIGINT);
+                            sentencia.setTimestamp(8, ahora);
+                            sentencia.setTimestamp(9, ahora);
+                        }));
+                insertados += productos.size();
+            } catch (DataAccessException e) {
+                // El lote se revierte completo; sus SKU quedan libres para un reintento
+                String causa = e.getMostSpecificCause().getMessage();
+                for (ProductoNuevo producto : productos) {
+                    skusImportados.remove(NormalizadorTexto.claveSku(producto.sku()));
+                    rechazar(producto.numero(), producto.sku(), "No se pudo insertar el lote: " + causa);
+                }
+            }
+        }
+
+        private ProductoNuevo convertir(FilaPendiente pendiente) {
+            FilaImportacionDTO fila = pendiente.fila();
+
+            String nombre = recortar(fila.getNombre());
+            if (nombre == null) {
+                throw new IllegalArgumentException("El nombre es obligatorio");
+            }
+            if (nombre.length() > 255) {
+                throw new IllegalArgumentException("El nombre supera los 255 caracteres");
+            }
+
+            String sku = recortar(fila.getSku());
+            if (sku == null) {
+                throw new IllegalArgumentException("El SKU es obligatorio");
+            }
+            if (sku.length() > 50) {
+                throw new IllegalArgumentException("El SKU supera los 50 caracteres");
+            }
+
+            BigDecimal precio;
+            try {
+                precio = new BigDecimal(recortar(fila.getPrecio())).setScale(2, RoundingMode.HALF_UP);
+            } catch (NullPointerException | NumberFormatException e) {
+                throw new IllegalArgumentException("Precio inválido: " + fila.getPrecio());
+            }
+            if (precio.signum() < 0 || precio.compareTo(PRECIO_MAXIMO) > 0) {
+                throw new IllegalArgumentException("Precio fuera de rango: " + precio);
+            }
+
+            int stock;
+            try {
+                stock = Integer.parseInt(recortar(fila.getStock()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Stock inválido: " + fila.getStock());
+            }
+            if (stock < 0) {
+                throw new IllegalArgumentException("El stock no puede ser negativo");
+            }
+
+            Long idCategoria = convertirId(fila.getIdCategoria(), "categoría");
+            if (idCategoria != null && !idsCategoria.contains(idCategoria)) {
+                throw new IllegalArgumentException("Categoría no encontrada con id: " + idCategoria);
+            }
+            Long idMarca = convertirId(fila.getIdMarca(), "marca");
+            if (idMarca != null && !idsMarca.contains(idMarca)) {
+                throw new IllegalArgumentException("Marca no encontrada con id: " + idMarca);
+            }
+
+            return new ProductoNuevo(pendiente.numero(), nombre, fila.getDescripcion(), precio, stock, sku,
+                    idCategoria, idMarca);
+        }
+
+        private Long convertirId(String valor, String campo) {
+            String id = recortar(valor);
+            if (id == null) {
+                return null;
+            }
+            try {
+                return Long.valueOf(id);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Id de " + campo + " inválido: " + valor);
+            }
+        }
+
+        private String recortar(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return null;
+            }
+            return valor.trim();
+        }
+    }
+}
@@ -1,48 +1,112 @@
 package org.example.restecommercehardware.Service.Impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.CarritoConImagenesDTO;
 import org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO;
+import org.example.restecommercehardware.DTOs.OperacionCarritoDTO;
+import org.example.restecommercehardware.DTOs.TipoOperacionCarrito;
 import org.example.restecommercehardware.Mapper.Carrito_Entity;
 import org.example.restecommercehardware.Mapper.ItemsCarrito_Entity;
-import org.example.restecommercehardware.Mapper.ProductoImg_Entity;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
 import org.example.restecommercehardware.Repository.Carrito_Repository;
 import org.example.restecommercehardware.Repository.ItemsCarrito_Repository;
-import org.example.restecommercehardware.Repository.ProductoImg_Repository;
 import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.CarritosEnMemoria_Service;
 import org.example.restecommercehardware.Service.ItemsCarrito_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Con los carritos en memoria activos, las escrituras y la vista del carrito
+ * pasan por CarritosEnMemoria_Service; las lecturas de entidades vuelcan antes
+ * los cambios pendientes para no devolver filas atrasadas.
+ */
+
 @Service
 @RequiredArgsConstructor
 public class ItemsCarrito_Service_Impl implements ItemsCarrito_Service {
 
+    // Suma a la línea existente o la crea, solo si el stock alcanza; sin fila de producto no hace nada
+    private static final String SQL_AGREGAR = """
+            merge into dbo.items_carrito as destino
+            using (select p.id as id_producto, p.stock as stock from dbo.productos p where p.id = ?) as origen
+            on destino.id_carrito = ? and destino.id_producto = origen.id_producto
+            when matched and destino.cantidad + ? <= origen.stock then
+                update set cantidad = destino.cantidad + ?, version = destino.version + 1
+            when not matched and ? <= origen.stock then
+                insert (id_carrito, id_producto, cantidad, version) values (?, origen.id_producto, ?, 0);
+            """;
+
+    // Deja la línea con la cantidad indicada (creándola si falta), con la misma comprobación de stock
+    private static final String SQL_FIJAR = """
+            merge into dbo.items_carrito as destino
+            using (select p.id as id_producto, p.stock as stock from dbo.productos p where p.id = ?) as origen
+            on destino.id_carrito = ? and destino.id_producto = origen.id_producto
+            when matched and ? <= origen.stock then
+                update set cantidad = ?, version = destino.version + 1
+            when not matched and ? <= origen.stock then
+                insert (id_carrito, id_producto, cantidad, version) values (?, origen.id_producto, ?, 0);
+            """;
+
+    private static final String SQL_ELIMINAR = """
+            delete from dbo.items_carrito
+            where id_carrito = ? and id_producto = ?
+            """;
+
+    // Marca la actividad del carrito para la limpieza de abandonados; sin fila, el carrito no existe
+    private static final String SQL_TOCAR = """
+            update dbo.carrito set actualizado_en = ? where id = ?
+            """;
+
     private final ItemsCarrito_Repository itemsCarritoRepository;
     private final Carrito_Repository carritoRepository;
     private final Producto_Repository productoRepository;
-    private final ProductoImg_Repository productoImgRepository;
+    private final CarritosEnMemoria_Service carritosEnMemoria;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${carrito.lote.maximo-operaciones:200}")
+    private int maximoOperacionesLote;
+
+    @Value("${concurrencia.maximo-reintentos:3}")
+    private int maximoReintentos;
 
     @Override
     @Transactional(readOnly = true)
     public List<ItemsCarrito_Entity> getAllItemsCarrito() {
-        return itemsCarritoRepository.findAll();
+        volcarSiHabilitado();
+        return itemsCarritoRepository.findAllConRelacionesBy();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<ItemsCarrito_Entity> getItemCarritoById(Long id) {
-        return itemsCarritoRepository.findById(id);
+        volcarCarritoDelItem(id);
+        return itemsCarritoRepository.findConRelacionesById(id);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ItemsCarrito_Entity> getItemsByCarrito(Long idCarrito) {
+        if (carritosEnMemoria.isHabilitado()) {
+            carritosEnMemoria.volcar(idCarrito);
+        }
         Carrito_Entity carrito = carritoRepository.findById(idCarrito)
                 .orElseThrow(() -> new RuntimeException("Carrito no encontrado con id: " + idCarrito));
         return itemsCarritoRepository.findByIdCarrito(carrito);
@@ -51,6 +115,9 @@ public class ItemsCarrito_Service_Impl implements ItemsCarrito_Service {
     @Override
     @Transactional(readOnly = true)
     public List<ItemsCarrito_Entity> getItemsByProducto(Long idProducto) {
+        if (carritosEnMemoria.isHabilitado()) {
+            carritosEnMemoria.volcarConProducto(idProducto);
+        }
         Producto_Entity producto = productoRepository.findById(idProducto)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + idProducto));
         return itemsCarritoRepository.findByIdProducto(producto);
@@ -58,43 +125,23 @@ public class ItemsCarrito_Service_Impl implements ItemsCarrito_Service {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ItemCarritoConImagenDTO> getItemsByCarritoConImagen(Long idCarrito) {
-        Carrito_Entity carrito = carritoRepository.findById(idCarrito)
-                .orElseThrow(() -> new RuntimeException("Carrito no encontrado con id: " + idCarrito));
+    public CarritoConImagenesDTO getCarritoConImagenes(Long idCarrito) {
+        if (carritosEnMemoria.isHabilitado()) {
+            return carritosEnMemoria.getCarrito(idCarrito);
+        }
+        if (!carritoRepository.existsById(idCarrito)) {
+            throw new RuntimeException("Carrito no encontrado con id: " + idCarrito);
+        }
 
-        List<ItemsCarrito_Entity> items = itemsCarritoRepository.findByIdCarrito(carrito);
-
-        return items.stream().map(item -> {
-            ItemCarritoConImagenDTO dto = new ItemCarritoConImagenDTO();
-            Producto_Entity producto = item.getIdProducto();
-
-            // Datos del item
-            dto.setId(item.getId());
-            dto.setIdCarrito(carrito.getId());
-            dto.setCantidad(item.getCantidad());
-
-            // Datos del producto
-            dto.setIdProducto(producto.getId());
-            dto.setNombreProducto(producto.getNombre());
-            dto.setDescripcionProducto(producto.getDescripcion());
-            dto.setPrecioProducto(producto.getPrecio());
-            dto.setStockProducto(producto.getStock());
-            dto.setSkuProducto(producto.getSku());
-
-            // Calcular subtotal
-            BigDecimal subtotal = producto.getPrecio().multiply(new BigDecimal(item.getCantidad()));
-            dto.setSubtotal(subtotal);
-
-            // Obtener imagen de portada (orden = 1)
-            List<ProductoImg_Entity> imagenes = productoImgRepository.findByIdProductoOrderByOrdenAsc(producto);
-            if (!imagenes.isEmpty()) {
-                dto.setImagenPortada(imagenes.get(0).getUrlImagen());
-            } else {
-                dto.setImagenPortada(null);
-            }
+        List<ItemCarritoConImagenDTO> items = itemsCarritoRepository.findVistaByIdCarrito(idCarrito);
 
-            return dto;
-        }).collect(Collectors.toList());
+        int cantidadTotal = 0;
+        BigDecimal total = BigDecimal.ZERO;
+        for (ItemCarritoConImagenDTO item : items) {
+            cantidadTotal += item.getCantidad();
+            total = total.add(item.getSubtotal());
+        }
+        return new CarritoConImagenesDTO(idCarrito, items, cantidadTotal, total);
     }
 
     @Override
@@ -103,26 +150,260 @@ public class ItemsCarrito_Service_Impl implements ItemsCarrito_Service {
         if (itemCarrito.getCantidad() == null || itemCarrito.getCantidad() < 1) {
             itemCarrito.setCantidad(1);
         }
-        return itemsCarritoRepository.save(itemCarrito);
+        if (itemCarrito.getIdCarrito() == null || itemCarrito.getIdProducto() == null) {
+            throw new IllegalArgumentException("El carrito y el producto son obligatorios");
+        }
+        // Hay una línea por producto: añadir uno que ya está suma la cantidad
+        ItemCarritoConImagenDTO linea = agregarProducto(itemCarrito.getIdCarrito().getId(),
+                itemCarrito.getIdProducto().getId(), itemCarrito.getCantidad());
+        itemCarrito.setId(linea.getId());
+        itemCarrito.setCantidad(linea.getCantidad());
+        return itemCarrito;
     }
 
     @Override
     @Transactional
-    public ItemsCarrito_Entity updateItemCarrito(Long id, ItemsCarrito_Entity itemActualizado) {
-        ItemsCarrito_Entity item = itemsCarritoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Item de carrito no encontrado con id: " + id));
+    public ItemCarritoConImagenDTO agregarProducto(Long idCarrito, Long idProducto, Integer cantidad) {
+        int unidades = cantidad == null ? 1 : cantidad;
+        if (unidades < 1) {
+            throw new IllegalArgumentException("La cantidad debe ser al menos 1");
+        }
+        if (carritosEnMemoria.isHabilitado()) {
+            return carritosEnMemoria.agregar(idCarrito, idProducto, unidades);
+        }
+        if (!tocarCarrito(idCarrito)) {
+            throw new RuntimeException("Carrito no encontrado con id: " + idCarrito);
+        }
 
-        actualizarCampos(item, itemActualizado);
-        return itemsCarritoRepository.save(item);
+        if (fusionar(idCarrito, idProducto, unidades) == 0) {
+            // Sin cambios: o el producto no existe o no hay stock para la cantidad resultante
+            Integer stock = productoRepository.findById(idProducto)
+                    .map(Producto_Entity::getStock)
+                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + idProducto));
+            throw new IllegalStateException("Stock insuficiente para el producto con id: " + idProducto
+                    + " (disponible: " + stock + ")");
+        }
+        return itemsCarritoRepository.findVistaByIdCarritoAndIdProducto(idCarrito, idProducto)
+                .orElseThrow(() -> new RuntimeException("Item de carrito no encontrado tras el alta"));
+    }
+
+    @Override
+    public ItemsCarrito_Entity updateItemCarrito(Long id, ItemsCarrito_Entity itemActualizado, Long versionEsperada) {
+        volcarCarritoDelItem(id);
+        return ReintentosOptimistas.ejecutar(transactionManager, maximoReintentos, versionEsperada, () -> {
+            ItemsCarrito_Entity item = itemsCarritoRepository.findConRelacionesById(id)
+                    .orElseThrow(() -> new RuntimeException("Item de carrito no encontrado con id: " + id));
+            ReintentosOptimistas.comprobarVersion(versionEsperada, item.getVersion(), ItemsCarrito_Entity.class, id);
+
+            if (carritosEnMemoria.isHabilitado()) {
+                if (!mismaLinea(item, itemActualizado)) {
+                    // Mover la línea a otro carrito o producto es raro: se escribe directo y se recargan ambos carritos
+                    carritosEnMemoria.descartar(item.getIdCarrito().getId());
+                    if (itemActualizado.getIdCarrito() != null) {
+                        carritosEnMemoria.descartar(itemActualizado.getIdCarrito().getId());
+                    }
+                } else if (itemActualizado.getCantidad() != null) {
+                    carritosEnMemoria.fijarCantidad(item.getIdCarrito().getId(), item.getIdProducto().getId(),
+                            itemActualizado.getCantidad());
+                    // Copia fuera de la sesión: la fila la escribe el volcado, no el flush de esta transacción
+                    ItemsCarrito_Entity copia = new ItemsCarrito_Entity();
+                    copia.setId(item.getId());
+                    copia.setIdCarrito(item.getIdCarrito());
+                    copia.setIdProducto(item.getIdProducto());
+                    copia.setCantidad(itemActualizado.getCantidad());
+                    // La línea queda marcada y el próximo volcado la sube exactamente una versión
+                    copia.setVersion(item.getVersion() + 1);
+                    return copia;
+                } else {
+                    return item;
+                }
+            }
+
+            Long carritoAnterior = item.getIdCarrito().getId();
+            actualizarCampos(item, itemActualizado);
+            tocarCarrito(carritoAnterior);
+            if (!carritoAnterior.equals(item.getIdCarrito().getId())) {
+                tocarCarrito(item.getIdCarrito().getId());
+            }
+            return itemsCarritoRepository.save(item);
+        });
     }
 
     @Override
     @Transactional
     public void deleteItemCarrito(Long id) {
-        if (!itemsCarritoRepository.existsById(id)) {
-            throw new RuntimeException("Item de carrito no encontrado con id: " + id);
+        if (carritosEnMemoria.isHabilitado()) {
+            volcarCarritoDelItem(id);
+            ItemsCarrito_Entity item = itemsCarritoRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Item de carrito no encontrado con id: " + id));
+            carritosEnMemoria.fijarCantidad(item.getIdCarrito().getId(), item.getIdProducto().getId(), 0);
+            return;
+        }
+        ItemsCarrito_Entity item = itemsCarritoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Item de carrito no encontrado con id: " + id));
+        tocarCarrito(item.getIdCarrito().getId());
+        itemsCarritoRepository.delete(item);
+    }
+
+    @Override
+    @Transactional
+    public CarritoConImagenesDTO aplicarLote(Long idCarrito, List<OperacionCarritoDTO> operaciones) {
+        List<OperacionCarritoDTO> lote = normalizarLote(operaciones);
+        if (carritosEnMemoria.isHabilitado()) {
+            return carritosEnMemoria.aplicarLote(idCarrito, lote);
+        }
+        if (!tocarCarrito(idCarrito)) {
+            throw new RuntimeException("Carrito no encontrado con id: " + idCarrito);
         }
-        itemsCarritoRepository.deleteById(id);
+        Set<Long> idsProducto = lote.stream()
+                .filter(operacion -> !operacion.getOperacion().equals(TipoOperacionCarrito.ELIMINAR.getValor()))
+                .map(OperacionCarritoDTO::getIdProducto)
+                .collect(Collectors.toSet());
+        Set<Long> existentes = new HashSet<>(productoRepository.findIdsExistentes(idsProducto));
+        for (Long idProducto : idsProducto) {
+            if (!existentes.contains(idProducto)) {
+                throw new RuntimeException("Producto no encontrado con id: " + idProducto);
+            }
+        }
+
+        // Se reduce el lote a un cambio por producto respetando el orden: fijar/eliminar marcan una cantidad
+        // absoluta y lo que se agrega después se suma a ella
+        Map<Long, CambioLinea> cambios = new LinkedHashMap<>();
+        for (OperacionCarritoDTO operacion : lote) {
+            CambioLinea anterior = cambios.get(operacion.getIdProducto());
+            CambioLinea cambio = switch (TipoOperacionCarrito.desde(operacion.getOperacion())) {
+                case AGREGAR -> anterior == null
+                        ? new CambioLinea(null, operacion.getCantidad())
+                        : new CambioLinea(anterior.absoluta(), anterior.suma() + operacion.getCantidad());
+                case FIJAR -> new CambioLinea(operacion.getCantidad(), 0);
+                case ELIMINAR -> new CambioLinea(0, 0);
+            };
+            cambios.put(operacion.getIdProducto(), cambio);
+        }
+
+        List<Map.Entry<Long, CambioLinea>> eliminaciones = new ArrayList<>();
+        List<Map.Entry<Long, CambioLinea>> fijaciones = new ArrayList<>();
+        List<Map.Entry<Long, CambioLinea>> sumas = new ArrayList<>();
+        for (Map.Entry<Long, CambioLinea> cambio : cambios.entrySet()) {
+            CambioLinea linea = cambio.getValue();
+            if (linea.absoluta() == null) {
+                sumas.add(cambio);
+            } else if (linea.absoluta() + linea.suma() == 0) {
+                eliminaciones.add(cambio);
+            } else {
+                fijaciones.add(cambio);
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(SQL_ELIMINAR, eliminaciones, eliminaciones.size(), (sentencia, cambio) -> {
+                sentencia.setLong(1, idCarrito);
+                sentencia.setLong(2, cambio.getKey());
+            });
+            comprobarStock(fijaciones, jdbcTemplate.batchUpdate(SQL_FIJAR, fijaciones, fijaciones.size(),
+                    (sentencia, cambio) -> {
+                        int cantidad = cambio.getValue().absoluta() + cambio.getValue().suma();
+                        sentencia.setLong(1, cambio.getKey());
+                        sentencia.setLong(2, idCarrito);
+                        sentencia.setInt(3, cantidad);
+                        sentencia.setInt(4, cantidad);
+                        sentencia.setInt(5, cantidad);
+                        sentencia.setLong(6, idCarrito);
+                        sentencia.setInt(7, cantidad);
+                    }));
+            comprobarStock(sumas, jdbcTemplate.batchUpdate(SQL_AGREGAR, sumas, sumas.size(),
+                    (sentencia, cambio) -> {
+                        int unidades = cambio.getValue().suma();
+                        sentencia.setLong(1, cambio.getKey());
+                        sentencia.setLong(2, idCarrito);
+                        sentencia.setInt(3, unidades);
+                        sentencia.setInt(4, unidades);
+                        sentencia.setInt(5, unidades);
+                        sentencia.setLong(6, idCarrito);
+                        sentencia.setInt(7, unidades);
+                    }));
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("El carrito cambió mientras se aplicaba el lote; vuelva a intentarlo", e);
+        }
+        return getCarritoConImagenes(idCarrito);
+    }
+
+    private List<OperacionCarritoDTO> normalizarLote(List<OperacionCarritoDTO> operaciones) {
+        if (operaciones == null || operaciones.isEmpty()) {
+            throw new IllegalArgumentException("El lote no tiene operaciones");
+        }
+        if (operaciones.size() > maximoOperacionesLote) {
+            throw new IllegalArgumentException("Como máximo " + maximoOperacionesLote + " operaciones por lote");
+        }
+        List<OperacionCarritoDTO> lote = new ArrayList<>(operaciones.size());
+        for (OperacionCarritoDTO operacion : operaciones) {
+            TipoOperacionCarrito tipo = TipoOperacionCarrito.desde(operacion.getOperacion());
+            if (operacion.getIdProducto() == null) {
+                throw new IllegalArgumentException("Cada operación necesita idProducto");
+            }
+            Integer cantidad = switch (tipo) {
+                case AGREGAR -> operacion.getCantidad() == null ? 1 : operacion.getCantidad();
+                case FIJAR -> operacion.getCantidad();
+                case ELIMINAR -> 0;
+            };
+            if (cantidad == null || cantidad < (tipo == TipoOperacionCarrito.AGREGAR ? 1 : 0)) {
+                throw new IllegalArgumentException("Cantidad no válida para " + tipo.getValor() + ": " + operacion.getCantidad());
+            }
+            lote.add(new OperacionCarritoDTO(tipo.getValor(), operacion.getIdProducto(), cantidad));
+        }
+        return lote;
+    }
+
+    // Una fila sin cambios en el MERGE es un producto sin stock suficiente; la excepción revierte todo el lote
+    private void comprobarStock(List<Map.Entry<Long, CambioLinea>> cambios, int[][] filasAfectadas) {
+        int i = 0;
+        for (int[] lote : filasAfectadas) {
+            for (int filas : lote) {
+                if (filas == 0) {
+                    throw new IllegalStateException("Stock insuficiente para el producto con id: " + cambios.get(i).getKey());
+                }
+                i++;
+            }
+        }
+    }
+
+    private int fusionar(Long idCarrito, Long idProducto, int unidades) {
+        try {
+            return ejecutarMerge(idCarrito, idProducto, unidades);
+        } catch (DuplicateKeyException e) {
+            // Otra petición insertó la misma línea a la vez; ahora el MERGE la encuentra y suma
+            return ejecutarMerge(idCarrito, idProducto, unidades);
+        }
+    }
+
+    private int ejecutarMerge(Long idCarrito, Long idProducto, int unidades) {
+        return jdbcTemplate.update(SQL_AGREGAR, idProducto, idCarrito, unidades, unidades, unidades, idCarrito, unidades);
+    }
+
+    private boolean tocarCarrito(Long idCarrito) {
+        return jdbcTemplate.update(SQL_TOCAR, Timestamp.from(Instant.now()), idCarrito) > 0;
+    }
+
+    private boolean mismaLinea(ItemsCarrito_Entity actual, ItemsCarrito_Entity cambios) {
+        return (cambios.getIdCarrito() == null || cambios.getIdCarrito().getId().equals(actual.getIdCarrito().getId()))
+                && (cambios.getIdProducto() == null || cambios.getIdProducto().getId().equals(actual.getIdProducto().getId()));
+    }
+
+    // El listado completo abarca todos los carritos, así que vuelca todos los pendientes
+    private void volcarSiHabilitado() {
+        if (carritosEnMemoria.isHabilitado()) {
+            carritosEnMemoria.volcar();
+        }
+    }
+
+    // Una línea con id ya está en la base y no cambia de carrito en memoria: basta con volcar el suyo
+    private void volcarCarritoDelItem(Long id) {
+        if (carritosEnMemoria.isHabilitado()) {
+            itemsCarritoRepository.findIdCarritoById(id).ifPresent(carritosEnMemoria::volcar);
+        }
+    }
+
+    private record CambioLinea(Integer absoluta, int suma) {
     }
 
     private void actualizarCampos(ItemsCarrito_Entity destino, ItemsCarrito_Entity origen) {
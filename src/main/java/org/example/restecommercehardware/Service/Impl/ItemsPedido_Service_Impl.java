@@ -25,13 +25,13 @@ public class ItemsPedido_Service_Impl implements ItemsPedido_Service {
     @Override
     @Transactional(readOnly = true)
     public List<ItemsPedido_Entity> getAllItemsPedido() {
-        return itemsPedidoRepository.findAll();
+        return itemsPedidoRepository.findAllConRelacionesBy();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<ItemsPedido_Entity> getItemPedidoById(Long id) {
-        return itemsPedidoRepository.findById(id);
+        return itemsPedidoRepository.findConRelacionesById(id);
     }
 
     @Override
@@ -59,7 +59,7 @@ public class ItemsPedido_Service_Impl implements ItemsPedido_Service {
     @Override
     @Transactional
     public ItemsPedido_Entity updateItemPedido(Long id, ItemsPedido_Entity itemActualizado) {
-        ItemsPedido_Entity item = itemsPedidoRepository.findById(id)
+        ItemsPedido_Entity item = itemsPedidoRepository.findConRelacionesById(id)
                 .orElseThrow(() -> new RuntimeException("Item de pedido no encontrado con id: " + id));
 
         actualizarCampos(item, itemActualizado);
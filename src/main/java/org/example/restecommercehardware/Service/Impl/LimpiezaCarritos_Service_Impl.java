@@ -0,0 +1,211 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.restecommercehardware.DTOs.EstadisticasLimpiezaCarritosDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLimpiezaCarritosDTO;
+import org.example.restecommercehardware.Service.CarritosEnMemoria_Service;
+import org.example.restecommercehardware.Service.LimpiezaCarritos_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limpieza de carritos abandonados. Un carrito está abandonado cuando lleva
+ * más de {@code ttl} sin cambios (actualizado_en, o creado_en en filas
+ * anteriores a esa columna). Se borran con sus líneas en lotes de
+ * {@code tamano-lote}, cada uno en su propia transacción corta y con una
+ * pausa entre lotes, para no retener bloqueos frente al tráfico normal.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LimpiezaCarritos_Service_Impl implements LimpiezaCarritos_Service {
+
+    private static final String INACTIVO = "(actualizado_en < ? or (actualizado_en is null and creado_en < ?))";
+
+    private static final String SQL_CANDIDATOS = """
+            select id from dbo.carrito
+            where id > ? and %s
+            order by id
+            offset 0 rows fetch next ? rows only
+            """.formatted(INACTIVO);
+    // Bloquea los que siguen inactivos: una escritura concurrente espera y después ya no encuentra el carrito
+    private static final String SQL_BLOQUEAR = """
+            update dbo.carrito set version = version + 1
+            where id in (%s) and %s
+            """;
+    private static final String SQL_BLOQUEADOS = """
+            select id from dbo.carrito
+            where id in (%s) and %s
+            """;
+    private static final String SQL_ELIMINAR_ITEMS = """
+            delete from dbo.items_carrito where id_carrito in (%s)
+            """;
+    private static final String SQL_ELIMINAR_CARRITOS = """
+            delete from dbo.carrito where id in (%s)
+            """;
+
+    // SQL Server admite como máximo 2100 parámetros por sentencia
+    private static final int MAXIMO_IDS_POR_SENTENCIA = 2000;
+
+    private final CarritosEnMemoria_Service carritosEnMemoria;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${carrito.limpieza.habilitado:false}")
+    private boolean habilitado;
+
+    @Value("${carrito.limpieza.ttl:30d}")
+    private Duration ttl;
+
+    @Value("${carrito.limpieza.intervalo:1h}")
+    private Duration intervalo;
+
+    @Value("${carrito.limpieza.tamano-lote:500}")
+    private int tamanoLote;
+
+    @Value("${carrito.limpieza.pausa-entre-lotes:100ms}")
+    private Duration pausaEntreLotes;
+
+    private final ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "carritos-limpieza");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final LongAdder ejecuciones = new LongAdder();
+    private final LongAdder carritosEliminados = new LongAdder();
+    private final LongAdder itemsEliminados = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private volatile Instant ultimaEjecucion;
+    private volatile ResultadoLimpiezaCarritosDTO ultimoResultado;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        if (habilitado) {
+            long periodo = intervalo.toMillis();
+            ejecutor.scheduleWithFixedDelay(this::ejecutarLimpieza, periodo, periodo, TimeUnit.MILLISECONDS);
+            log.info("Limpieza de carritos activa; ttl {} cada {} ms", ttl, periodo);
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        // Interrumpe la pausa entre lotes; el lote en curso ya está confirmado o se revierte entero
+        ejecutor.shutdownNow();
+        ejecutor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized ResultadoLimpiezaCarritosDTO limpiar() {
+        long inicio = System.nanoTime();
+        // Los cambios que solo están en memoria también son actividad: se vuelcan antes de decidir
+        if (carritosEnMemoria.isHabilitado()) {
+            carritosEnMemoria.volcar();
+        }
+        Timestamp limite = Timestamp.from(Instant.now().minus(ttl));
+        int tamano = Math.max(1, Math.min(tamanoLote, MAXIMO_IDS_POR_SENTENCIA));
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        ResultadoLimpiezaCarritosDTO resultado = new ResultadoLimpiezaCarritosDTO();
+        long ultimoId = 0;
+        while (true) {
+            List<Long> candidatos = jdbcTemplate.queryForList(SQL_CANDIDATOS, Long.class,
+                    ultimoId, limite, limite, tamano);
+            if (candidatos.isEmpty()) {
+                break;
+            }
+            ultimoId = candidatos.get(candidatos.size() - 1);
+
+            List<Long> eliminados = transaccion.execute(estado -> eliminarLote(candidatos, limite, resultado));
+            eliminados.forEach(carritosEnMemoria::descartar);
+            resultado.setLotes(resultado.getLotes() + 1);
+
+            if (candidatos.size() < tamano || !pausar()) {
+                break;
+            }
+        }
+
+        resultado.setDuracionMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        ejecuciones.increment();
+        carritosEliminados.add(resultado.getCarritosEliminados());
+        itemsEliminados.add(resultado.getItemsEliminados());
+        ultimaEjecucion = Instant.now();
+        ultimoResultado = resultado;
+        return resultado;
+    }
+
+    @Override
+    public EstadisticasLimpiezaCarritosDTO getEstadisticas() {
+        return new EstadisticasLimpiezaCarritosDTO(habilitado, ttl.toString(), ejecuciones.sum(),
+                carritosEliminados.sum(), itemsEliminados.sum(), errores.sum(), ultimaEjecucion, ultimoResultado);
+    }
+
+    private void ejecutarLimpieza() {
+        try {
+            ResultadoLimpiezaCarritosDTO resultado = limpiar();
+            if (resultado.getCarritosEliminados() > 0) {
+                log.info("Limpieza de carritos: {} carritos y {} líneas eliminados en {} ms",
+                        resultado.getCarritosEliminados(), resultado.getItemsEliminados(), resultado.getDuracionMs());
+            }
+        } catch (RuntimeException e) {
+            errores.increment();
+            log.error("No se pudo completar la limpieza de carritos abandonados; se reintentará", e);
+        }
+    }
+
+    private List<Long> eliminarLote(List<Long> candidatos, Timestamp limite, ResultadoLimpiezaCarritosDTO resultado) {
+        String marcadores = String.join(", ", Collections.nCopies(candidatos.size(), "?"));
+        List<Object> parametros = new ArrayList<>(candidatos);
+        parametros.add(limite);
+        parametros.add(limite);
+
+        if (jdbcTemplate.update(SQL_BLOQUEAR.formatted(marcadores, INACTIVO), parametros.toArray()) == 0) {
+            return List.of();
+        }
+        List<Long> bloqueados = jdbcTemplate.queryForList(SQL_BLOQUEADOS.formatted(marcadores, INACTIVO),
+                Long.class, parametros.toArray());
+        if (bloqueados.isEmpty()) {
+            return bloqueados;
+        }
+
+        String marcadoresBloqueados = String.join(", ", Collections.nCopies(bloqueados.size(), "?"));
+        Object[] ids = bloqueados.toArray();
+        int items = jdbcTemplate.update(SQL_ELIMINAR_ITEMS.formatted(marcadoresBloqueados), ids);
+        int carritos = jdbcTemplate.update(SQL_ELIMINAR_CARRITOS.formatted(marcadoresBloqueados), ids);
+        resultado.setItemsEliminados(resultado.getItemsEliminados() + items);
+        resultado.setCarritosEliminados(resultado.getCarritosEliminados() + carritos);
+        return bloqueados;
+    }
+
+    // Devuelve false si el hilo se interrumpió (parada de la aplicación)
+    private boolean pausar() {
+        if (pausaEntreLotes.isZero() || pausaEntreLotes.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pausaEntreLotes.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Normaliza la lista de ids de una consulta por lotes: quita nulos y
+ * repetidos conservando el orden pedido y limita el tamaño, porque cada
+ * lote se resuelve con un único IN (SQL Server admite 2100 parámetros).
+ */
+final class LoteIds {
+
+    private LoteIds() {
+    }
+
+    static List<Long> normalizar(List<Long> ids, int maximo) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un id");
+        }
+        Set<Long> unicos = new LinkedHashSet<>();
+        ids.stream().filter(Objects::nonNull).forEach(unicos::add);
+        if (unicos.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un id");
+        }
+        if (unicos.size() > maximo) {
+            throw new IllegalArgumentException("Se admiten como máximo " + maximo + " ids por consulta");
+        }
+        return List.copyOf(unicos);
+    }
+}
@@ -1,9 +1,11 @@
 package org.example.restecommercehardware.Service.Impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
 import org.example.restecommercehardware.Mapper.Marca_Entity;
 import org.example.restecommercehardware.Repository.Marca_Repository;
 import org.example.restecommercehardware.Service.Marca_Service;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +17,7 @@ import java.util.Optional;
 public class Marca_Service_Impl implements Marca_Service {
 
     private final Marca_Repository marcaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional(readOnly = true)
@@ -53,7 +56,10 @@ public class Marca_Service_Impl implements Marca_Service {
         }
 
         actualizarCampos(marca, marcaActualizada);
-        return marcaRepository.save(marca);
+        Marca_Entity guardada = marcaRepository.save(marca);
+        // El nombre aparece en los listados, las facetas y el índice de búsqueda
+        eventPublisher.publishEvent(new CatalogoRecargadoEvent("marcas", 0));
+        return guardada;
     }
 
     @Override
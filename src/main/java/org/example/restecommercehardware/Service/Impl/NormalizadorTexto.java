@@ -0,0 +1,52 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización común para la búsqueda en memoria: minúsculas, sin acentos
+ * ("procesadór" -> "procesador") y separada en palabras alfanuméricas.
+ */
+final class NormalizadorTexto {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "de", "del", "la", "las", "el", "los", "y", "o", "en", "con", "para", "por", "un", "una", "al");
+
+    private NormalizadorTexto() {
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    // La intercalación por defecto de SQL Server no distingue mayúsculas: "abc-1" y "ABC-1" son el mismo SKU
+    static String claveSku(String sku) {
+        return sku.trim().toUpperCase(Locale.ROOT);
+    }
+
+    static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizar(texto))) {
+            if (!token.isEmpty() && !PALABRAS_VACIAS.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // "RTX-4090 OC" -> "rtx4090oc", para encontrar un SKU escrito sin guiones
+    static String compactar(String texto) {
+        return SEPARADORES.matcher(normalizar(texto)).replaceAll("");
+    }
+}
@@ -5,12 +5,17 @@ import org.example.restecommercehardware.Mapper.Pedido_Entity;
 import org.example.restecommercehardware.Mapper.Usuario_Entity;
 import org.example.restecommercehardware.Repository.Pedido_Repository;
 import org.example.restecommercehardware.Repository.Usuario_Repository;
+import org.example.restecommercehardware.Service.CamposParciales_Service;
 import org.example.restecommercehardware.Service.Pedido_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -19,17 +24,22 @@ public class Pedido_Service_Impl implements Pedido_Service {
 
     private final Pedido_Repository pedidoRepository;
     private final Usuario_Repository usuarioRepository;
+    private final CamposParciales_Service camposParcialesService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${concurrencia.maximo-reintentos:3}")
+    private int maximoReintentos;
 
     @Override
     @Transactional(readOnly = true)
     public List<Pedido_Entity> getAllPedidos() {
-        return pedidoRepository.findAll();
+        return pedidoRepository.findAllConRelacionesBy();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Pedido_Entity> getPedidoById(Long id) {
-        return pedidoRepository.findById(id);
+        return pedidoRepository.findConRelacionesById(id);
     }
 
     @Override
@@ -46,6 +56,36 @@ public class Pedido_Service_Impl implements Pedido_Service {
         return pedidoRepository.findByEstado(estado);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllPedidosParcial(String campos) {
+        return camposParcialesService.proyectar(Pedido_Entity.class, campos, null, Sort.by("id"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getPedidoParcialById(Long id, String campos) {
+        return camposParcialesService.proyectarUno(Pedido_Entity.class, campos,
+                (raiz, consulta, cb) -> cb.equal(raiz.get("id"), id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getPedidosParcialByUsuario(Long idUsuario, String campos) {
+        if (!usuarioRepository.existsById(idUsuario)) {
+            throw new RuntimeException("Usuario no encontrado con id: " + idUsuario);
+        }
+        return camposParcialesService.proyectar(Pedido_Entity.class, campos,
+                (raiz, consulta, cb) -> cb.equal(raiz.get("idUsuario").get("id"), idUsuario), Sort.by("id"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getPedidosParcialByEstado(String estado, String campos) {
+        return camposParcialesService.proyectar(Pedido_Entity.class, campos,
+                (raiz, consulta, cb) -> cb.equal(raiz.get("estado"), estado), Sort.by("id"));
+    }
+
     @Override
     @Transactional
     public Pedido_Entity createPedido(Pedido_Entity pedido) {
@@ -57,13 +97,15 @@ public class Pedido_Service_Impl implements Pedido_Service {
     }
 
     @Override
-    @Transactional
-    public Pedido_Entity updatePedido(Long id, Pedido_Entity pedidoActualizado) {
-        Pedido_Entity pedido = pedidoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Pedido no encontrado con id: " + id));
+    public Pedido_Entity updatePedido(Long id, Pedido_Entity pedidoActualizado, Long versionEsperada) {
+        return ReintentosOptimistas.ejecutar(transactionManager, maximoReintentos, versionEsperada, () -> {
+            Pedido_Entity pedido = pedidoRepository.findConRelacionesById(id)
+                    .orElseThrow(() -> new RuntimeException("Pedido no encontrado con id: " + id));
+            ReintentosOptimistas.comprobarVersion(versionEsperada, pedido.getVersion(), Pedido_Entity.class, id);
 
-        actualizarCampos(pedido, pedidoActualizado);
-        return pedidoRepository.save(pedido);
+            actualizarCampos(pedido, pedidoActualizado);
+            return pedidoRepository.save(pedido);
+        });
     }
 
     @Override
@@ -0,0 +1,146 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.restecommercehardware.DTOs.InstantaneaPortadaDTO;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Events.ResenaCambiadaEvent;
+import org.example.restecommercehardware.Service.PortadaProductos_Service;
+import org.example.restecommercehardware.Service.Producto_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Instantánea de /api/productos/portada serializada una sola vez. Los cambios
+ * de productos e imágenes programan una reconstrucción en segundo plano; las
+ * ráfagas de escrituras se agrupan en una sola y mientras tanto se sigue
+ * sirviendo la instantánea anterior.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortadaProductos_Service_Impl implements PortadaProductos_Service {
+
+    private final Producto_Service productoService;
+
+    @Value("${catalogo.portada.retraso-reconstruccion:250ms}")
+    private Duration retrasoReconstruccion;
+
+    private final ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+        Thread hilo = new Thread(tarea, "portada-productos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Hay una reconstrucción programada que aún no ha empezado
+    private final AtomicBoolean pendiente = new AtomicBoolean();
+
+    private volatile InstantaneaPortadaDTO instantanea;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        programarReconstruccion();
+    }
+
+    @TransactionalEventListener
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        programarReconstruccion();
+    }
+
+    @TransactionalEventListener
+    public void alCambiarResena(ResenaCambiadaEvent evento) {
+        programarReconstruccion();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecargarCatalogo(CatalogoRecargadoEvent evento) {
+        programarReconstruccion();
+    }
+
+    @Override
+    public InstantaneaPortadaDTO getInstantanea() {
+        InstantaneaPortadaDTO actual = instantanea;
+        if (actual != null) {
+            return actual;
+        }
+        // Solo antes de la primera reconstrucción: la petición espera a que termine
+        reconstruir();
+        return instantanea;
+    }
+
+    @Override
+    public void programarReconstruccion() {
+        if (pendiente.compareAndSet(false, true)) {
+            ejecutor.schedule(this::ejecutarReconstruccion, retrasoReconstruccion.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    private void ejecutarReconstruccion() {
+        // Se libera antes de leer, así un cambio durante la lectura programa otra pasada
+        pendiente.set(false);
+        try {
+            reconstruir();
+        } catch (RuntimeException e) {
+            log.error("No se pudo reconstruir la portada; se mantiene la instantánea anterior", e);
+        }
+    }
+
+    private synchronized void reconstruir() {
+        byte[] identidad = serializar();
+        InstantaneaPortadaDTO anterior = instantanea;
+        String hash = DigestUtils.md5DigestAsHex(identidad);
+        if (anterior != null && anterior.getEtagIdentidad().equals("\"portada-" + hash + "\"")) {
+            // Mismo contenido: se conservan ETag y Last-Modified para que los clientes sigan recibiendo 304
+            return;
+        }
+
+        instantanea = new InstantaneaPortadaDTO(identidad, comprimir(identidad),
+                "\"portada-" + hash + "\"", "\"portada-" + hash + "-gzip\"",
+                Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        log.info("Instantánea de portada reconstruida: {} bytes, {} en gzip",
+                identidad.length, instantanea.getGzip().length);
+    }
+
+    private byte[] serializar() {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(64 * 1024);
+        try {
+            productoService.escribirProductosConImagenPortada(salida);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    private byte[] comprimir(byte[] identidad) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(identidad.length / 4, 512));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(identidad);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+}
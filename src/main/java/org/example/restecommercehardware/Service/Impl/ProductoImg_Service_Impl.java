@@ -1,17 +1,26 @@
 package org.example.restecommercehardware.Service.Impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.ImagenProductoDTO;
+import org.example.restecommercehardware.DTOs.ImagenesProductoDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLoteDTO;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
 import org.example.restecommercehardware.Mapper.ProductoImg_Entity;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
 import org.example.restecommercehardware.Repository.ProductoImg_Repository;
 import org.example.restecommercehardware.Repository.Producto_Repository;
 import org.example.restecommercehardware.Service.FileStorageService;
 import org.example.restecommercehardware.Service.ProductoImg_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -21,17 +30,21 @@ public class ProductoImg_Service_Impl implements ProductoImg_Service {
     private final ProductoImg_Repository productoImgRepository;
     private final Producto_Repository productoRepository;
     private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalogo.lotes.maximo-ids:500}")
+    private int maximoIds;
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductoImg_Entity> getAllProductoImgs() {
-        return productoImgRepository.findAll();
+        return productoImgRepository.findAllConRelacionesBy();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<ProductoImg_Entity> getProductoImgById(Long id) {
-        return productoImgRepository.findById(id);
+        return productoImgRepository.findConRelacionesById(id);
     }
 
     @Override
@@ -42,6 +55,31 @@ public class ProductoImg_Service_Impl implements ProductoImg_Service {
         return productoImgRepository.findByIdProductoOrderByOrdenAsc(producto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ResultadoLoteDTO<ImagenesProductoDTO> getImagenesByProductos(List<Long> idsProducto) {
+        List<Long> ids = LoteIds.normalizar(idsProducto, maximoIds);
+        Map<Long, List<ImagenProductoDTO>> porProducto = new HashMap<>();
+        for (ImagenProductoDTO fila : productoImgRepository.findImagenesByIdProductoIn(ids)) {
+            List<ImagenProductoDTO> imagenes = porProducto.computeIfAbsent(fila.getIdProducto(), id -> new ArrayList<>());
+            if (fila.getId() != null) {
+                imagenes.add(fila);
+            }
+        }
+
+        List<ImagenesProductoDTO> contenido = new ArrayList<>(porProducto.size());
+        List<Long> noEncontrados = new ArrayList<>();
+        for (Long id : ids) {
+            List<ImagenProductoDTO> imagenes = porProducto.get(id);
+            if (imagenes == null) {
+                noEncontrados.add(id);
+            } else {
+                contenido.add(new ImagenesProductoDTO(id, imagenes));
+            }
+        }
+        return new ResultadoLoteDTO<>(contenido, noEncontrados);
+    }
+
     @Override
     @Transactional
     public ProductoImg_Entity createProductoImg(Long idProducto, MultipartFile file) {
@@ -63,13 +101,15 @@ public class ProductoImg_Service_Impl implements ProductoImg_Service {
                 imagenesExistentes.get(imagenesExistentes.size() - 1).getOrden() + 1;
         productoImg.setOrden(nuevoOrden);
 
-        return productoImgRepository.save(productoImg);
+        ProductoImg_Entity guardada = productoImgRepository.save(productoImg);
+        publicarCambio(idProducto);
+        return guardada;
     }
 
     @Override
     @Transactional
     public ProductoImg_Entity updateProductoImg(Long id, Integer nuevoOrden) {
-        ProductoImg_Entity productoImg = productoImgRepository.findById(id)
+        ProductoImg_Entity productoImg = productoImgRepository.findConRelacionesById(id)
                 .orElseThrow(() -> new RuntimeException("Imagen no encontrada con id: " + id));
 
         if (nuevoOrden == null || nuevoOrden < 1) {
@@ -77,7 +117,9 @@ public class ProductoImg_Service_Impl implements ProductoImg_Service {
         }
 
         productoImg.setOrden(nuevoOrden);
-        return productoImgRepository.save(productoImg);
+        ProductoImg_Entity guardada = productoImgRepository.save(productoImg);
+        publicarCambio(productoImg.getIdProducto().getId());
+        return guardada;
     }
 
     @Override
@@ -91,5 +133,11 @@ public class ProductoImg_Service_Impl implements ProductoImg_Service {
 
         // Eliminar registro de BD
         productoImgRepository.delete(productoImg);
+        publicarCambio(productoImg.getIdProducto().getId());
+    }
+
+    // La portada forma parte de los listados del catálogo
+    private void publicarCambio(Long idProducto) {
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(idProducto, ProductoCambiadoEvent.Tipo.ACTUALIZADO));
     }
 }
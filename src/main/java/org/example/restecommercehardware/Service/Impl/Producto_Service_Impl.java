@@ -1,68 +1,209 @@
 package org.example.restecommercehardware.Service.Impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.ClaveProductoDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasCacheDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasConsultasDTO;
+import org.example.restecommercehardware.DTOs.FiltroProductosDTO;
+import org.example.restecommercehardware.DTOs.OrdenCatalogo;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
 import org.example.restecommercehardware.DTOs.ProductoDetalleDTO;
+import org.example.restecommercehardware.DTOs.ProductoResumenDTO;
+import org.example.restecommercehardware.DTOs.ResultadoFiltroDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLoteDTO;
+import org.example.restecommercehardware.DTOs.ValoracionDTO;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
 import org.example.restecommercehardware.Mapper.Categoria_Entity;
 import org.example.restecommercehardware.Mapper.Marca_Entity;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
 import org.example.restecommercehardware.Repository.Categoria_Repository;
 import org.example.restecommercehardware.Repository.Marca_Repository;
 import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.BusquedaProductos_Service;
+import org.example.restecommercehardware.Service.CacheProductos_Service;
+import org.example.restecommercehardware.Service.CamposParciales_Service;
+import org.example.restecommercehardware.Service.FacetasProductos_Service;
 import org.example.restecommercehardware.Service.Producto_Service;
+import org.example.restecommercehardware.Service.ValoracionesProductos_Service;
+import org.example.restecommercehardware.Service.VersionCatalogo_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class Producto_Service_Impl implements Producto_Service {
 
+    private static final String ORDEN_RELEVANCIA = "relevancia";
+    private static final String ORDEN_FILTRO = "filtro";
+
     private final Producto_Repository productoRepository;
     private final Categoria_Repository categoriaRepository;
     private final Marca_Repository marcaRepository;
+    private final ObjectMapper objectMapper;
+    private final BusquedaProductos_Service busquedaProductosService;
+    private final FacetasProductos_Service facetasProductosService;
+    private final CacheProductos_Service cacheProductosService;
+    private final ValoracionesProductos_Service valoracionesService;
+    private final CamposParciales_Service camposParcialesService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final VersionCatalogo_Service versionCatalogoService;
+    private final ConsultasEnCurso consultasEnCurso = new ConsultasEnCurso();
+
+    @Value("${catalogo.paginacion.tamano-defecto:24}")
+    private int tamanoPorDefecto;
+
+    @Value("${catalogo.paginacion.tamano-maximo:100}")
+    private int tamanoMaximo;
+
+    @Value("${catalogo.lotes.maximo-ids:500}")
+    private int maximoIdsLote;
+
+    @Value("${concurrencia.maximo-reintentos:3}")
+    private int maximoReintentos;
 
     @Override
-    @Transactional(readOnly = true)
-    public List<Producto_Entity> getAllProductos() {
-        return productoRepository.findAll();
+    public PaginaDTO<ProductoResumenDTO> getAllProductos(String cursor, Integer tamano, OrdenCatalogo orden) {
+        return consultaCompartida(claveConsulta("listado", null, cursor, limitarTamano(tamano), orden),
+                () -> paginar(cursor, tamano, orden, listadoCompleto(orden)));
     }
 
+    // Misma ventana keyset que el listado completo; de cada fila solo se leen las columnas pedidas
     @Override
     @Transactional(readOnly = true)
+    public PaginaDTO<Map<String, Object>> getProductosParciales(String cursor, Integer tamano, OrdenCatalogo orden,
+                                                               String campos) {
+        return paginar(cursor, tamano, orden, listadoCompleto(orden), ids -> parcialesEnOrden(ids, campos));
+    }
+
+    @Override
     public Optional<Producto_Entity> getProductoById(Long id) {
-        return productoRepository.findById(id);
+        return cacheProductosService.buscarPorId(id);
     }
 
     @Override
     @Transactional(readOnly = true)
+    public ResultadoLoteDTO<ProductoResumenDTO> getProductosByIds(List<Long> ids) {
+        List<Long> pedidos = LoteIds.normalizar(ids, maximoIdsLote);
+        List<ProductoResumenDTO> contenido = resumenesEnOrden(pedidos);
+        Set<Long> encontrados = contenido.stream().map(ProductoResumenDTO::getId).collect(Collectors.toSet());
+        List<Long> noEncontrados = pedidos.stream().filter(id -> !encontrados.contains(id)).toList();
+        return new ResultadoLoteDTO<>(contenido, noEncontrados);
+    }
+
+    @Override
     public Optional<Producto_Entity> getProductoBySku(String sku) {
-        return productoRepository.findBySku(sku);
+        return cacheProductosService.buscarPorSku(sku);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Producto_Entity> getProductosByCategoria(Long idCategoria) {
-        Categoria_Entity categoria = categoriaRepository.findById(idCategoria)
-                .orElseThrow(() -> new RuntimeException("Categoría no encontrada con id: " + idCategoria));
-        return productoRepository.findByIdCategoria(categoria);
+    public Optional<Map<String, Object>> getProductoParcialById(Long id, String campos) {
+        return camposParcialesService.proyectarUno(Producto_Entity.class, campos,
+                (raiz, consulta, cb) -> cb.equal(raiz.get("id"), id));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Producto_Entity> getProductosByMarca(Long idMarca) {
-        Marca_Entity marca = marcaRepository.findById(idMarca)
-                .orElseThrow(() -> new RuntimeException("Marca no encontrada con id: " + idMarca));
-        return productoRepository.findByIdMarca(marca);
+    public Optional<Map<String, Object>> getProductoParcialBySku(String sku, String campos) {
+        return camposParcialesService.proyectarUno(Producto_Entity.class, campos,
+                (raiz, consulta, cb) -> cb.equal(raiz.get("sku"), sku));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Producto_Entity> searchProductosByNombre(String nombre) {
-        return productoRepository.findByNombreContainingIgnoreCase(nombre);
+    public ResultadoLoteDTO<Map<String, Object>> getProductosParcialesByIds(List<Long> ids, String campos) {
+        List<Long> pedidos = LoteIds.normalizar(ids, maximoIdsLote);
+        List<Map<String, Object>> contenido = parcialesEnOrden(pedidos, campos);
+        Set<Object> encontrados = contenido.stream().map(fila -> fila.get("id")).collect(Collectors.toSet());
+        List<Long> noEncontrados = pedidos.stream().filter(id -> !encontrados.contains(id)).toList();
+        return new ResultadoLoteDTO<>(contenido, noEncontrados);
+    }
+
+    @Override
+    public PaginaDTO<ProductoResumenDTO> getProductosByCategoria(Long idCategoria, String cursor, Integer tamano,
+                                                                 OrdenCatalogo orden) {
+        return consultaCompartida(claveConsulta("categoria", idCategoria, cursor, limitarTamano(tamano), orden), () -> {
+            Categoria_Entity categoria = categoriaRepository.findById(idCategoria)
+                    .orElseThrow(() -> new RuntimeException("Categoría no encontrada con id: " + idCategoria));
+            ConsultaKeyset consulta = orden == OrdenCatalogo.RECIENTES
+                    ? (posicion, sort, limite) -> productoRepository.findByIdCategoriaAndCreadoEnNotNull(
+                            categoria, posicion, sort, limite)
+                    : (posicion, sort, limite) -> productoRepository.findByIdCategoria(categoria, posicion, sort, limite);
+            return paginar(cursor, tamano, orden, consulta);
+        });
+    }
+
+    @Override
+    public PaginaDTO<ProductoResumenDTO> getProductosByMarca(Long idMarca, String cursor, Integer tamano,
+                                                             OrdenCatalogo orden) {
+        return consultaCompartida(claveConsulta("marca", idMarca, cursor, limitarTamano(tamano), orden), () -> {
+            Marca_Entity marca = marcaRepository.findById(idMarca)
+                    .orElseThrow(() -> new RuntimeException("Marca no encontrada con id: " + idMarca));
+            ConsultaKeyset consulta = orden == OrdenCatalogo.RECIENTES
+                    ? (posicion, sort, limite) -> productoRepository.findByIdMarcaAndCreadoEnNotNull(
+                            marca, posicion, sort, limite)
+                    : (posicion, sort, limite) -> productoRepository.findByIdMarca(marca, posicion, sort, limite);
+            return paginar(cursor, tamano, orden, consulta);
+        });
+    }
+
+    @Override
+    public PaginaDTO<ProductoResumenDTO> searchProductosByNombre(String nombre, String cursor, Integer tamano) {
+        int limite = limitarTamano(tamano);
+        // La búsqueda solo depende de los términos normalizados, no de mayúsculas, acentos o espacios
+        String terminos = String.join(" ", NormalizadorTexto.tokenizar(nombre));
+        return consultaCompartida(claveConsulta("busqueda", terminos, cursor, limite, null), () -> {
+            int desde = desplazamientoDesde(cursor, ORDEN_RELEVANCIA);
+
+            // Se pide uno de más para saber si hay otra página
+            List<Long> ids = busquedaProductosService.buscar(nombre, desde, limite + 1);
+            return paginaPorIds(ids, desde, limite, ORDEN_RELEVANCIA);
+        });
+    }
+
+    @Override
+    public ResultadoFiltroDTO<ProductoResumenDTO> filtrarProductos(FiltroProductosDTO filtro, String cursor,
+                                                                   Integer tamano) {
+        int limite = limitarTamano(tamano);
+        return consultaCompartida(claveConsulta("filtro", ClaveFiltro.desde(filtro), cursor, limite, null), () -> {
+            int desde = desplazamientoDesde(cursor, ORDEN_FILTRO);
+
+            ResultadoFiltroDTO<Long> resultado = facetasProductosService.filtrar(filtro, desde, limite + 1);
+            return new ResultadoFiltroDTO<>(
+                    paginaPorIds(resultado.getProductos().getContenido(), desde, limite, ORDEN_FILTRO),
+                    resultado.getTotal(),
+                    resultado.getCategorias(),
+                    resultado.getMarcas(),
+                    resultado.getRangosPrecio(),
+                    resultado.getDisponibilidad());
+        });
     }
 
     @Override
@@ -73,23 +214,29 @@ public class Producto_Service_Impl implements Producto_Service {
         }
         producto.setCreadoEn(Instant.now());
         producto.setActualizadoEn(Instant.now());
-        return productoRepository.save(producto);
+        Producto_Entity guardado = productoRepository.save(producto);
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(guardado.getId(), ProductoCambiadoEvent.Tipo.CREADO));
+        return guardado;
     }
 
     @Override
-    @Transactional
-    public Producto_Entity updateProducto(Long id, Producto_Entity productoActualizado) {
-        Producto_Entity producto = productoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + id));
+    public Producto_Entity updateProducto(Long id, Producto_Entity productoActualizado, Long versionEsperada) {
+        return ReintentosOptimistas.ejecutar(transactionManager, maximoReintentos, versionEsperada, () -> {
+            Producto_Entity producto = productoRepository.findConRelacionesById(id)
+                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + id));
+            ReintentosOptimistas.comprobarVersion(versionEsperada, producto.getVersion(), Producto_Entity.class, id);
 
-        if (productoActualizado.getSku() != null &&
-            !producto.getSku().equals(productoActualizado.getSku())) {
-            validarSkuUnico(productoActualizado.getSku());
-        }
+            if (productoActualizado.getSku() != null &&
+                !producto.getSku().equals(productoActualizado.getSku())) {
+                validarSkuUnico(productoActualizado.getSku());
+            }
 
-        actualizarCampos(producto, productoActualizado);
-        producto.setActualizadoEn(Instant.now());
-        return productoRepository.save(producto);
+            actualizarCampos(producto, productoActualizado);
+            producto.setActualizadoEn(Instant.now());
+            Producto_Entity guardado = productoRepository.save(producto);
+            eventPublisher.publishEvent(new ProductoCambiadoEvent(id, ProductoCambiadoEvent.Tipo.ACTUALIZADO));
+            return guardado;
+        });
     }
 
     @Override
@@ -99,28 +246,216 @@ public class Producto_Service_Impl implements Producto_Service {
             throw new RuntimeException("Producto no encontrado con id: " + id);
         }
         productoRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(id, ProductoCambiadoEvent.Tipo.ELIMINADO));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoDetalleDTO> getProductosConImagenPortada() {
-        List<Object[]> resultados = productoRepository.obtenerProductosConImagenPortada();
-
-        return resultados.stream()
-                .map(row -> new ProductoDetalleDTO(
-                        ((Number) row[0]).longValue(),  // id
-                        (String) row[1],                 // nombre
-                        (String) row[2],                 // descripcion
-                        row[3] != null ? ((Number) row[3]).doubleValue() : null,  // precio
-                        row[4] != null ? ((Number) row[4]).intValue() : null,     // stock
-                        (String) row[5],                 // sku
-                        (String) row[6],                 // imagen_portada
-                        row[7] != null ? ((Number) row[7]).longValue() : null,    // id_marca
-                        (String) row[8],                 // nombre_marca
-                        row[9] != null ? ((Number) row[9]).longValue() : null,    // id_categoria
-                        (String) row[10]                 // nombre_categoria
-                ))
-                .collect(Collectors.toList());
+    public void escribirProductosConImagenPortada(OutputStream salida) throws IOException {
+        // Cada fila se serializa en cuanto se lee, sin materializar la lista completa
+        try (Stream<ProductoDetalleDTO> productos = productoRepository.streamProductosConImagenPortada()) {
+            JsonGenerator generador = objectMapper.getFactory().createGenerator(salida);
+            generador.writeStartArray();
+            Iterator<ProductoDetalleDTO> iterador = productos.iterator();
+            while (iterador.hasNext()) {
+                ProductoDetalleDTO producto = iterador.next();
+                ValoracionDTO valoracion = valoracionesService.getValoracion(producto.getId());
+                producto.setCalificacionMedia(valoracion.getCalificacionMedia());
+                producto.setTotalResenas(valoracion.getTotalResenas());
+                generador.writeObject(producto);
+            }
+            generador.writeEndArray();
+            generador.flush();
+        }
+    }
+
+    private PaginaDTO<ProductoResumenDTO> paginar(String cursor, Integer tamano, OrdenCatalogo orden,
+                                                  ConsultaKeyset consulta) {
+        return paginar(cursor, tamano, orden, consulta, this::resumenesEnOrden);
+    }
+
+    // En "recientes" solo entran los productos con fecha de alta: una clave nula no puede continuar el cursor
+    private ConsultaKeyset listadoCompleto(OrdenCatalogo orden) {
+        return orden == OrdenCatalogo.RECIENTES ? productoRepository::findByCreadoEnNotNull : productoRepository::findAllBy;
+    }
+
+    private <T> PaginaDTO<T> paginar(String cursor, Integer tamano, OrdenCatalogo orden, ConsultaKeyset consulta,
+                                     Function<List<Long>, List<T>> cargarFilas) {
+        int limite = limitarTamano(tamano);
+        Window<ClaveProductoDTO> ventana = consulta.buscar(posicionDesde(cursor, orden), orden.getSort(), Limit.of(limite));
+
+        // La ventana solo trae las claves de orden; las filas se cargan después sin la descripción
+        List<ClaveProductoDTO> claves = ventana.getContent();
+        List<T> contenido = cargarFilas.apply(claves.stream().map(ClaveProductoDTO::getId).toList());
+        String siguienteCursor = ventana.hasNext() && !claves.isEmpty()
+                ? cursorDesde(claves.get(claves.size() - 1), orden)
+                : null;
+        return new PaginaDTO<>(contenido, siguienteCursor, siguienteCursor != null);
+    }
+
+    @Override
+    public List<EstadisticasCacheDTO> getEstadisticasCache() {
+        return cacheProductosService.getEstadisticas();
+    }
+
+    @Override
+    public EstadisticasConsultasDTO getEstadisticasConsultas() {
+        return consultasEnCurso.getEstadisticas("catalogo");
+    }
+
+    /*
+     * Las peticiones idénticas concurrentes comparten una sola carga. La transacción
+     * se abre dentro de la carga, así los hilos que esperan no ocupan conexión.
+     */
+    private <T> T consultaCompartida(ClaveConsulta clave, Supplier<T> carga) {
+        return consultasEnCurso.ejecutar(clave, () -> {
+            TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+            lectura.setReadOnly(true);
+            return lectura.execute(estado -> carga.get());
+        });
+    }
+
+    /*
+     * La versión del catálogo se lee antes de unirse a una carga: una carga empezada
+     * antes de un commit no se comparte con peticiones que ya han calculado el ETag
+     * posterior, así que nunca se sirve un cuerpo anterior con el ETag nuevo.
+     */
+    private ClaveConsulta claveConsulta(String tipo, Object valor, String cursor, int limite, OrdenCatalogo orden) {
+        return new ClaveConsulta(versionCatalogoService.getVersion(), tipo, valor, cursor, limite, orden);
+    }
+
+    private int desplazamientoDesde(String cursor, String orden) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        int desde;
+        try {
+            desde = Integer.parseInt(CursorKeyset.decodificar(cursor, orden).get(0));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        // Un cursor fabricado a mano no puede apuntar antes del primer resultado
+        if (desde < 0) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return desde;
+    }
+
+    // Carga los productos de una página de ids (con uno extra para saber si hay más) respetando su orden
+    private PaginaDTO<ProductoResumenDTO> paginaPorIds(List<Long> ids, int desde, int limite, String orden) {
+        boolean hayMas = ids.size() > limite;
+        List<Long> idsPagina = hayMas ? ids.subList(0, limite) : ids;
+
+        String siguienteCursor = hayMas ? CursorKeyset.codificar(orden, List.of(desde + limite)) : null;
+        return new PaginaDTO<>(resumenesEnOrden(idsPagina), siguienteCursor, hayMas);
+    }
+
+    // Carga las filas de listado de una página respetando el orden de los ids
+    private List<ProductoResumenDTO> resumenesEnOrden(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductoResumenDTO> porId = productoRepository.findResumenesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductoResumenDTO::getId, Function.identity()));
+        porId.values().forEach(resumen -> {
+            ValoracionDTO valoracion = valoracionesService.getValoracion(resumen.getId());
+            resumen.setCalificacionMedia(valoracion.getCalificacionMedia());
+            resumen.setTotalResenas(valoracion.getTotalResenas());
+        });
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // Proyección parcial de una lista de ids respetando su orden; la lista de campos se valida aunque esté vacía
+    private List<Map<String, Object>> parcialesEnOrden(List<Long> ids, String campos) {
+        Map<Object, Map<String, Object>> porId = camposParcialesService
+                .proyectar(Producto_Entity.class, campos, (raiz, consulta, cb) -> raiz.get("id").in(ids), Sort.unsorted())
+                .stream()
+                .collect(Collectors.toMap(fila -> fila.get("id"), Function.identity()));
+        return ids.stream().map(porId::get).filter(Objects::nonNull).toList();
+    }
+
+    private int limitarTamano(Integer tamano) {
+        return (tamano == null || tamano < 1) ? tamanoPorDefecto : Math.min(tamano, tamanoMaximo);
+    }
+
+    private ScrollPosition posicionDesde(String cursor, OrdenCatalogo orden) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        List<String> propiedades = orden.getSort().stream().map(Sort.Order::getProperty).toList();
+        List<String> valores = CursorKeyset.decodificar(cursor, orden.getValor());
+        if (valores.size() != propiedades.size()) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+
+        Map<String, Object> claves = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < propiedades.size(); i++) {
+                claves.put(propiedades.get(i), convertirClave(propiedades.get(i), valores.get(i)));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return ScrollPosition.forward(claves);
+    }
+
+    private String cursorDesde(ClaveProductoDTO ultimo, OrdenCatalogo orden) {
+        List<Object> valores = orden.getSort().stream()
+                .map(o -> valorClave(ultimo, o.getProperty()))
+                .toList();
+        return CursorKeyset.codificar(orden.getValor(), valores);
+    }
+
+    private Object valorClave(ClaveProductoDTO producto, String propiedad) {
+        return switch (propiedad) {
+            case "id" -> producto.getId();
+            case "precio" -> producto.getPrecio();
+            case "creadoEn" -> producto.getCreadoEn();
+            default -> throw new IllegalStateException("Propiedad de orden no soportada: " + propiedad);
+        };
+    }
+
+    private Object convertirClave(String propiedad, String valor) {
+        return switch (propiedad) {
+            case "id" -> Long.valueOf(valor);
+            case "precio" -> new BigDecimal(valor);
+            case "creadoEn" -> Instant.parse(valor);
+            default -> throw new IllegalStateException("Propiedad de orden no soportada: " + propiedad);
+        };
+    }
+
+    private record ClaveConsulta(long versionCatalogo, String tipo, Object valor, String cursor, int limite,
+                                 OrdenCatalogo orden) {
+        ClaveConsulta {
+            cursor = cursor == null || cursor.isBlank() ? null : cursor;
+        }
+    }
+
+    // El orden y los duplicados en los ids del filtro, o la escala de los precios, no cambian el resultado
+    private record ClaveFiltro(List<Long> categorias, List<Long> marcas, BigDecimal precioMin, BigDecimal precioMax,
+                               Boolean enStock) {
+        static ClaveFiltro desde(FiltroProductosDTO filtro) {
+            return new ClaveFiltro(normalizarIds(filtro.getCategorias()), normalizarIds(filtro.getMarcas()),
+                    normalizarPrecio(filtro.getPrecioMin()), normalizarPrecio(filtro.getPrecioMax()),
+                    filtro.getEnStock());
+        }
+
+        private static List<Long> normalizarIds(List<Long> ids) {
+            return ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        }
+
+        private static BigDecimal normalizarPrecio(BigDecimal precio) {
+            return precio == null ? null : precio.stripTrailingZeros();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConsultaKeyset {
+        Window<ClaveProductoDTO> buscar(ScrollPosition posicion, Sort sort, Limit limite);
     }
 
     private void validarSkuUnico(String sku) {
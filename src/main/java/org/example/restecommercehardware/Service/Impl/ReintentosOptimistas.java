@@ -0,0 +1,43 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Lectura-modificación-escritura sobre entidades con @Version. Cada intento
+ * va en su propia transacción; si otra escritura se adelanta se vuelve a leer
+ * y a aplicar el cambio. Con una versión esperada (If-Match) no se reintenta:
+ * el conflicto es del cliente y se le devuelve.
+ */
+final class ReintentosOptimistas {
+
+    private ReintentosOptimistas() {
+    }
+
+    static <T> T ejecutar(PlatformTransactionManager transactionManager, int maximoIntentos, Long versionEsperada,
+                          Supplier<T> accion) {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        // Dentro de una transacción ajena no se puede repetir: el fallo la deja marcada para rollback
+        boolean reintentar = versionEsperada == null && !TransactionSynchronizationManager.isActualTransactionActive();
+        for (int intento = 1; ; intento++) {
+            try {
+                return transaccion.execute(estado -> accion.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (!reintentar || intento >= maximoIntentos) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    static void comprobarVersion(Long versionEsperada, Long versionActual, Class<?> entidad, Object id) {
+        if (versionEsperada != null && !versionEsperada.equals(versionActual)) {
+            throw new ObjectOptimisticLockingFailureException(entidad, id);
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package org.example.restecommercehardware.Service.Impl;
 
 import lombok.RequiredArgsConstructor;
+import org.example.restecommercehardware.DTOs.ClaveResenaDTO;
+import org.example.restecommercehardware.DTOs.OrdenResenas;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ResenaResumenDTO;
+import org.example.restecommercehardware.Events.ResenaCambiadaEvent;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
 import org.example.restecommercehardware.Mapper.Resena_Entity;
 import org.example.restecommercehardware.Mapper.Usuario_Entity;
@@ -8,47 +13,85 @@ import org.example.restecommercehardware.Repository.Producto_Repository;
 import org.example.restecommercehardware.Repository.Resena_Repository;
 import org.example.restecommercehardware.Repository.Usuario_Repository;
 import org.example.restecommercehardware.Service.Resena_Service;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class Resena_Service_Impl implements Resena_Service {
 
+    private static final int CALIFICACION_MINIMA = 0;
+    private static final int CALIFICACION_MAXIMA = 5;
+
     private final Resena_Repository resenaRepository;
     private final Producto_Repository productoRepository;
     private final Usuario_Repository usuarioRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${catalogo.paginacion.tamano-defecto:24}")
+    private int tamanoPorDefecto;
+
+    @Value("${catalogo.paginacion.tamano-maximo:100}")
+    private int tamanoMaximo;
+
+    @Value("${catalogo.resenas.largo-extracto:280}")
+    private int largoExtracto;
 
     @Override
     @Transactional(readOnly = true)
     public List<Resena_Entity> getAllResenas() {
-        return resenaRepository.findAll();
+        return resenaRepository.findAllConRelacionesBy();
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<Resena_Entity> getResenaById(Long id) {
-        return resenaRepository.findById(id);
+        return resenaRepository.findConRelacionesById(id);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Resena_Entity> getResenasByProducto(Long idProducto) {
-        Producto_Entity producto = productoRepository.findById(idProducto)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado con id: " + idProducto));
-        return resenaRepository.findByIdProducto(producto);
+    public PaginaDTO<ResenaResumenDTO> getResenasByProducto(Long idProducto, String cursor, Integer tamano,
+                                                            OrdenResenas orden, Integer calificacionMin,
+                                                            Integer calificacionMax) {
+        if (!productoRepository.existsById(idProducto)) {
+            throw new RuntimeException("Producto no encontrado con id: " + idProducto);
+        }
+        Producto_Entity producto = productoRepository.getReferenceById(idProducto);
+        return paginar(cursor, tamano, orden, calificacionMin, calificacionMax,
+                (minima, maxima, posicion, sort, limite) -> resenaRepository
+                        .findByIdProductoAndCalificacionBetweenAndCreadoEnNotNull(
+                                producto, minima, maxima, posicion, sort, limite));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Resena_Entity> getResenasByUsuario(Long idUsuario) {
-        Usuario_Entity usuario = usuarioRepository.findById(idUsuario)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado con id: " + idUsuario));
-        return resenaRepository.findByIdUsuario(usuario);
+    public PaginaDTO<ResenaResumenDTO> getResenasByUsuario(Long idUsuario, String cursor, Integer tamano,
+                                                           OrdenResenas orden, Integer calificacionMin,
+                                                           Integer calificacionMax) {
+        if (!usuarioRepository.existsById(idUsuario)) {
+            throw new RuntimeException("Usuario no encontrado con id: " + idUsuario);
+        }
+        Usuario_Entity usuario = usuarioRepository.getReferenceById(idUsuario);
+        return paginar(cursor, tamano, orden, calificacionMin, calificacionMax,
+                (minima, maxima, posicion, sort, limite) -> resenaRepository
+                        .findByIdUsuarioAndCalificacionBetweenAndCreadoEnNotNull(
+                                usuario, minima, maxima, posicion, sort, limite));
     }
 
     @Override
@@ -62,34 +105,135 @@ public class Resena_Service_Impl implements Resena_Service {
     public Resena_Entity createResena(Resena_Entity resena) {
         validarCalificacion(resena.getCalificacion());
         resena.setCreadoEn(Instant.now());
-        return resenaRepository.save(resena);
+        Resena_Entity guardada = resenaRepository.save(resena);
+        eventPublisher.publishEvent(new ResenaCambiadaEvent(null, null,
+                idProducto(guardada.getIdProducto()), guardada.getCalificacion()));
+        return guardada;
     }
 
     @Override
     @Transactional
     public Resena_Entity updateResena(Long id, Resena_Entity resenaActualizada) {
-        Resena_Entity resena = resenaRepository.findById(id)
+        Resena_Entity resena = resenaRepository.findConRelacionesById(id)
                 .orElseThrow(() -> new RuntimeException("Reseña no encontrada con id: " + id));
 
         if (resenaActualizada.getCalificacion() != null) {
             validarCalificacion(resenaActualizada.getCalificacion());
         }
 
+        Long idProductoAnterior = idProducto(resena.getIdProducto());
+        Integer calificacionAnterior = resena.getCalificacion();
         actualizarCampos(resena, resenaActualizada);
-        return resenaRepository.save(resena);
+        Resena_Entity guardada = resenaRepository.save(resena);
+        eventPublisher.publishEvent(new ResenaCambiadaEvent(idProductoAnterior, calificacionAnterior,
+                idProducto(guardada.getIdProducto()), guardada.getCalificacion()));
+        return guardada;
     }
 
     @Override
     @Transactional
     public void deleteResena(Long id) {
-        if (!resenaRepository.existsById(id)) {
-            throw new RuntimeException("Reseña no encontrada con id: " + id);
+        Resena_Entity resena = resenaRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Reseña no encontrada con id: " + id));
+        resenaRepository.delete(resena);
+        eventPublisher.publishEvent(new ResenaCambiadaEvent(idProducto(resena.getIdProducto()),
+                resena.getCalificacion(), null, null));
+    }
+
+    private Long idProducto(Producto_Entity producto) {
+        return producto == null ? null : producto.getId();
+    }
+
+    private PaginaDTO<ResenaResumenDTO> paginar(String cursor, Integer tamano, OrdenResenas orden,
+                                                Integer calificacionMin, Integer calificacionMax,
+                                                ConsultaKeyset consulta) {
+        int minima = calificacionMin == null ? CALIFICACION_MINIMA : calificacionMin;
+        int maxima = calificacionMax == null ? CALIFICACION_MAXIMA : calificacionMax;
+        if (minima < CALIFICACION_MINIMA || maxima > CALIFICACION_MAXIMA || minima > maxima) {
+            throw new IllegalArgumentException("Rango de calificación inválido");
         }
-        resenaRepository.deleteById(id);
+
+        int limite = (tamano == null || tamano < 1) ? tamanoPorDefecto : Math.min(tamano, tamanoMaximo);
+        Window<ClaveResenaDTO> ventana = consulta.buscar(minima, maxima, posicionDesde(cursor, orden),
+                orden.getSort(), Limit.of(limite));
+
+        // La ventana solo trae las claves de orden; las filas se cargan después con el comentario recortado
+        List<ClaveResenaDTO> claves = ventana.getContent();
+        String siguienteCursor = ventana.hasNext() && !claves.isEmpty()
+                ? cursorDesde(claves.get(claves.size() - 1), orden)
+                : null;
+        return new PaginaDTO<>(resumenesEnOrden(claves), siguienteCursor, siguienteCursor != null);
+    }
+
+    private List<ResenaResumenDTO> resumenesEnOrden(List<ClaveResenaDTO> claves) {
+        if (claves.isEmpty()) {
+            return List.of();
+        }
+        // Se lee un carácter más del extracto para saber si el comentario sigue
+        Map<Long, ResenaResumenDTO> porId = resenaRepository
+                .findResumenesByIdIn(claves.stream().map(ClaveResenaDTO::getId).toList(), largoExtracto + 1).stream()
+                .collect(Collectors.toMap(ResenaResumenDTO::getId, Function.identity()));
+        porId.values().forEach(resumen -> {
+            if (resumen.getExtracto() != null && resumen.getExtracto().length() > largoExtracto) {
+                resumen.setExtracto(resumen.getExtracto().substring(0, largoExtracto));
+                resumen.setComentarioRecortado(true);
+            }
+        });
+        return claves.stream()
+                .map(clave -> porId.get(clave.getId()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private ScrollPosition posicionDesde(String cursor, OrdenResenas orden) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        List<String> propiedades = orden.getSort().stream().map(Sort.Order::getProperty).toList();
+        List<String> valores = CursorKeyset.decodificar(cursor, orden.getValor());
+        if (valores.size() != propiedades.size()) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+
+        Map<String, Object> claves = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < propiedades.size(); i++) {
+                claves.put(propiedades.get(i), convertirClave(propiedades.get(i), valores.get(i)));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return ScrollPosition.forward(claves);
+    }
+
+    private String cursorDesde(ClaveResenaDTO ultima, OrdenResenas orden) {
+        List<Object> valores = orden.getSort().stream()
+                .map(o -> valorClave(ultima, o.getProperty()))
+                .toList();
+        return CursorKeyset.codificar(orden.getValor(), valores);
+    }
+
+    private Object valorClave(ClaveResenaDTO resena, String propiedad) {
+        return switch (propiedad) {
+            case "id" -> resena.getId();
+            case "calificacion" -> resena.getCalificacion();
+            case "creadoEn" -> resena.getCreadoEn();
+            default -> throw new IllegalStateException("Propiedad de orden no soportada: " + propiedad);
+        };
+    }
+
+    private Object convertirClave(String propiedad, String valor) {
+        return switch (propiedad) {
+            case "id" -> Long.valueOf(valor);
+            case "calificacion" -> Integer.valueOf(valor);
+            case "creadoEn" -> Instant.parse(valor);
+            default -> throw new IllegalStateException("Propiedad de orden no soportada: " + propiedad);
+        };
     }
 
     private void validarCalificacion(Integer calificacion) {
-        if (calificacion != null && (calificacion < 0 || calificacion > 5)) {
+        if (calificacion != null && (calificacion < CALIFICACION_MINIMA || calificacion > CALIFICACION_MAXIMA)) {
             throw new RuntimeException("La calificación debe estar entre 0 y 5");
         }
     }
@@ -108,4 +252,10 @@ public class Resena_Service_Impl implements Resena_Service {
             destino.setComentario(origen.getComentario());
         }
     }
+
+    @FunctionalInterface
+    private interface ConsultaKeyset {
+        Window<ClaveResenaDTO> buscar(Integer minima, Integer maxima, ScrollPosition posicion, Sort sort,
+                                      Limit limite);
+    }
 }
@@ -0,0 +1,454 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.restecommercehardware.DTOs.SugerenciaDTO;
+import org.example.restecommercehardware.DTOs.VentasProductoDTO;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.ItemsPedido_Repository;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.example.restecommercehardware.Service.SugerenciasProductos_Service;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trie de prefijos comprimido (radix) para el autocompletado. Cada nodo
+ * guarda los mejores productos de su subárbol ordenados por popularidad,
+ * así que responder una sugerencia solo recorre los caracteres del prefijo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SugerenciasProductos_Service_Impl implements SugerenciasProductos_Service {
+
+    static final int MAX_SUGERENCIAS = 10;
+
+    // Nadie escribe más que esto en el buscador; acota la memoria de los nombres largos
+    private static final int MAX_LONGITUD_CLAVE = 40;
+
+    private static final long[] SIN_IDS = new long[0];
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+    private final Producto_Repository productoRepository;
+    private final ItemsPedido_Repository itemsPedidoRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CambiosDuranteReconstruccion cambios = new CambiosDuranteReconstruccion();
+
+    private Nodo raiz = new Nodo("");
+    private Map<Long, Entrada> entradas = new HashMap<>();
+    // La popularidad se conserva aunque el producto se reindexe
+    private Map<Long, Long> popularidad = new HashMap<>();
+
+    private final Comparator<Long> porPopularidad = Comparator
+            .comparingLong((Long id) -> entradas.get(id).popularidad).reversed()
+            .thenComparing(id -> entradas.get(id).nombre, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(Comparator.naturalOrder());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        reconstruir();
+    }
+
+    @Order(0)
+    @TransactionalEventListener
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        cambios.registrar(evento.getIdProducto());
+        if (evento.getTipo() == ProductoCambiadoEvent.Tipo.ELIMINADO) {
+            eliminarProducto(evento.getIdProducto());
+            return;
+        }
+        productoRepository.findById(evento.getIdProducto())
+                .ifPresentOrElse(this::indexarProducto, () -> eliminarProducto(evento.getIdProducto()));
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecargarCatalogo(CatalogoRecargadoEvent evento) {
+        reconstruir();
+    }
+
+    @Override
+    public void reconstruir() {
+        long generacion = cambios.comenzar();
+        try {
+            Map<Long, Long> ventas = new HashMap<>();
+            for (VentasProductoDTO venta : itemsPedidoRepository.sumarUnidadesVendidasPorProducto()) {
+                ventas.put(venta.getIdProducto(), venta.getUnidades());
+            }
+            List<Producto_Entity> productos = productoRepository.findAll();
+
+            lock.writeLock().lock();
+            try {
+                if (!cambios.sustituir(generacion)) {
+                    log.info("Reconstrucción del trie de sugerencias descartada: ya se aplicó una más reciente");
+                    return;
+                }
+                raiz = new Nodo("");
+                entradas = new HashMap<>();
+                popularidad = ventas;
+                // Se inserta todo y se calculan los tops una sola vez, de las hojas a la raíz
+                for (Producto_Entity producto : productos) {
+                    Entrada entrada = crearEntrada(producto);
+                    entradas.put(producto.getId(), entrada);
+                    for (String clave : entrada.claves) {
+                        insertarClave(clave, producto.getId());
+                    }
+                }
+                recalcularSubarbol(raiz);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // Los productos que cambiaron durante la lectura se releen sobre el trie nuevo
+            cambios.releerPendientes(this::releer);
+            log.info("Trie de sugerencias reconstruido con {} productos", productos.size());
+        } finally {
+            cambios.terminar();
+        }
+    }
+
+    @Override
+    public void indexarProducto(Producto_Entity producto) {
+        lock.writeLock().lock();
+        try {
+            retirar(producto.getId());
+            Entrada entrada = crearEntrada(producto);
+            entradas.put(producto.getId(), entrada);
+            for (String clave : entrada.claves) {
+                recalcular(insertarClave(clave, producto.getId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void eliminarProducto(Long idProducto) {
+        lock.writeLock().lock();
+        try {
+            retirar(idProducto);
+            popularidad.remove(idProducto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SugerenciaDTO> sugerir(String prefijo, int limite) {
+        int maximo = Math.min(Math.max(limite, 1), MAX_SUGERENCIAS);
+        String porPalabras = String.join(" ", NormalizadorTexto.tokenizar(prefijo));
+        String compacto = NormalizadorTexto.compactar(prefijo);
+        if (porPalabras.isEmpty() && compacto.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Long> ids = new LinkedHashSet<>();
+            agregarMejores(ids, buscarNodo(porPalabras));
+            if (!compacto.equals(porPalabras)) {
+                agregarMejores(ids, buscarNodo(compacto));
+            }
+
+            List<Long> ordenados = new ArrayList<>(ids);
+            ordenados.sort(porPopularidad);
+            return ordenados.stream()
+                    .limit(maximo)
+                    .map(id -> {
+                        Entrada entrada = entradas.get(id);
+                        return new SugerenciaDTO(id, entrada.nombre, entrada.sku);
+                    })
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void releer(List<Long> ids) {
+        Map<Long, Producto_Entity> actuales = new HashMap<>();
+        productoRepository.findAllById(ids).forEach(producto -> actuales.put(producto.getId(), producto));
+        for (Long id : ids) {
+            Producto_Entity producto = actuales.get(id);
+            if (producto != null) {
+                indexarProducto(producto);
+            } else {
+                eliminarProducto(id);
+            }
+        }
+    }
+
+    private void agregarMejores(Set<Long> ids, Nodo nodo) {
+        if (nodo != null) {
+            for (long id : nodo.mejores) {
+                ids.add(id);
+            }
+        }
+    }
+
+    // Devuelve el nodo cuyo subárbol contiene todas las claves que empiezan por el prefijo
+    private Nodo buscarNodo(String prefijo) {
+        if (prefijo.isEmpty()) {
+            return null;
+        }
+        Nodo nodo = raiz;
+        int pos = 0;
+        while (pos < prefijo.length()) {
+            int indice = indiceHijo(nodo, prefijo.charAt(pos));
+            if (indice < 0) {
+                return null;
+            }
+            Nodo hijo = nodo.hijos[indice];
+            int comun = prefijoComun(hijo.etiqueta, prefijo, pos);
+            if (pos + comun == prefijo.length()) {
+                return hijo;
+            }
+            if (comun < hijo.etiqueta.length()) {
+                return null;
+            }
+            pos += comun;
+            nodo = hijo;
+        }
+        return nodo;
+    }
+
+    // Inserta la clave partiendo aristas si hace falta; devuelve el camino desde la raíz
+    private List<Nodo> insertarClave(String clave, long id) {
+        List<Nodo> camino = new ArrayList<>();
+        Nodo nodo = raiz;
+        camino.add(nodo);
+        int pos = 0;
+        while (pos < clave.length()) {
+            int indice = indiceHijo(nodo, clave.charAt(pos));
+            if (indice < 0) {
+                Nodo hoja = new Nodo(clave.substring(pos));
+                agregarHijo(nodo, hoja);
+                camino.add(hoja);
+                nodo = hoja;
+                break;
+            }
+            Nodo hijo = nodo.hijos[indice];
+            int comun = prefijoComun(hijo.etiqueta, clave, pos);
+            if (comun < hijo.etiqueta.length()) {
+                Nodo intermedio = new Nodo(hijo.etiqueta.substring(0, comun));
+                hijo.etiqueta = hijo.etiqueta.substring(comun);
+                intermedio.hijos = new Nodo[]{hijo};
+                intermedio.mejores = hijo.mejores;
+                nodo.hijos[indice] = intermedio;
+                hijo = intermedio;
+            }
+            camino.add(hijo);
+            nodo = hijo;
+            pos += comun;
+        }
+        nodo.terminales = agregarId(nodo.terminales, id);
+        return camino;
+    }
+
+    private void retirar(Long idProducto) {
+        Entrada entrada = entradas.get(idProducto);
+        if (entrada == null) {
+            return;
+        }
+        // La entrada se borra al final porque el comparador todavía la consulta
+        for (String clave : entrada.claves) {
+            List<Nodo> camino = caminoExacto(clave);
+            if (camino == null) {
+                continue;
+            }
+            Nodo nodo = camino.get(camino.size() - 1);
+            nodo.terminales = quitarId(nodo.terminales, idProducto);
+            compactar(camino);
+            recalcular(camino);
+        }
+        entradas.remove(idProducto);
+    }
+
+    private List<Nodo> caminoExacto(String clave) {
+        List<Nodo> camino = new ArrayList<>();
+        Nodo nodo = raiz;
+        camino.add(nodo);
+        int pos = 0;
+        while (pos < clave.length()) {
+            int indice = indiceHijo(nodo, clave.charAt(pos));
+            if (indice < 0 || !clave.startsWith(nodo.hijos[indice].etiqueta, pos)) {
+                return null;
+            }
+            nodo = nodo.hijos[indice];
+            pos += nodo.etiqueta.length();
+            camino.add(nodo);
+        }
+        return camino;
+    }
+
+    // Quita los nodos vacíos y fusiona los que quedaron con un solo hijo
+    private void compactar(List<Nodo> camino) {
+        for (int i = camino.size() - 1; i > 0; i--) {
+            Nodo nodo = camino.get(i);
+            Nodo padre = camino.get(i - 1);
+            if (nodo.terminales.length > 0) {
+                continue;
+            }
+            if (nodo.hijos.length == 0) {
+                quitarHijo(padre, nodo);
+                camino.remove(i);
+            } else if (nodo.hijos.length == 1) {
+                Nodo unico = nodo.hijos[0];
+                unico.etiqueta = nodo.etiqueta + unico.etiqueta;
+                padre.hijos[indiceHijo(padre, unico.etiqueta.charAt(0))] = unico;
+                camino.set(i, unico);
+            }
+        }
+    }
+
+    private void recalcular(List<Nodo> camino) {
+        for (int i = camino.size() - 1; i >= 0; i--) {
+            calcularMejores(camino.get(i));
+        }
+    }
+
+    private void recalcularSubarbol(Nodo nodo) {
+        for (Nodo hijo : nodo.hijos) {
+            recalcularSubarbol(hijo);
+        }
+        calcularMejores(nodo);
+    }
+
+    private void calcularMejores(Nodo nodo) {
+        Set<Long> candidatos = new LinkedHashSet<>();
+        for (long id : nodo.terminales) {
+            candidatos.add(id);
+        }
+        for (Nodo hijo : nodo.hijos) {
+            for (long id : hijo.mejores) {
+                candidatos.add(id);
+            }
+        }
+        List<Long> ordenados = new ArrayList<>(candidatos);
+        ordenados.sort(porPopularidad);
+        int total = Math.min(ordenados.size(), MAX_SUGERENCIAS);
+        long[] mejores = new long[total];
+        for (int i = 0; i < total; i++) {
+            mejores[i] = ordenados.get(i);
+        }
+        nodo.mejores = mejores;
+    }
+
+    private Entrada crearEntrada(Producto_Entity producto) {
+        return new Entrada(producto.getNombre(), producto.getSku(),
+                popularidad.getOrDefault(producto.getId(), 0L), claves(producto));
+    }
+
+    // El nombre se indexa desde cada palabra para que "4090" complete "Tarjeta gráfica RTX 4090"
+    private Set<String> claves(Producto_Entity producto) {
+        Set<String> claves = new LinkedHashSet<>();
+        List<String> palabras = NormalizadorTexto.tokenizar(producto.getNombre());
+        for (int i = 0; i < palabras.size(); i++) {
+            claves.add(recortar(String.join(" ", palabras.subList(i, palabras.size()))));
+        }
+        if (producto.getSku() != null) {
+            String sku = NormalizadorTexto.compactar(producto.getSku());
+            if (!sku.isEmpty()) {
+                claves.add(recortar(sku));
+            }
+        }
+        return claves;
+    }
+
+    private static String recortar(String clave) {
+        return clave.length() > MAX_LONGITUD_CLAVE ? clave.substring(0, MAX_LONGITUD_CLAVE) : clave;
+    }
+
+    private static int prefijoComun(String etiqueta, String clave, int desde) {
+        int maximo = Math.min(etiqueta.length(), clave.length() - desde);
+        int i = 0;
+        while (i < maximo && etiqueta.charAt(i) == clave.charAt(desde + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    // Los hijos se mantienen ordenados por el primer carácter de su etiqueta
+    private static int indiceHijo(Nodo nodo, char c) {
+        int bajo = 0;
+        int alto = nodo.hijos.length - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            char actual = nodo.hijos[medio].etiqueta.charAt(0);
+            if (actual < c) {
+                bajo = medio + 1;
+            } else if (actual > c) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    private static void agregarHijo(Nodo padre, Nodo hijo) {
+        int posicion = -(indiceHijo(padre, hijo.etiqueta.charAt(0)) + 1);
+        Nodo[] hijos = new Nodo[padre.hijos.length + 1];
+        System.arraycopy(padre.hijos, 0, hijos, 0, posicion);
+        hijos[posicion] = hijo;
+        System.arraycopy(padre.hijos, posicion, hijos, posicion + 1, padre.hijos.length - posicion);
+        padre.hijos = hijos;
+    }
+
+    private static void quitarHijo(Nodo padre, Nodo hijo) {
+        int posicion = indiceHijo(padre, hijo.etiqueta.charAt(0));
+        if (posicion < 0) {
+            return;
+        }
+        Nodo[] hijos = padre.hijos.length == 1 ? SIN_HIJOS : new Nodo[padre.hijos.length - 1];
+        System.arraycopy(padre.hijos, 0, hijos, 0, posicion);
+        System.arraycopy(padre.hijos, posicion + 1, hijos, posicion, padre.hijos.length - posicion - 1);
+        padre.hijos = hijos;
+    }
+
+    private static long[] agregarId(long[] ids, long id) {
+        for (long actual : ids) {
+            if (actual == id) {
+                return ids;
+            }
+        }
+        long[] resultado = Arrays.copyOf(ids, ids.length + 1);
+        resultado[ids.length] = id;
+        return resultado;
+    }
+
+    private static long[] quitarId(long[] ids, long id) {
+        long[] resultado = Arrays.stream(ids).filter(actual -> actual != id).toArray();
+        return resultado.length == 0 ? SIN_IDS : resultado;
+    }
+
+    private static final class Nodo {
+        private String etiqueta;
+        private Nodo[] hijos = SIN_HIJOS;
+        private long[] terminales = SIN_IDS;
+        private long[] mejores = SIN_IDS;
+
+        private Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    private record Entrada(String nombre, String sku, long popularidad, Set<String> claves) {
+    }
+}
@@ -5,13 +5,16 @@ import org.example.restecommercehardware.DTOs.LoginRequestDTO;
 import org.example.restecommercehardware.DTOs.LoginResponseDTO;
 import org.example.restecommercehardware.Mapper.Usuario_Entity;
 import org.example.restecommercehardware.Repository.Usuario_Repository;
+import org.example.restecommercehardware.Service.CamposParciales_Service;
 import org.example.restecommercehardware.Service.Usuario_Service;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,6 +23,7 @@ public class Usuario_Service_Impl implements Usuario_Service {
 
     private final Usuario_Repository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CamposParciales_Service camposParcialesService;
 
     @Override
     @Transactional(readOnly = true)
@@ -39,6 +43,26 @@ public class Usuario_Service_Impl implements Usuario_Service {
         return usuarioRepository.findByCorreoElectronico(correoElectronico);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getAllUsuariosParcial(String campos) {
+        return camposParcialesService.proyectar(Usuario_Entity.class, campos, null, Sort.by("id"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getUsuarioParcialById(Long id, String campos) {
+        return camposParcialesService.proyectarUno(Usuario_Entity.class, campos,
+                (raiz, consulta, cb) -> cb.equal(raiz.get("id"), id));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> getUsuarioParcialByEmail(String correoElectronico, String campos) {
+        return camposParcialesService.proyectarUno(Usuario_Entity.class, campos,
+                (raiz, consulta, cb) -> cb.equal(raiz.get("correoElectronico"), correoElectronico));
+    }
+
     @Override
     @Transactional
     public Usuario_Entity createUsuario(Usuario_Entity usuario) {
@@ -0,0 +1,162 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.restecommercehardware.DTOs.CalificacionesProductoDTO;
+import org.example.restecommercehardware.DTOs.ValoracionDTO;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Events.ResenaCambiadaEvent;
+import org.example.restecommercehardware.Repository.Resena_Repository;
+import org.example.restecommercehardware.Service.ValoracionesProductos_Service;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recuento de reseñas por producto y calificación, en memoria. Se carga al
+ * arrancar con una consulta agrupada (sin leer comentarios) y después se
+ * ajusta con cada alta, cambio o baja de reseña, así la media y el
+ * histograma de un producto cuestan lo mismo tenga 2 reseñas o 20.000.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ValoracionesProductos_Service_Impl implements ValoracionesProductos_Service {
+
+    private static final int CALIFICACION_MAXIMA = 5;
+
+    private final Resena_Repository resenaRepository;
+
+    private final CambiosDuranteReconstruccion cambios = new CambiosDuranteReconstruccion();
+    private final Object sustitucion = new Object();
+
+    private volatile Map<Long, Recuento> recuentos = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        reconstruir();
+    }
+
+    @Order(0)
+    @TransactionalEventListener
+    public void alCambiarResena(ResenaCambiadaEvent evento) {
+        cambios.registrar(evento.getIdProductoAnterior());
+        cambios.registrar(evento.getIdProductoNuevo());
+        if (esValida(evento.getIdProductoAnterior(), evento.getCalificacionAnterior())) {
+            Recuento recuento = recuentos.get(evento.getIdProductoAnterior());
+            if (recuento != null) {
+                recuento.sumar(evento.getCalificacionAnterior(), -1);
+            }
+        }
+        if (esValida(evento.getIdProductoNuevo(), evento.getCalificacionNueva())) {
+            recuentos.computeIfAbsent(evento.getIdProductoNuevo(), id -> new Recuento())
+                    .sumar(evento.getCalificacionNueva(), 1);
+        }
+    }
+
+    @Order(0)
+    @TransactionalEventListener
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        if (evento.getTipo() == ProductoCambiadoEvent.Tipo.ELIMINADO) {
+            cambios.registrar(evento.getIdProducto());
+            recuentos.remove(evento.getIdProducto());
+        }
+    }
+
+    /*
+     * Los cambios de reseña se aplican como sumas y restas, que no pueden repetirse
+     * sin contar dos veces. Por eso, tras sustituir el mapa, los productos tocados
+     * durante la lectura se vuelven a contar en la base en vez de reaplicar el evento.
+     */
+    @Override
+    public void reconstruir() {
+        long generacion = cambios.comenzar();
+        try {
+            Map<Long, Recuento> nuevos = agrupar(resenaRepository.contarPorProductoYCalificacion());
+            synchronized (sustitucion) {
+                if (!cambios.sustituir(generacion)) {
+                    log.info("Recarga de valoraciones descartada: ya se aplicó una más reciente");
+                    return;
+                }
+                recuentos = nuevos;
+            }
+            cambios.releerPendientes(this::recontar);
+            log.info("Valoraciones cargadas para {} productos", nuevos.size());
+        } finally {
+            cambios.terminar();
+        }
+    }
+
+    @Override
+    public ValoracionDTO getValoracion(Long idProducto) {
+        long[] histograma = new long[CALIFICACION_MAXIMA + 1];
+        Recuento recuento = recuentos.get(idProducto);
+        if (recuento != null) {
+            recuento.copiar(histograma);
+        }
+
+        long total = 0;
+        long suma = 0;
+        for (int calificacion = 0; calificacion <= CALIFICACION_MAXIMA; calificacion++) {
+            total += histograma[calificacion];
+            suma += histograma[calificacion] * calificacion;
+        }
+        return new ValoracionDTO(idProducto, total, suma, media(suma, total), histograma);
+    }
+
+    private void recontar(List<Long> idsProducto) {
+        Map<Long, Recuento> contados = agrupar(resenaRepository.contarPorCalificacionDeProductos(idsProducto));
+        for (Long idProducto : idsProducto) {
+            Recuento recuento = contados.get(idProducto);
+            if (recuento != null) {
+                recuentos.put(idProducto, recuento);
+            } else {
+                recuentos.remove(idProducto);
+            }
+        }
+    }
+
+    private static Map<Long, Recuento> agrupar(List<CalificacionesProductoDTO> filas) {
+        Map<Long, Recuento> agrupados = new ConcurrentHashMap<>();
+        for (CalificacionesProductoDTO fila : filas) {
+            if (esValida(fila.getIdProducto(), fila.getCalificacion())) {
+                agrupados.computeIfAbsent(fila.getIdProducto(), id -> new Recuento())
+                        .sumar(fila.getCalificacion(), fila.getTotal());
+            }
+        }
+        return agrupados;
+    }
+
+    private static boolean esValida(Long idProducto, Integer calificacion) {
+        return idProducto != null && calificacion != null
+                && calificacion >= 0 && calificacion <= CALIFICACION_MAXIMA;
+    }
+
+    // Media redondeada a dos decimales; null si el producto no tiene reseñas
+    private static Double media(long suma, long total) {
+        return total <= 0 ? null : Math.round(suma * 100.0 / total) / 100.0;
+    }
+
+    // Un contador atómico por calificación; las escrituras de productos distintos no compiten entre sí
+    private static final class Recuento {
+
+        private final AtomicLongArray porCalificacion = new AtomicLongArray(CALIFICACION_MAXIMA + 1);
+
+        void sumar(int calificacion, long cantidad) {
+            porCalificacion.addAndGet(calificacion, cantidad);
+        }
+
+        void copiar(long[] destino) {
+            for (int calificacion = 0; calificacion <= CALIFICACION_MAXIMA; calificacion++) {
+                destino[calificacion] = Math.max(porCalificacion.get(calificacion), 0);
+            }
+        }
+    }
+}
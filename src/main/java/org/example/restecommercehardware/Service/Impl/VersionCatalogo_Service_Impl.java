@@ -0,0 +1,72 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Events.ResenaCambiadaEvent;
+import org.example.restecommercehardware.Service.VersionCatalogo_Service;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Versión global del catálogo para las peticiones condicionales (ETag /
+ * Last-Modified). Avanza tras el commit de cualquier cambio de producto y
+ * después de que la caché y los índices en memoria se hayan actualizado, así
+ * que un ETag nuevo nunca se sirve con datos anteriores.
+ */
+@Service
+public class VersionCatalogo_Service_Impl implements VersionCatalogo_Service {
+
+    // Distingue los ETag de cada arranque, ya que el contador vive en memoria
+    private final long arranque = System.currentTimeMillis();
+
+    private volatile Estado estado = new Estado(0, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        incrementar();
+    }
+
+    // Los listados incluyen la valoración media y el número de reseñas
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener
+    public void alCambiarResena(ResenaCambiadaEvent evento) {
+        incrementar();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alRecargarCatalogo(CatalogoRecargadoEvent evento) {
+        incrementar();
+    }
+
+    @Override
+    public long getVersion() {
+        return estado.version();
+    }
+
+    @Override
+    public String getEtag() {
+        return "\"catalogo-" + Long.toString(arranque, 36) + "-" + estado.version() + "\"";
+    }
+
+    @Override
+    public Instant getUltimaModificacion() {
+        return estado.ultimaModificacion();
+    }
+
+    private synchronized void incrementar() {
+        // Last-Modified tiene resolución de segundos; nunca retrocede aunque haya varios cambios por segundo
+        Instant ahora = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Instant anterior = estado.ultimaModificacion();
+        estado = new Estado(estado.version() + 1, ahora.isAfter(anterior) ? ahora : anterior);
+    }
+
+    private record Estado(long version, Instant ultimaModificacion) {
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.FormatoImportacion;
+import org.example.restecommercehardware.DTOs.ResultadoImportacionDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ImportacionProductos_Service {
+    ResultadoImportacionDTO importar(InputStream entrada, FormatoImportacion formato) throws IOException;
+}
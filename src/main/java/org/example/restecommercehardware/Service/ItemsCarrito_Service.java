@@ -1,6 +1,8 @@
 package org.example.restecommercehardware.Service;
 
+import org.example.restecommercehardware.DTOs.CarritoConImagenesDTO;
 import org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO;
+import org.example.restecommercehardware.DTOs.OperacionCarritoDTO;
 import org.example.restecommercehardware.Mapper.ItemsCarrito_Entity;
 
 import java.util.List;
@@ -10,10 +12,12 @@ public interface ItemsCarrito_Service {
     List<ItemsCarrito_Entity> getAllItemsCarrito();
     Optional<ItemsCarrito_Entity> getItemCarritoById(Long id);
     List<ItemsCarrito_Entity> getItemsByCarrito(Long idCarrito);
-    List<ItemCarritoConImagenDTO> getItemsByCarritoConImagen(Long idCarrito);
+    CarritoConImagenesDTO getCarritoConImagenes(Long idCarrito);
     List<ItemsCarrito_Entity> getItemsByProducto(Long idProducto);
     ItemsCarrito_Entity createItemCarrito(ItemsCarrito_Entity itemCarrito);
-    ItemsCarrito_Entity updateItemCarrito(Long id, ItemsCarrito_Entity itemCarrito);
+    ItemCarritoConImagenDTO agregarProducto(Long idCarrito, Long idProducto, Integer cantidad);
+    CarritoConImagenesDTO aplicarLote(Long idCarrito, List<OperacionCarritoDTO> operaciones);
+    ItemsCarrito_Entity updateItemCarrito(Long id, ItemsCarrito_Entity itemCarrito, Long versionEsperada);
     void deleteItemCarrito(Long id);
 }
 
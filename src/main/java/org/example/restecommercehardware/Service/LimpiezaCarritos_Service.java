@@ -0,0 +1,9 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.EstadisticasLimpiezaCarritosDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLimpiezaCarritosDTO;
+
+public interface LimpiezaCarritos_Service {
+    ResultadoLimpiezaCarritosDTO limpiar();
+    EstadisticasLimpiezaCarritosDTO getEstadisticas();
+}
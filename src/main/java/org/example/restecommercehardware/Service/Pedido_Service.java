@@ -3,6 +3,7 @@ package org.example.restecommercehardware.Service;
 import org.example.restecommercehardware.Mapper.Pedido_Entity;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface Pedido_Service {
@@ -10,8 +11,12 @@ public interface Pedido_Service {
     Optional<Pedido_Entity> getPedidoById(Long id);
     List<Pedido_Entity> getPedidosByUsuario(Long idUsuario);
     List<Pedido_Entity> getPedidosByEstado(String estado);
+    List<Map<String, Object>> getAllPedidosParcial(String campos);
+    Optional<Map<String, Object>> getPedidoParcialById(Long id, String campos);
+    List<Map<String, Object>> getPedidosParcialByUsuario(Long idUsuario, String campos);
+    List<Map<String, Object>> getPedidosParcialByEstado(String estado, String campos);
     Pedido_Entity createPedido(Pedido_Entity pedido);
-    Pedido_Entity updatePedido(Long id, Pedido_Entity pedido);
+    Pedido_Entity updatePedido(Long id, Pedido_Entity pedido, Long versionEsperada);
     void deletePedido(Long id);
 }
 
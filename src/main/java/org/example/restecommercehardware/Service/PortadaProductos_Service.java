@@ -0,0 +1,8 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.InstantaneaPortadaDTO;
+
+public interface PortadaProductos_Service {
+    InstantaneaPortadaDTO getInstantanea();
+    void programarReconstruccion();
+}
@@ -1,5 +1,7 @@
 package org.example.restecommercehardware.Service;
 
+import org.example.restecommercehardware.DTOs.ImagenesProductoDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLoteDTO;
 import org.example.restecommercehardware.Mapper.ProductoImg_Entity;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -10,6 +12,7 @@ public interface ProductoImg_Service {
     List<ProductoImg_Entity> getAllProductoImgs();
     Optional<ProductoImg_Entity> getProductoImgById(Long id);
     List<ProductoImg_Entity> getImagenesByProducto(Long idProducto);
+    ResultadoLoteDTO<ImagenesProductoDTO> getImagenesByProductos(List<Long> idsProducto);
     ProductoImg_Entity createProductoImg(Long idProducto, MultipartFile file);
     ProductoImg_Entity updateProductoImg(Long id, Integer nuevoOrden);
     void deleteProductoImg(Long id);
@@ -1,21 +1,40 @@
 package org.example.restecommercehardware.Service;
 
-import org.example.restecommercehardware.DTOs.ProductoDetalleDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasCacheDTO;
+import org.example.restecommercehardware.DTOs.EstadisticasConsultasDTO;
+import org.example.restecommercehardware.DTOs.FiltroProductosDTO;
+import org.example.restecommercehardware.DTOs.OrdenCatalogo;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ProductoResumenDTO;
+import org.example.restecommercehardware.DTOs.ResultadoFiltroDTO;
+import org.example.restecommercehardware.DTOs.ResultadoLoteDTO;
 import org.example.restecommercehardware.Mapper.Producto_Entity;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface Producto_Service {
-    List<Producto_Entity> getAllProductos();
+    PaginaDTO<ProductoResumenDTO> getAllProductos(String cursor, Integer tamano, OrdenCatalogo orden);
+    PaginaDTO<Map<String, Object>> getProductosParciales(String cursor, Integer tamano, OrdenCatalogo orden,
+                                                         String campos);
     Optional<Producto_Entity> getProductoById(Long id);
+    ResultadoLoteDTO<ProductoResumenDTO> getProductosByIds(List<Long> ids);
     Optional<Producto_Entity> getProductoBySku(String sku);
-    List<Producto_Entity> getProductosByCategoria(Long idCategoria);
-    List<Producto_Entity> getProductosByMarca(Long idMarca);
-    List<Producto_Entity> searchProductosByNombre(String nombre);
+    Optional<Map<String, Object>> getProductoParcialById(Long id, String campos);
+    Optional<Map<String, Object>> getProductoParcialBySku(String sku, String campos);
+    ResultadoLoteDTO<Map<String, Object>> getProductosParcialesByIds(List<Long> ids, String campos);
+    PaginaDTO<ProductoResumenDTO> getProductosByCategoria(Long idCategoria, String cursor, Integer tamano, OrdenCatalogo orden);
+    PaginaDTO<ProductoResumenDTO> getProductosByMarca(Long idMarca, String cursor, Integer tamano, OrdenCatalogo orden);
+    PaginaDTO<ProductoResumenDTO> searchProductosByNombre(String nombre, String cursor, Integer tamano);
+    ResultadoFiltroDTO<ProductoResumenDTO> filtrarProductos(FiltroProductosDTO filtro, String cursor, Integer tamano);
     Producto_Entity createProducto(Producto_Entity producto);
-    Producto_Entity updateProducto(Long id, Producto_Entity producto);
+    Producto_Entity updateProducto(Long id, Producto_Entity producto, Long versionEsperada);
     void deleteProducto(Long id);
-    List<ProductoDetalleDTO> getProductosConImagenPortada();
+    void escribirProductosConImagenPortada(OutputStream salida) throws IOException;
+    List<EstadisticasCacheDTO> getEstadisticasCache();
+    EstadisticasConsultasDTO getEstadisticasConsultas();
 }
 
@@ -1,5 +1,8 @@
 package org.example.restecommercehardware.Service;
 
+import org.example.restecommercehardware.DTOs.OrdenResenas;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ResenaResumenDTO;
 import org.example.restecommercehardware.Mapper.Resena_Entity;
 
 import java.util.List;
@@ -8,8 +11,12 @@ import java.util.Optional;
 public interface Resena_Service {
     List<Resena_Entity> getAllResenas();
     Optional<Resena_Entity> getResenaById(Long id);
-    List<Resena_Entity> getResenasByProducto(Long idProducto);
-    List<Resena_Entity> getResenasByUsuario(Long idUsuario);
+    PaginaDTO<ResenaResumenDTO> getResenasByProducto(Long idProducto, String cursor, Integer tamano,
+                                                     OrdenResenas orden, Integer calificacionMin,
+                                                     Integer calificacionMax);
+    PaginaDTO<ResenaResumenDTO> getResenasByUsuario(Long idUsuario, String cursor, Integer tamano,
+                                                    OrdenResenas orden, Integer calificacionMin,
+                                                    Integer calificacionMax);
     List<Resena_Entity> getResenasByCalificacion(Integer calificacion);
     Resena_Entity createResena(Resena_Entity resena);
     Resena_Entity updateResena(Long id, Resena_Entity resena);
@@ -0,0 +1,13 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.SugerenciaDTO;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+
+import java.util.List;
+
+public interface SugerenciasProductos_Service {
+    void reconstruir();
+    void indexarProducto(Producto_Entity producto);
+    void eliminarProducto(Long idProducto);
+    List<SugerenciaDTO> sugerir(String prefijo, int limite);
+}
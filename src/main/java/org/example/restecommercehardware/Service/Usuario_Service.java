@@ -5,12 +5,16 @@ import org.example.restecommercehardware.DTOs.LoginResponseDTO;
 import org.example.restecommercehardware.Mapper.Usuario_Entity;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface Usuario_Service {
     List<Usuario_Entity> getAllUsuarios();
     Optional<Usuario_Entity> getUsuarioById(Long id);
     Optional<Usuario_Entity> getUsuarioByEmail(String correoElectronico);
+    List<Map<String, Object>> getAllUsuariosParcial(String campos);
+    Optional<Map<String, Object>> getUsuarioParcialById(Long id, String campos);
+    Optional<Map<String, Object>> getUsuarioParcialByEmail(String correoElectronico, String campos);
     Usuario_Entity createUsuario(Usuario_Entity usuario);
     Usuario_Entity updateUsuario(Long id, Usuario_Entity usuario);
     void deleteUsuario(Long id);
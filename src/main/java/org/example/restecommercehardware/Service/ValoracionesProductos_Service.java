@@ -0,0 +1,8 @@
+package org.example.restecommercehardware.Service;
+
+import org.example.restecommercehardware.DTOs.ValoracionDTO;
+
+public interface ValoracionesProductos_Service {
+    void reconstruir();
+    ValoracionDTO getValoracion(Long idProducto);
+}
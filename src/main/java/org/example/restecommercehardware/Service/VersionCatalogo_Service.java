@@ -0,0 +1,9 @@
+package org.example.restecommercehardware.Service;
+
+import java.time.Instant;
+
+public interface VersionCatalogo_Service {
+    long getVersion();
+    String getEtag();
+    Instant getUltimaModificacion();
+}
@@ -0,0 +1,180 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.DTOs.ActualizacionPrecioStockDTO;
+import org.example.restecommercehardware.DTOs.PrecioStockDTO;
+import org.example.restecommercehardware.DTOs.ResultadoActualizacionMasivaDTO;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+// Las pruebas confirman de verdad: la recarga del catálogo solo se publica tras el commit
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ActualizacionPrecioStock_Service_Impl.class, VersionCatalogo_Service_Impl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ActualizacionPrecioStock_Service_ImplTests {
+
+    @Autowired
+    private ActualizacionPrecioStock_Service_Impl actualizacionService;
+
+    @Autowired
+    private VersionCatalogo_Service_Impl versionCatalogoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoSpyBean
+    private Producto_Repository productoRepository;
+
+    @AfterEach
+    void limpiar() {
+        ReflectionTestUtils.setField(actualizacionService, "tamanoLote", 1000);
+        jdbcTemplate.update("delete from dbo.productos");
+    }
+
+    @Test
+    void soloSeEscribenLasFilasQueCambianYSubeLaVersion() {
+        crearProducto("SKU-A", "10.00", 5);
+        crearProducto("SKU-B", "20.00", 0);
+        crearProducto("SKU-C", "30.00", 3);
+        long versionPrevia = versionCatalogoService.getVersion();
+
+        ResultadoActualizacionMasivaDTO resultado = actualizacionService.actualizar(List.of(
+                new ActualizacionPrecioStockDTO("SKU-A", new BigDecimal("12.004"), null),
+                new ActualizacionPrecioStockDTO("SKU-B", null, 4),
+                new ActualizacionPrecioStockDTO("SKU-C", new BigDecimal("30"), 3),
+                new ActualizacionPrecioStockDTO("NO-EXISTE", null, 1),
+                new ActualizacionPrecioStockDTO(" sku-a ", null, 9),
+                new ActualizacionPrecioStockDTO("SKU-C", null, -1)));
+
+        assertEquals(6, resultado.getRecibidos());
+        assertEquals(2, resultado.getActualizados());
+        assertEquals(1, resultado.getSinCambios());
+        assertEquals(1, resultado.getNoEncontrados());
+        assertEquals(List.of("NO-EXISTE"), resultado.getSkusNoEncontrados());
+        assertEquals(2, resultado.getRechazados());
+        // El SKU repetido se reconoce sin distinguir mayúsculas ni espacios
+        assertEquals("SKU repetido en la solicitud:  sku-a ", resultado.getErrores().get(0).getMensaje());
+        assertEquals(1, resultado.getCambiosPrecio());
+        assertEquals(1, resultado.getCambiosStock());
+        assertEquals(1, resultado.getRepuestos());
+        assertEquals(List.of("12.00", "5", "1"), fila("SKU-A"));
+        assertEquals(List.of("20.00", "4", "1"), fila("SKU-B"));
+        // Sin cambios no se escribe la fila, así que su versión no se mueve
+        assertEquals(List.of("30.00", "3", "0"), fila("SKU-C"));
+        assertEquals(versionPrevia + 1, versionCatalogoService.getVersion());
+    }
+
+    @Test
+    void unaFilaCambiadaDesdeLaLecturaCuentaComoConflicto() {
+        crearProducto("SKU-A", "10.00", 5);
+        Long id = jdbcTemplate.queryForObject("select id from dbo.productos where sku = 'SKU-A'", Long.class);
+        long versionPrevia = versionCatalogoService.getVersion();
+        // La lectura ve un stock que ya no es el de la base, como si otra petición lo hubiera cambiado entre medias
+        doAnswer(invocacion -> List.of(precioStock(id, "SKU-A", "10.00", 6)))
+                .when(productoRepository).findPrecioStockBySkuIn(anyCollection());
+
+        ResultadoActualizacionMasivaDTO resultado = actualizacionService.actualizar(List.of(
+                new ActualizacionPrecioStockDTO("SKU-A", new BigDecimal("11"), null)));
+
+        assertEquals(1, resultado.getConflictos());
+        assertEquals(0, resultado.getActualizados());
+        assertEquals(List.of("10.00", "5", "0"), fila("SKU-A"));
+        assertEquals(versionPrevia, versionCatalogoService.getVersion());
+    }
+
+    @Test
+    void siFallaUnLoteLosAnterioresRecarganElCatalogo() {
+        crearProducto("SKU-A", "10.00", 5);
+        crearProducto("SKU-B", "20.00", 2);
+        Long id = jdbcTemplate.queryForObject("select id from dbo.productos where sku = 'SKU-A'", Long.class);
+        ReflectionTestUtils.setField(actualizacionService, "tamanoLote", 1);
+        long versionPrevia = versionCatalogoService.getVersion();
+        AtomicInteger lecturas = new AtomicInteger();
+        doAnswer(invocacion -> {
+            if (lecturas.incrementAndGet() > 1) {
+                throw new DataAccessResourceFailureException("conexión perdida");
+            }
+            return List.of(precioStock(id, "SKU-A", "10.00", 5));
+        }).when(productoRepository).findPrecioStockBySkuIn(anyCollection());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> actualizacionService.actualizar(List.of(
+                new ActualizacionPrecioStockDTO("SKU-A", null, 0),
+                new ActualizacionPrecioStockDTO("SKU-B", null, 7))));
+
+        assertEquals(List.of("10.00", "0", "1"), fila("SKU-A"));
+        assertEquals(List.of("20.00", "2", "0"), fila("SKU-B"));
+        assertEquals(versionPrevia + 1, versionCatalogoService.getVersion());
+    }
+
+    private void crearProducto(String sku, String precio, int stock) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            Producto_Entity producto = new Producto_Entity();
+            producto.setNombre("Producto " + sku);
+            producto.setPrecio(new BigDecimal(precio));
+            producto.setStock(stock);
+            producto.setSku(sku);
+            entityManager.persist(producto);
+        });
+    }
+
+    private List<String> fila(String sku) {
+        return jdbcTemplate.queryForObject("select precio, stock, version from dbo.productos where sku = ?",
+                (rs, n) -> List.of(rs.getBigDecimal(1).toPlainString(), rs.getString(2), rs.getString(3)), sku);
+    }
+
+    private static PrecioStockDTO precioStock(Long id, String sku, String precio, int stock) {
+        return new PrecioStockDTO() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getSku() {
+                return sku;
+            }
+
+            @Override
+            public BigDecimal getPrecio() {
+                return new BigDecimal(precio);
+            }
+
+            @Override
+            public Integer getStock() {
+                return stock;
+            }
+        };
+    }
+}
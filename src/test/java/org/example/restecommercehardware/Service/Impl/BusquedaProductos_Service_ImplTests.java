@@ -0,0 +1,144 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Mapper.Categoria_Entity;
+import org.example.restecommercehardware.Mapper.Marca_Entity;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(BusquedaProductos_Service_Impl.class)
+class BusquedaProductos_Service_ImplTests {
+
+    @Autowired
+    private BusquedaProductos_Service_Impl busquedaService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoSpyBean
+    private Producto_Repository productoRepository;
+
+    @BeforeEach
+    void vaciarIndice() {
+        // Las pruebas indexan ids sueltos a mano; lo indexado por otra prueba seguiría saliendo en buscar()
+        busquedaService.reconstruirIndice();
+    }
+
+    @Test
+    void tokenizaSinAcentosNiPalabrasVaciasYExigeTodosLosTerminos() {
+        busquedaService.indexarProducto(producto(1L, "Procesador Ryzen 7", "Ocho núcleos", "CPU-R7"));
+        busquedaService.indexarProducto(producto(2L, "Procesador Core i7", "Ocho nucleos", "CPU-I7"));
+
+        assertEquals(List.of(1L), busquedaService.buscar("procesadór de RYZEN", 0, 10));
+        assertEquals(2, busquedaService.buscar("núcleos", 0, 10).size());
+        assertEquals(List.of(), busquedaService.buscar("ryzen core", 0, 10));
+        assertEquals(List.of(), busquedaService.buscar("de la", 0, 10));
+    }
+
+    @Test
+    void coincidenciaExactaPuntuaMasQueElPrefijoYElSkuSeBuscaCompacto() {
+        busquedaService.indexarProducto(producto(1L, "Memoria ramdisk", null, "MEM-1"));
+        busquedaService.indexarProducto(producto(2L, "Memoria ram", null, "RTX-4090"));
+
+        assertEquals(List.of(2L, 1L), busquedaService.buscar("ram", 0, 10));
+        assertEquals(List.of(2L), busquedaService.buscar("rtx4090", 0, 10));
+        assertEquals(List.of(1L), busquedaService.buscar("ram", 1, 10));
+    }
+
+    @Test
+    void prefijoSeExpandeComoMaximoASesentaYCuatroTerminos() {
+        for (long id = 1; id <= 70; id++) {
+            busquedaService.indexarProducto(producto(id, String.format("zeta%03d", id), null, null));
+        }
+
+        assertEquals(64, busquedaService.buscar("zeta", 0, 100).size());
+        assertEquals(List.of(70L), busquedaService.buscar("zeta070", 0, 100));
+    }
+
+    @Test
+    void reindexarYEliminarRetiranLosTerminosAnteriores() {
+        busquedaService.indexarProducto(producto(1L, "Teclado mecánico", null, null));
+        busquedaService.indexarProducto(producto(1L, "Ratón inalámbrico", null, null));
+
+        assertEquals(List.of(), busquedaService.buscar("teclado", 0, 10));
+        assertEquals(List.of(1L), busquedaService.buscar("raton", 0, 10));
+
+        busquedaService.eliminarProducto(1L);
+        assertEquals(List.of(), busquedaService.buscar("raton", 0, 10));
+    }
+
+    @Test
+    void reconstruirIndexaMarcaYCategoriaDesdeLaBase() {
+        Categoria_Entity categoria = new Categoria_Entity();
+        categoria.setNombre("Periféricos");
+        entityManager.persist(categoria);
+        Marca_Entity marca = new Marca_Entity();
+        marca.setNombre("Logitech");
+        entityManager.persist(marca);
+        Producto_Entity producto = producto(null, "Ratón G502", null, "LOG-G502");
+        producto.setIdCategoria(categoria);
+        producto.setIdMarca(marca);
+        entityManager.persist(producto);
+        entityManager.flush();
+        entityManager.clear();
+
+        busquedaService.reconstruirIndice();
+
+        assertEquals(List.of(producto.getId()), busquedaService.buscar("logitech perifericos", 0, 10));
+        assertTrue(busquedaService.buscar("teclado", 0, 10).isEmpty());
+    }
+
+    @Test
+    void unCambioQueLlegaDuranteLaReconstruccionNoSePierde() {
+        entityManager.persist(producto(null, "Teclado mecánico", null, "TEC-1"));
+        entityManager.flush();
+        AtomicReference<Long> idNuevo = new AtomicReference<>();
+        // Entre la lectura del catálogo y la sustitución del índice se confirma otro producto y llega su evento
+        doAnswer(invocacion -> {
+            List<Producto_Entity> leidos = entityManager
+                    .createQuery("select p from Producto_Entity p", Producto_Entity.class).getResultList();
+            Producto_Entity nuevo = producto(null, "Ratón inalámbrico", null, "RAT-1");
+            entityManager.persist(nuevo);
+            entityManager.flush();
+            idNuevo.set(nuevo.getId());
+            busquedaService.alCambiarProducto(new ProductoCambiadoEvent(nuevo.getId(), ProductoCambiadoEvent.Tipo.CREADO));
+            return leidos;
+        }).when(productoRepository).findAllConRelacionesBy();
+
+        busquedaService.reconstruirIndice();
+
+        assertEquals(List.of(idNuevo.get()), busquedaService.buscar("raton", 0, 10));
+        assertEquals(1, busquedaService.buscar("teclado", 0, 10).size());
+    }
+
+    private Producto_Entity producto(Long id, String nombre, String descripcion, String sku) {
+        Producto_Entity producto = new Producto_Entity();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setDescripcion(descripcion);
+        producto.setSku(sku != null ? sku : "SKU-" + nombre);
+        producto.setPrecio(BigDecimal.TEN);
+        producto.setStock(1);
+        return producto;
+    }
+}
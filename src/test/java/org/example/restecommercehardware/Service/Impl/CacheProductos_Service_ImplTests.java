@@ -0,0 +1,62 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CacheProductos_Service_Impl.class)
+class CacheProductos_Service_ImplTests {
+
+    @Autowired
+    private CacheProductos_Service_Impl cacheProductosService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoSpyBean
+    private Producto_Repository productoRepository;
+
+    @Test
+    void unSkuConOtrasMayusculasSeSirveDeLaCache() {
+        Producto_Entity producto = new Producto_Entity();
+        producto.setNombre("SSD 1TB");
+        producto.setPrecio(BigDecimal.TEN);
+        producto.setStock(1);
+        producto.setSku("SSD-1");
+        entityManager.persist(producto);
+        entityManager.flush();
+        // Como en SQL Server, la búsqueda por SKU no distingue mayúsculas (H2 sí las distingue)
+        doAnswer(invocacion -> "SSD-1".equalsIgnoreCase(invocacion.getArgument(0))
+                ? Optional.of(producto.getId()) : Optional.empty())
+                .when(productoRepository).findIdBySku(anyString());
+        cacheProductosService.alRecargarCatalogo(new CatalogoRecargadoEvent("prueba", 0));
+        clearInvocations(productoRepository);
+
+        assertEquals(producto.getId(), cacheProductosService.buscarPorSku("ssd-1").orElseThrow().getId());
+        assertEquals(producto.getId(), cacheProductosService.buscarPorSku("SSD-1").orElseThrow().getId());
+        assertEquals(producto.getId(), cacheProductosService.buscarPorSku("ssd-1").orElseThrow().getId());
+
+        verify(productoRepository, times(1)).findIdBySku(anyString());
+    }
+}
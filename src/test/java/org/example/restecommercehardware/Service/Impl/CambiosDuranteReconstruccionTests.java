@@ -0,0 +1,74 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CambiosDuranteReconstruccionTests {
+
+    private final CambiosDuranteReconstruccion cambios = new CambiosDuranteReconstruccion();
+
+    @Test
+    void soloSeAnotanLosCambiosDuranteUnaReconstruccion() {
+        cambios.registrar(1L);
+        long generacion = cambios.comenzar();
+        cambios.registrar(2L);
+        cambios.registrar(2L);
+        cambios.registrar(3L);
+
+        assertTrue(cambios.sustituir(generacion));
+        assertEquals(List.of(List.of(2L, 3L)), releidos());
+        cambios.terminar();
+
+        cambios.comenzar();
+        assertEquals(List.of(), releidos());
+    }
+
+    @Test
+    void losCambiosQueLleganMientrasSeReleeSeLeenEnOtraVuelta() {
+        long generacion = cambios.comenzar();
+        cambios.registrar(1L);
+        assertTrue(cambios.sustituir(generacion));
+
+        List<List<Long>> lotes = new ArrayList<>();
+        cambios.releerPendientes(ids -> {
+            lotes.add(ids);
+            if (lotes.size() == 1) {
+                cambios.registrar(1L);
+                cambios.registrar(4L);
+            }
+        });
+        cambios.terminar();
+
+        assertEquals(List.of(List.of(1L), List.of(1L, 4L)), lotes);
+    }
+
+    @Test
+    void unaReconstruccionAnteriorNoSustituyeAUnaMasReciente() {
+        long anterior = cambios.comenzar();
+        cambios.registrar(1L);
+        long posterior = cambios.comenzar();
+        cambios.registrar(2L);
+
+        assertTrue(cambios.sustituir(posterior));
+        cambios.terminar();
+        assertFalse(cambios.sustituir(anterior));
+
+        // Los ids se conservan hasta que termina la última reconstrucción en curso
+        assertEquals(List.of(List.of(1L, 2L)), releidos());
+        cambios.terminar();
+        cambios.comenzar();
+        assertEquals(List.of(), releidos());
+    }
+
+    private List<List<Long>> releidos() {
+        List<List<Long>> lotes = new ArrayList<>();
+        cambios.releerPendientes(lotes::add);
+        return lotes;
+    }
+}
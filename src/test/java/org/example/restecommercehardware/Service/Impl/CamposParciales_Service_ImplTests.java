@@ -0,0 +1,123 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.Config.PasswordConfig;
+import org.example.restecommercehardware.Controller.Usuario_Controller;
+import org.example.restecommercehardware.Mapper.Categoria_Entity;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Mapper.Usuario_Entity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CamposParciales_Service_Impl.class, Usuario_Service_Impl.class, PasswordConfig.class})
+class CamposParciales_Service_ImplTests {
+
+    @Autowired
+    private CamposParciales_Service_Impl camposParcialesService;
+
+    @Autowired
+    private Usuario_Service_Impl usuarioService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private MockMvc mockMvc;
+    private Usuario_Entity usuario;
+
+    @BeforeEach
+    void prepararUsuario() {
+        usuario = new Usuario_Entity();
+        usuario.setNombre("Ana");
+        usuario.setApellido("Pérez");
+        usuario.setCorreoElectronico("ana@example.com");
+        usuario.setHashContrasena("$2a$10$hashQueNuncaDebeSalir");
+        usuario.setRol("CLIENTE");
+        entityManager.persist(usuario);
+        entityManager.flush();
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new Usuario_Controller(usuarioService)).build();
+    }
+
+    @Test
+    void elHashDeContrasenaNoPuedePedirse() throws Exception {
+        mockMvc.perform(get("/api/usuarios").param("fields", "hashContrasena"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usuarios").param("fields", "nombre,hashContrasena"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usuarios/{id}", usuario.getId()).param("fields", "hashContrasena"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/usuarios/email/{correo}", "ana@example.com").param("fields", "hashContrasena"))
+                .andExpect(status().isBadRequest());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> camposParcialesService.proyectar(Usuario_Entity.class, "hashContrasena", null, Sort.unsorted()));
+    }
+
+    @Test
+    void soloVuelvenLosCamposPedidosYElId() throws Exception {
+        mockMvc.perform(get("/api/usuarios").param("fields", "nombre, correoElectronico"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0]", aMapWithSize(3)))
+                .andExpect(jsonPath("$[0].id").value(usuario.getId()))
+                .andExpect(jsonPath("$[0].nombre").value("Ana"))
+                .andExpect(jsonPath("$[0].correoElectronico").value("ana@example.com"))
+                .andExpect(content().string(not(containsString("hashQueNuncaDebeSalir"))));
+
+        mockMvc.perform(get("/api/usuarios/{id}", usuario.getId()).param("fields", "rol"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", aMapWithSize(2)))
+                .andExpect(jsonPath("$.id").value(usuario.getId()))
+                .andExpect(jsonPath("$.rol").value("CLIENTE"));
+    }
+
+    @Test
+    void lasRelacionesSeProyectanComoCamposPlanos() {
+        Categoria_Entity categoria = new Categoria_Entity();
+        categoria.setNombre("Discos");
+        entityManager.persist(categoria);
+        Producto_Entity producto = new Producto_Entity();
+        producto.setNombre("SSD 1TB");
+        producto.setSku("SSD-1TB");
+        producto.setPrecio(new BigDecimal("79.90"));
+        producto.setStock(3);
+        producto.setIdCategoria(categoria);
+        entityManager.persist(producto);
+        entityManager.flush();
+
+        List<Map<String, Object>> filas = camposParcialesService.proyectar(Producto_Entity.class,
+                "nombreCategoria,idCategoria,precio", (raiz, consulta, cb) -> cb.equal(raiz.get("id"), producto.getId()),
+                Sort.unsorted());
+
+        assertEquals(List.of("id", "nombreCategoria", "idCategoria", "precio"), List.copyOf(filas.get(0).keySet()));
+        assertEquals("Discos", filas.get(0).get("nombreCategoria"));
+        assertEquals(categoria.getId(), filas.get(0).get("idCategoria"));
+        assertEquals(0, new BigDecimal("79.90").compareTo((BigDecimal) filas.get(0).get("precio")));
+    }
+}
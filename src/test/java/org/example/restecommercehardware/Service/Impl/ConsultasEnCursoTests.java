@@ -0,0 +1,129 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import org.example.restecommercehardware.DTOs.EstadisticasConsultasDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsultasEnCursoTests {
+
+    private final ConsultasEnCurso consultas = new ConsultasEnCurso();
+    private final ExecutorService hilos = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void pararHilos() {
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void lasLlamadasConcurrentesConLaMismaClaveCompartenUnaCarga() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        AtomicInteger ejecuciones = new AtomicInteger();
+        Object resultado = new Object();
+
+        Future<Object> primera = hilos.submit(() -> consultas.ejecutar(clave(1, "listado"), () -> {
+            ejecuciones.incrementAndGet();
+            dentro.countDown();
+            esperar(soltar);
+            return resultado;
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        Future<Object> segunda = hilos.submit(() -> consultas.ejecutar(clave(1, "listado"), () -> {
+            ejecuciones.incrementAndGet();
+            return new Object();
+        }));
+        esperarColapsadas(1);
+        soltar.countDown();
+
+        assertSame(resultado, primera.get(5, TimeUnit.SECONDS));
+        assertSame(resultado, segunda.get(5, TimeUnit.SECONDS));
+        assertEquals(1, ejecuciones.get());
+        EstadisticasConsultasDTO estadisticas = consultas.getEstadisticas("prueba");
+        assertEquals(1, estadisticas.getCargas());
+        assertEquals(0, estadisticas.getEnCurso());
+        assertEquals(0.5, estadisticas.getTasaColapso());
+    }
+
+    @Test
+    void unaCargaDeOtraVersionDelCatalogoNoSeComparte() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        Future<String> anterior = hilos.submit(() -> consultas.ejecutar(clave(1, "listado"), () -> {
+            dentro.countDown();
+            esperar(soltar);
+            return "anterior";
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+        // Mientras la carga de la versión 1 sigue en curso, la misma consulta en la versión 2 carga por su cuenta
+        assertEquals("posterior", consultas.ejecutar(clave(2, "listado"), () -> "posterior"));
+        soltar.countDown();
+        assertEquals("anterior", anterior.get(5, TimeUnit.SECONDS));
+        assertEquals(2, consultas.getEstadisticas("prueba").getCargas());
+        assertEquals(0, consultas.getEstadisticas("prueba").getColapsadas());
+    }
+
+    @Test
+    void losQueEsperanRecibenLaMismaExcepcionYLaClaveSeLibera() throws Exception {
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        IllegalArgumentException error = new IllegalArgumentException("Cursor inválido");
+
+        Future<Object> primera = hilos.submit(() -> consultas.ejecutar(clave(1, "busqueda"), () -> {
+            dentro.countDown();
+            esperar(soltar);
+            throw error;
+        }));
+        assertTrue(dentro.await(5, TimeUnit.SECONDS));
+        Future<Object> segunda = hilos.submit(() -> consultas.ejecutar(clave(1, "busqueda"), Object::new));
+        esperarColapsadas(1);
+        soltar.countDown();
+
+        assertSame(error, causa(primera));
+        assertSame(error, causa(segunda));
+        assertEquals(0, consultas.getEstadisticas("prueba").getEnCurso());
+        // Tras el fallo la clave no queda ocupada: la siguiente llamada vuelve a cargar
+        assertEquals("ok", consultas.ejecutar(clave(1, "busqueda"), () -> "ok"));
+    }
+
+    private static Object clave(long versionCatalogo, String tipo) {
+        return List.of(versionCatalogo, tipo);
+    }
+
+    private void esperarColapsadas(long esperadas) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (consultas.getEstadisticas("prueba").getColapsadas() < esperadas) {
+            assertTrue(System.nanoTime() < limite, "la segunda llamada no llegó a unirse a la carga");
+            Thread.sleep(5);
+        }
+    }
+
+    private static Throwable causa(Future<?> futuro) {
+        return assertThrows(ExecutionException.class,
+                () -> futuro.get(5, TimeUnit.SECONDS)).getCause();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import org.example.restecommercehardware.Controller.Producto_Controller;
+import org.example.restecommercehardware.DTOs.DetalleProductoDTO;
+import org.example.restecommercehardware.DTOs.OrdenResenas;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ResenaResumenDTO;
+import org.example.restecommercehardware.DTOs.ValoracionDTO;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.ProductoImg_Repository;
+import org.example.restecommercehardware.Service.Producto_Service;
+import org.example.restecommercehardware.Service.Resena_Service;
+import org.example.restecommercehardware.Service.ValoracionesProductos_Service;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DetalleProducto_Service_Impl.class, VersionCatalogo_Service_Impl.class})
+class DetalleProducto_Service_ImplTests {
+
+    private static final long ID_PRODUCTO = 42L;
+
+    @Autowired
+    private DetalleProducto_Service_Impl detalleService;
+
+    @Autowired
+    private VersionCatalogo_Service_Impl versionCatalogoService;
+
+    @MockitoBean
+    private Producto_Service productoService;
+
+    @MockitoBean
+    private Resena_Service resenaService;
+
+    @MockitoBean
+    private ValoracionesProductos_Service valoracionesService;
+
+    @MockitoSpyBean
+    private ProductoImg_Repository productoImgRepository;
+
+    @AfterEach
+    void restaurarLimite() {
+        ReflectionTestUtils.setField(detalleService, "timeoutProducto", Duration.ofSeconds(2));
+    }
+
+    @Test
+    void sinProductoNoHayDetalle() throws Exception {
+        doReturn(Optional.empty()).when(productoService).getProductoById(ID_PRODUCTO);
+
+        assertTrue(detalleService.getDetalle(ID_PRODUCTO).isEmpty());
+        controlador().perform(get("/api/productos/{id}/detalle", ID_PRODUCTO))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void unaParteQueFallaSeOmiteYElRestoSeSirve() {
+        Producto_Entity producto = new Producto_Entity();
+        producto.setId(ID_PRODUCTO);
+        PaginaDTO<ResenaResumenDTO> resenas = new PaginaDTO<>(List.of(), null, false);
+        ValoracionDTO valoracion = new ValoracionDTO();
+        doReturn(Optional.of(producto)).when(productoService).getProductoById(ID_PRODUCTO);
+        doReturn(resenas).when(resenaService).getResenasByProducto(eq(ID_PRODUCTO), isNull(), any(),
+                eq(OrdenResenas.RECIENTES), isNull(), isNull());
+        doReturn(valoracion).when(valoracionesService).getValoracion(ID_PRODUCTO);
+        doThrow(new IllegalStateException("imágenes caídas")).when(productoImgRepository)
+                .findImagenesByIdProducto(anyLong());
+
+        DetalleProductoDTO detalle = detalleService.getDetalle(ID_PRODUCTO).orElseThrow();
+
+        assertSame(producto, detalle.getProducto());
+        assertNull(detalle.getImagenes());
+        assertSame(resenas, detalle.getResenas());
+        assertSame(valoracion, detalle.getValoracion());
+        assertEquals(List.of("imagenes"), detalle.getPartesNoDisponibles());
+    }
+
+    @Test
+    void siElProductoTardaDemasiadoSeInterrumpeLaLecturaYSeResponde503() throws Exception {
+        ReflectionTestUtils.setField(detalleService, "timeoutProducto", Duration.ofMillis(100));
+        CountDownLatch interrumpida = new CountDownLatch(2);
+        doAnswer(invocacion -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrumpida.countDown();
+            }
+            return Optional.empty();
+        }).when(productoService).getProductoById(ID_PRODUCTO);
+
+        assertThrows(QueryTimeoutException.class, () -> detalleService.getDetalle(ID_PRODUCTO));
+        controlador().perform(get("/api/productos/{id}/detalle", ID_PRODUCTO))
+                .andExpect(status().isServiceUnavailable());
+        // El hilo no sigue esperando a la base cuando ya nadie espera el resultado
+        assertTrue(interrumpida.await(5, TimeUnit.SECONDS));
+    }
+
+    private MockMvc controlador() {
+        return MockMvcBuilders.standaloneSetup(new Producto_Controller(productoService, null, null, null,
+                versionCatalogoService, null, null, detalleService)).build();
+    }
+}
@@ -0,0 +1,166 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.DTOs.FacetaValorDTO;
+import org.example.restecommercehardware.DTOs.FiltroProductosDTO;
+import org.example.restecommercehardware.DTOs.ResultadoFiltroDTO;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Mapper.Categoria_Entity;
+import org.example.restecommercehardware.Mapper.Marca_Entity;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FacetasProductos_Service_Impl.class)
+class FacetasProductos_Service_ImplTests {
+
+    @Autowired
+    private FacetasProductos_Service_Impl facetasService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoSpyBean
+    private Producto_Repository productoRepository;
+
+    private final Categoria_Entity placas = categoria(1L, "Placas base");
+    private final Categoria_Entity discos = categoria(2L, "Discos");
+    private final Marca_Entity asus = marca(1L, "Asus");
+    private final Marca_Entity msi = marca(2L, "MSI");
+
+    @BeforeEach
+    void indexarCatalogo() {
+        // Los recuentos esperados son los de estos cuatro productos y nada más
+        facetasService.reconstruir();
+        facetasService.indexarProducto(producto(1L, placas, asus, "30.00", 5));
+        facetasService.indexarProducto(producto(2L, placas, msi, "120.00", 0));
+        facetasService.indexarProducto(producto(3L, discos, asus, "600.00", 2));
+        facetasService.indexarProducto(producto(4L, discos, msi, "80.00", 1));
+    }
+
+    @Test
+    void cadaFacetaSeCuentaSinSuPropioFiltro() {
+        ResultadoFiltroDTO<Long> resultado = facetasService.filtrar(filtro(List.of(1L), null, null, null, null), 0, 10);
+
+        assertEquals(List.of(1L, 2L), resultado.getProductos().getContenido());
+        assertEquals(2, resultado.getTotal());
+        assertEquals(Map.of("1", 2, "2", 2), conteos(resultado.getCategorias()));
+        assertEquals(Map.of("1", 1, "2", 1), conteos(resultado.getMarcas()));
+        assertEquals(1, conteos(resultado.getRangosPrecio()).get("0-50"));
+        assertEquals(1, conteos(resultado.getRangosPrecio()).get("100-250"));
+        assertEquals(0, conteos(resultado.getRangosPrecio()).get("500-1000"));
+        assertEquals(Map.of("en_stock", 1, "sin_stock", 1), conteos(resultado.getDisponibilidad()));
+    }
+
+    @Test
+    void combinaCategoriaStockYRangoDePrecio() {
+        ResultadoFiltroDTO<Long> conStock = facetasService.filtrar(filtro(List.of(1L), null, null, null, true), 0, 10);
+        assertEquals(List.of(1L), conStock.getProductos().getContenido());
+        assertEquals(Map.of("1", 1, "2", 2), conteos(conStock.getCategorias()));
+        assertEquals(Map.of("1", 1), conteos(conStock.getMarcas()));
+
+        ResultadoFiltroDTO<Long> porPrecio = facetasService.filtrar(
+                filtro(null, List.of(2L), new BigDecimal("50"), new BigDecimal("500"), null), 0, 10);
+        assertEquals(List.of(2L, 4L), porPrecio.getProductos().getContenido());
+        // La faceta de marca ignora el filtro de marca pero respeta el de precio
+        assertEquals(Map.of("2", 2), conteos(porPrecio.getMarcas()));
+
+        ResultadoFiltroDTO<Long> pagina = facetasService.filtrar(new FiltroProductosDTO(), 1, 2);
+        assertEquals(List.of(2L, 3L), pagina.getProductos().getContenido());
+        assertEquals(4, pagina.getTotal());
+    }
+
+    @Test
+    void reindexarYEliminarActualizanLosBits() {
+        facetasService.eliminarProducto(1L);
+        facetasService.indexarProducto(producto(4L, placas, msi, "80.00", 0));
+
+        ResultadoFiltroDTO<Long> resultado = facetasService.filtrar(filtro(List.of(1L), null, null, null, null), 0, 10);
+
+        assertEquals(List.of(2L, 4L), resultado.getProductos().getContenido());
+        assertEquals(Map.of("1", 2, "2", 1), conteos(resultado.getCategorias()));
+        assertEquals(Map.of("2", 2), conteos(resultado.getMarcas()));
+        assertEquals(Map.of("en_stock", 0, "sin_stock", 2), conteos(resultado.getDisponibilidad()));
+    }
+
+    @Test
+    void unCambioQueLlegaDuranteLaReconstruccionNoSePierde() {
+        Categoria_Entity monitores = new Categoria_Entity();
+        monitores.setNombre("Monitores");
+        entityManager.persist(monitores);
+        entityManager.flush();
+        AtomicReference<Long> idNuevo = new AtomicReference<>();
+        // Entre la lectura del catálogo y la sustitución del índice se confirma otro producto y llega su evento
+        doAnswer(invocacion -> {
+            List<Producto_Entity> leidos = entityManager
+                    .createQuery("select p from Producto_Entity p", Producto_Entity.class).getResultList();
+            Producto_Entity nuevo = producto(null, monitores, null, "199.00", 3);
+            entityManager.persist(nuevo);
+            entityManager.flush();
+            idNuevo.set(nuevo.getId());
+            facetasService.alCambiarProducto(new ProductoCambiadoEvent(nuevo.getId(), ProductoCambiadoEvent.Tipo.CREADO));
+            return leidos;
+        }).when(productoRepository).findAllConRelacionesBy();
+
+        facetasService.reconstruir();
+
+        ResultadoFiltroDTO<Long> resultado = facetasService.filtrar(
+                filtro(List.of(monitores.getId()), null, null, null, true), 0, 10);
+        assertEquals(List.of(idNuevo.get()), resultado.getProductos().getContenido());
+    }
+
+    private static Map<String, Integer> conteos(List<FacetaValorDTO> facetas) {
+        return facetas.stream().collect(Collectors.toMap(FacetaValorDTO::getClave, FacetaValorDTO::getCantidad));
+    }
+
+    private static FiltroProductosDTO filtro(List<Long> categorias, List<Long> marcas, BigDecimal precioMin,
+                                             BigDecimal precioMax, Boolean enStock) {
+        return new FiltroProductosDTO(categorias, marcas, precioMin, precioMax, enStock);
+    }
+
+    private static Producto_Entity producto(Long id, Categoria_Entity categoria, Marca_Entity marca, String precio,
+                                            int stock) {
+        Producto_Entity producto = new Producto_Entity();
+        producto.setId(id);
+        producto.setNombre("Producto " + id);
+        producto.setSku("SKU-" + id);
+        producto.setIdCategoria(categoria);
+        producto.setIdMarca(marca);
+        producto.setPrecio(new BigDecimal(precio));
+        producto.setStock(stock);
+        return producto;
+    }
+
+    private static Categoria_Entity categoria(Long id, String nombre) {
+        Categoria_Entity categoria = new Categoria_Entity();
+        categoria.setId(id);
+        categoria.setNombre(nombre);
+        return categoria;
+    }
+
+    private static Marca_Entity marca(Long id, String nombre) {
+        Marca_Entity marca = new Marca_Entity();
+        marca.setId(id);
+        marca.setNombre(nombre);
+        return marca;
+    }
+}
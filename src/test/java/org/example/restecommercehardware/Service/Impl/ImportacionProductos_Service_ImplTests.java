@@ -0,0 +1,134 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.DTOs.ErrorFilaDTO;
+import org.example.restecommercehardware.DTOs.FormatoImportacion;
+import org.example.restecommercehardware.DTOs.ResultadoImportacionDTO;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Las pruebas confirman de verdad: la recarga del catálogo solo se publica tras el commit
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ImportacionProductos_Service_Impl.class, VersionCatalogo_Service_Impl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportacionProductos_Service_ImplTests {
+
+    @Autowired
+    private ImportacionProductos_Service_Impl importacionService;
+
+    @Autowired
+    private VersionCatalogo_Service_Impl versionCatalogoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void limpiar() {
+        ReflectionTestUtils.setField(importacionService, "tamanoLote", 1000);
+        jdbcTemplate.update("delete from dbo.productos");
+    }
+
+    @Test
+    void insertaLasFilasValidasYRechazaLasDemas() throws IOException {
+        new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+            Producto_Entity existente = new Producto_Entity();
+            existente.setNombre("SSD 1TB");
+            existente.setPrecio(new BigDecimal("79.90"));
+            existente.setStock(3);
+            existente.setSku("SSD-1");
+            entityManager.persist(existente);
+        });
+        long versionPrevia = versionCatalogoService.getVersion();
+        String csv = """
+                nombre,precio,stock,sku
+                SSD 1TB,79.90,3,SSD-1
+                HDD 2TB,59.499,10,HDD-2
+                Otro HDD,50,1,hdd-2
+                Sin precio,,1,X-1
+                """;
+
+        ResultadoImportacionDTO resultado = importacionService.importar(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoImportacion.CSV);
+
+        assertEquals(4, resultado.getFilasLeidas());
+        assertEquals(1, resultado.getInsertados());
+        assertEquals(3, resultado.getRechazados());
+        assertEquals(List.of(1L, 3L, 4L), resultado.getErrores().stream().map(ErrorFilaDTO::getFila).toList());
+        // El SKU repetido dentro de la importación se compara sin distinguir mayúsculas
+        assertEquals("SKU repetido en la importación: hdd-2", resultado.getErrores().get(1).getMensaje());
+        assertEquals(List.of(new BigDecimal("59.50")), jdbcTemplate.queryForList(
+                "select precio from dbo.productos where sku = 'HDD-2'", BigDecimal.class));
+        assertEquals(List.of(0L), jdbcTemplate.queryForList(
+                "select version from dbo.productos where sku = 'HDD-2'", Long.class));
+        assertEquals(versionPrevia + 1, versionCatalogoService.getVersion());
+    }
+
+    @Test
+    void siLaLecturaSeCortaLoYaInsertadoRecargaElCatalogo() {
+        ReflectionTestUtils.setField(importacionService, "tamanoLote", 1);
+        long versionPrevia = versionCatalogoService.getVersion();
+        String lineas = """
+                {"nombre": "RAM 16GB", "precio": "45", "stock": "8", "sku": "RAM-16"}
+                {"nombre": "RAM 32GB", "precio": "85", "stock": "4", "sku": "RAM-32"}
+                """;
+        InputStream entrada = new SequenceInputStream(
+                new ByteArrayInputStream(lineas.getBytes(StandardCharsets.UTF_8)), new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("conexión cortada");
+                    }
+                });
+
+        assertThrows(IOException.class, () -> importacionService.importar(entrada, FormatoImportacion.NDJSON));
+
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from dbo.productos", Integer.class));
+        assertEquals(versionPrevia + 1, versionCatalogoService.getVersion());
+    }
+
+    @Test
+    void sinFilasInsertadasNoSeRecargaElCatalogo() throws IOException {
+        long versionPrevia = versionCatalogoService.getVersion();
+
+        ResultadoImportacionDTO resultado = importacionService.importar(new ByteArrayInputStream(
+                "{\"nombre\": \"Sin SKU\", \"precio\": \"1\", \"stock\": \"1\"}\n".getBytes(StandardCharsets.UTF_8)),
+                FormatoImportacion.NDJSON);
+
+        assertEquals(1, resultado.getRechazados());
+        assertEquals("El SKU es obligatorio", resultado.getErrores().get(0).getMensaje());
+        assertEquals(versionPrevia, versionCatalogoService.getVersion());
+    }
+}
@@ -0,0 +1,342 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.restecommercehardware.DTOs.CarritoConImagenesDTO;
+import org.example.restecommercehardware.DTOs.ItemCarritoConImagenDTO;
+import org.example.restecommercehardware.DTOs.OperacionCarritoDTO;
+import org.example.restecommercehardware.Mapper.Carrito_Entity;
+import org.example.restecommercehardware.Mapper.ItemsCarrito_Entity;
+import org.example.restecommercehardware.Mapper.ProductoImg_Entity;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ItemsCarrito_Service_Impl.class, CarritosEnMemoria_Service_Impl.class, VersionCatalogo_Service_Impl.class})
+class ItemsCarrito_Service_ImplTests {
+
+    @Autowired
+    private ItemsCarrito_Service_Impl itemsCarritoService;
+
+    @Autowired
+    private CarritosEnMemoria_Service_Impl carritosEnMemoria;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void carritoConImagenesUsaNumeroFijoDeSentencias() {
+        Long carritoPequeno = crearCarrito(1);
+        Long carritoGrande = crearCarrito(40);
+
+        assertEquals(2, contarSentencias(carritoPequeno));
+        assertEquals(2, contarSentencias(carritoGrande));
+    }
+
+    @Test
+    void carritoConImagenesCalculaPortadaYTotales() {
+        Long idCarrito = crearCarrito(3);
+
+        CarritoConImagenesDTO carrito = itemsCarritoService.getCarritoConImagenes(idCarrito);
+
+        assertEquals(3, carrito.getItems().size());
+        assertEquals("/uploads/portada_0.jpg", carrito.getItems().get(0).getImagenPortada());
+        // cantidades 1, 2, 3 con precios 10, 11, 12
+        assertEquals(6, carrito.getCantidadTotal());
+        assertEquals(0, new BigDecimal("68.00").compareTo(carrito.getTotal()));
+    }
+
+    @Test
+    void itemsPorCarritoUsaNumeroFijoDeSentencias() {
+        Long carritoPequeno = crearCarrito(1);
+        Long carritoGrande = crearCarrito(40);
+
+        assertEquals(2, contarSentenciasItems(carritoPequeno));
+        assertEquals(2, contarSentenciasItems(carritoGrande));
+    }
+
+    @Test
+    void agregarProductoSumaEnLaMismaLineaYRespetaElStock() {
+        Long idCarrito = crearCarrito(1);
+        Long idProducto = jdbcTemplate.queryForObject(
+                "select id_producto from dbo.items_carrito where id_carrito = ?", Long.class, idCarrito);
+
+        ItemCarritoConImagenDTO linea = itemsCarritoService.agregarProducto(idCarrito, idProducto, 5);
+        assertEquals(6, linea.getCantidad());
+        assertEquals("/uploads/portada_0.jpg", linea.getImagenPortada());
+        assertEquals(0, new BigDecimal("60.00").compareTo(linea.getSubtotal()));
+
+        // stock 100: 6 + 95 no cabe y la línea no cambia
+        assertThrows(IllegalStateException.class, () -> itemsCarritoService.agregarProducto(idCarrito, idProducto, 95));
+        assertEquals(100, itemsCarritoService.agregarProducto(idCarrito, idProducto, 94).getCantidad());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from dbo.items_carrito where id_carrito = ?", Integer.class, idCarrito));
+    }
+
+    @Test
+    void loteAplicaLasOperacionesEnOrdenYDevuelveElCarritoRecalculado() {
+        Long idCarrito = crearCarrito(3);
+        List<Long> productos = jdbcTemplate.queryForList(
+                "select id_producto from dbo.items_carrito where id_carrito = ? order by id", Long.class, idCarrito);
+
+        CarritoConImagenesDTO carrito = itemsCarritoService.aplicarLote(idCarrito, List.of(
+                new OperacionCarritoDTO("agregar", productos.get(0), 2),
+                new OperacionCarritoDTO("eliminar", productos.get(1), null),
+                new OperacionCarritoDTO("fijar", productos.get(2), 5),
+                new OperacionCarritoDTO("agregar", productos.get(2), null)));
+
+        // cantidades 3 y 6 con precios 10 y 12
+        assertEquals(2, carrito.getItems().size());
+        assertEquals(9, carrito.getCantidadTotal());
+        assertEquals(0, new BigDecimal("102.00").compareTo(carrito.getTotal()));
+        assertEquals("/uploads/portada_0.jpg", carrito.getItems().get(0).getImagenPortada());
+
+        assertThrows(IllegalArgumentException.class, () -> itemsCarritoService.aplicarLote(idCarrito,
+                List.of(new OperacionCarritoDTO("vaciar", productos.get(0), 1))));
+        assertThrows(IllegalStateException.class, () -> itemsCarritoService.aplicarLote(idCarrito,
+                List.of(new OperacionCarritoDTO("fijar", productos.get(0), 1),
+                        new OperacionCarritoDTO("agregar", productos.get(2), 1000))));
+    }
+
+    @Test
+    void actualizarConVersionAntiguaNoPisaLaLinea() {
+        Long idCarrito = crearCarrito(1);
+        Long idItem = jdbcTemplate.queryForObject(
+                "select id from dbo.items_carrito where id_carrito = ?", Long.class, idCarrito);
+        ItemsCarrito_Entity cambio = new ItemsCarrito_Entity();
+        cambio.setCantidad(4);
+
+        itemsCarritoService.updateItemCarrito(idItem, cambio, 0L);
+        entityManager.flush();
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "select version from dbo.items_carrito where id = ?", Long.class, idItem));
+
+        cambio.setCantidad(7);
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> itemsCarritoService.updateItemCarrito(idItem, cambio, 0L));
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "select cantidad from dbo.items_carrito where id = ?", Integer.class, idItem));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void carritoEnMemoriaSirveLecturasSinBaseYVuelcaSoloLasLineasModificadas() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        Long idCarrito = transaccion.execute(estado -> crearCarrito(3));
+        List<Long> productos = jdbcTemplate.queryForList(
+                "select id_producto from dbo.items_carrito where id_carrito = ? order by id", Long.class, idCarrito);
+        Long productoNuevo = transaccion.execute(estado -> {
+            Producto_Entity producto = new Producto_Entity();
+            producto.setNombre("Producto nuevo");
+            producto.setPrecio(new BigDecimal(10));
+            producto.setStock(100);
+            producto.setSku("SKU-NUEVO-" + idCarrito);
+            entityManager.persist(producto);
+            return producto.getId();
+        });
+        try {
+            carritosEnMemoria.getCarrito(idCarrito);
+            carritosEnMemoria.agregar(idCarrito, productos.get(0), 2);
+            carritosEnMemoria.fijarCantidad(idCarrito, productos.get(1), 0);
+            carritosEnMemoria.agregar(idCarrito, productoNuevo, 4);
+
+            Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            estadisticas.clear();
+            CarritoConImagenesDTO carrito = carritosEnMemoria.getCarrito(idCarrito);
+            assertEquals(0, estadisticas.getPrepareStatementCount());
+            // cantidades 3, 3 y 4 con precios 10, 12 y 10
+            assertEquals(3, carrito.getItems().size());
+            assertEquals(10, carrito.getCantidadTotal());
+            assertEquals(0, new BigDecimal("106.00").compareTo(carrito.getTotal()));
+            assertEquals(1, carritosEnMemoria.getEstadisticas().getCarritosPendientes());
+
+            // El contador es del bean compartido entre pruebas: se compara contra el valor previo
+            long filasPrevias = carritosEnMemoria.getEstadisticas().getFilasEscritas();
+            carritosEnMemoria.volcar();
+
+            assertEquals(0, carritosEnMemoria.getEstadisticas().getCarritosPendientes());
+            assertEquals(filasPrevias + 3, carritosEnMemoria.getEstadisticas().getFilasEscritas());
+            List<Integer> cantidades = jdbcTemplate.queryForList(
+                    "select cantidad from dbo.items_carrito where id_carrito = ? order by id", Integer.class, idCarrito);
+            assertEquals(List.of(3, 3, 4), cantidades);
+        } finally {
+            carritosEnMemoria.descartar(idCarrito);
+            jdbcTemplate.update("delete from dbo.items_carrito");
+            jdbcTemplate.update("delete from dbo.producto_img");
+            jdbcTemplate.update("delete from dbo.productos");
+            jdbcTemplate.update("delete from dbo.carrito");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void volcadoDescartaLineasDeProductosBorradosSinBloquearAlResto() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        Long carritoA = transaccion.execute(estado -> crearCarrito(1));
+        Long carritoB = transaccion.execute(estado -> crearCarrito(1));
+        Long productoA = jdbcTemplate.queryForObject(
+                "select id_producto from dbo.items_carrito where id_carrito = ?", Long.class, carritoA);
+        Long productoB = jdbcTemplate.queryForObject(
+                "select id_producto from dbo.items_carrito where id_carrito = ?", Long.class, carritoB);
+        Long productoBorrado = transaccion.execute(estado -> {
+            Producto_Entity producto = new Producto_Entity();
+            producto.setNombre("Producto retirado");
+            producto.setPrecio(new BigDecimal(10));
+            producto.setStock(100);
+            producto.setSku("SKU-RETIRADO-" + carritoA);
+            entityManager.persist(producto);
+            return producto.getId();
+        });
+        try {
+            carritosEnMemoria.agregar(carritoA, productoA, 1);
+            carritosEnMemoria.agregar(carritoA, productoBorrado, 2);
+            carritosEnMemoria.agregar(carritoB, productoB, 4);
+            jdbcTemplate.update("delete from dbo.productos where id = ?", productoBorrado);
+
+            carritosEnMemoria.volcar();
+
+            assertEquals(0, carritosEnMemoria.getEstadisticas().getCarritosPendientes());
+            assertEquals(List.of(2), jdbcTemplate.queryForList(
+                    "select cantidad from dbo.items_carrito where id_carrito = ?", Integer.class, carritoA));
+            assertEquals(List.of(5), jdbcTemplate.queryForList(
+                    "select cantidad from dbo.items_carrito where id_carrito = ?", Integer.class, carritoB));
+            assertEquals(1, carritosEnMemoria.getCarrito(carritoA).getItems().size());
+        } finally {
+            carritosEnMemoria.descartar(carritoA);
+            carritosEnMemoria.descartar(carritoB);
+            jdbcTemplate.update("delete from dbo.items_carrito");
+            jdbcTemplate.update("delete from dbo.producto_img");
+            jdbcTemplate.update("delete from dbo.productos");
+            jdbcTemplate.update("delete from dbo.carrito");
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void leerLasLineasDeUnCarritoSoloVuelcaEseCarrito() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        Long carritoA = transaccion.execute(estado -> crearCarrito(1));
+        Long carritoB = transaccion.execute(estado -> crearCarrito(1));
+        Long productoA = jdbcTemplate.queryForObject(
+                "select id_producto from dbo.items_carrito where id_carrito = ?", Long.class, carritoA);
+        Long productoB = jdbcTemplate.queryForObject(
+                "select id_producto from dbo.items_carrito where id_carrito = ?", Long.class, carritoB);
+        Long itemA = jdbcTemplate.queryForObject(
+                "select id from dbo.items_carrito where id_carrito = ?", Long.class, carritoA);
+        // Solo se activa en esta prueba: con la escritura diferida, el servicio vuelca antes de leer la base
+        ReflectionTestUtils.setField(carritosEnMemoria, "habilitado", true);
+        try {
+            carritosEnMemoria.agregar(carritoA, productoA, 2);
+            carritosEnMemoria.agregar(carritoB, productoB, 4);
+
+            List<ItemsCarrito_Entity> lineas = transaccion.execute(estado -> itemsCarritoService.getItemsByCarrito(carritoA));
+
+            assertEquals(List.of(3), lineas.stream().map(ItemsCarrito_Entity::getCantidad).toList());
+            assertEquals(List.of(1), jdbcTemplate.queryForList(
+                    "select cantidad from dbo.items_carrito where id_carrito = ?", Integer.class, carritoB));
+            assertEquals(1, carritosEnMemoria.getEstadisticas().getCarritosPendientes());
+
+            carritosEnMemoria.agregar(carritoA, productoA, 1);
+            ItemsCarrito_Entity item = transaccion.execute(estado -> itemsCarritoService.getItemCarritoById(itemA))
+                    .orElseThrow();
+            assertEquals(4, item.getCantidad());
+            assertEquals(1, carritosEnMemoria.getEstadisticas().getCarritosPendientes());
+
+            transaccion.execute(estado -> itemsCarritoService.getItemsByProducto(productoB));
+            assertEquals(List.of(5), jdbcTemplate.queryForList(
+                    "select cantidad from dbo.items_carrito where id_carrito = ?", Integer.class, carritoB));
+            assertEquals(0, carritosEnMemoria.getEstadisticas().getCarritosPendientes());
+        } finally {
+            ReflectionTestUtils.setField(carritosEnMemoria, "habilitado", false);
+            carritosEnMemoria.descartar(carritoA);
+            carritosEnMemoria.descartar(carritoB);
+            jdbcTemplate.update("delete from dbo.items_carrito");
+            jdbcTemplate.update("delete from dbo.producto_img");
+            jdbcTemplate.update("delete from dbo.productos");
+            jdbcTemplate.update("delete from dbo.carrito");
+        }
+    }
+
+    private long contarSentencias(Long idCarrito) {
+        entityManager.clear();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        itemsCarritoService.getCarritoConImagenes(idCarrito);
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private long contarSentenciasItems(Long idCarrito) {
+        entityManager.clear();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        for (ItemsCarrito_Entity item : itemsCarritoService.getItemsByCarrito(idCarrito)) {
+            item.getIdProducto().getNombre();
+            item.getIdCarrito().getCreadoEn();
+        }
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private Long crearCarrito(int lineas) {
+        Carrito_Entity carrito = new Carrito_Entity();
+        carrito.setCreadoEn(Instant.now());
+        entityManager.persist(carrito);
+
+        for (int i = 0; i < lineas; i++) {
+            Producto_Entity producto = new Producto_Entity();
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(new BigDecimal(10 + i));
+            producto.setStock(100);
+            producto.setSku("SKU-" + carrito.getId() + "-" + i);
+            entityManager.persist(producto);
+
+            // Dos imágenes por producto: la portada es la de menor orden
+            for (int orden = 2; orden >= 1; orden--) {
+                ProductoImg_Entity imagen = new ProductoImg_Entity();
+                imagen.setIdProducto(producto);
+                imagen.setOrden(orden);
+                imagen.setUrlImagen(orden == 1 ? "/uploads/portada_" + i + ".jpg" : "/uploads/extra_" + i + ".jpg");
+                entityManager.persist(imagen);
+            }
+
+            ItemsCarrito_Entity item = new ItemsCarrito_Entity();
+            item.setIdCarrito(carrito);
+            item.setIdProducto(producto);
+            item.setCantidad(i + 1);
+            entityManager.persist(item);
+        }
+        entityManager.flush();
+        return carrito.getId();
+    }
+}
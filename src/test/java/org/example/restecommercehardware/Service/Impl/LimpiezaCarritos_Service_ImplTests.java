@@ -0,0 +1,86 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.DTOs.ResultadoLimpiezaCarritosDTO;
+import org.example.restecommercehardware.Mapper.Carrito_Entity;
+import org.example.restecommercehardware.Mapper.ItemsCarrito_Entity;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {"carrito.limpieza.tamano-lote=2", "carrito.limpieza.pausa-entre-lotes=0ms"})
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LimpiezaCarritos_Service_Impl.class, CarritosEnMemoria_Service_Impl.class, VersionCatalogo_Service_Impl.class})
+class LimpiezaCarritos_Service_ImplTests {
+
+    @Autowired
+    private LimpiezaCarritos_Service_Impl limpiezaCarritosService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void eliminaPorLotesSoloLosCarritosSinActividadDentroDelTtl() {
+        Instant ahora = Instant.now();
+        Instant antiguo = ahora.minus(Duration.ofDays(40));
+        // Anterior a actualizado_en: cuenta la fecha de creación
+        crearCarrito(antiguo, null);
+        crearCarrito(antiguo, ahora.minus(Duration.ofDays(35)));
+        crearCarrito(antiguo, ahora.minus(Duration.ofDays(31)));
+        Long activo = crearCarrito(antiguo, ahora.minus(Duration.ofDays(1)));
+        Long nuevo = crearCarrito(ahora, ahora);
+
+        ResultadoLimpiezaCarritosDTO resultado = limpiezaCarritosService.limpiar();
+
+        assertEquals(3, resultado.getCarritosEliminados());
+        assertEquals(6, resultado.getItemsEliminados());
+        assertEquals(2, resultado.getLotes());
+        assertEquals(List.of(activo, nuevo),
+                jdbcTemplate.queryForList("select id from dbo.carrito order by id", Long.class));
+        assertEquals(4, jdbcTemplate.queryForObject("select count(*) from dbo.items_carrito", Integer.class));
+
+        assertEquals(0, limpiezaCarritosService.limpiar().getCarritosEliminados());
+        assertEquals(2, limpiezaCarritosService.getEstadisticas().getEjecuciones());
+        assertEquals(3, limpiezaCarritosService.getEstadisticas().getCarritosEliminados());
+    }
+
+    private Long crearCarrito(Instant creadoEn, Instant actualizadoEn) {
+        Carrito_Entity carrito = new Carrito_Entity();
+        carrito.setCreadoEn(creadoEn);
+        carrito.setActualizadoEn(actualizadoEn);
+        entityManager.persist(carrito);
+
+        for (int i = 0; i < 2; i++) {
+            Producto_Entity producto = new Producto_Entity();
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(new BigDecimal(10 + i));
+            producto.setStock(100);
+            producto.setSku("SKU-" + carrito.getId() + "-" + i);
+            entityManager.persist(producto);
+
+            ItemsCarrito_Entity item = new ItemsCarrito_Entity();
+            item.setIdCarrito(carrito);
+            item.setIdProducto(producto);
+            item.setCantidad(1);
+            entityManager.persist(item);
+        }
+        entityManager.flush();
+        return carrito.getId();
+    }
+}
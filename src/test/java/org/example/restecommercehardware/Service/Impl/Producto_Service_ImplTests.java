@@ -0,0 +1,150 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.Controller.Producto_Controller;
+import org.example.restecommercehardware.DTOs.FiltroProductosDTO;
+import org.example.restecommercehardware.DTOs.OrdenCatalogo;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ProductoResumenDTO;
+import org.example.restecommercehardware.Events.CatalogoRecargadoEvent;
+import org.example.restecommercehardware.Mapper.Categoria_Entity;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({Producto_Service_Impl.class, BusquedaProductos_Service_Impl.class, FacetasProductos_Service_Impl.class,
+        CacheProductos_Service_Impl.class, ValoracionesProductos_Service_Impl.class, CamposParciales_Service_Impl.class,
+        VersionCatalogo_Service_Impl.class})
+class Producto_Service_ImplTests {
+
+    @Autowired
+    private Producto_Service_Impl productoService;
+
+    @Autowired
+    private VersionCatalogo_Service_Impl versionCatalogoService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void recientesRecorreTodasLasPaginasSinProductosSinFechaDeAlta() {
+        Categoria_Entity categoria = new Categoria_Entity();
+        categoria.setNombre("Discos");
+        entityManager.persist(categoria);
+        Instant base = Instant.parse("2024-05-01T10:00:00Z");
+        Producto_Entity antiguo = producto("Antiguo", categoria, base);
+        Producto_Entity sinFecha = producto("Sin fecha", categoria, null);
+        producto("Sin fecha 2", categoria, null);
+        Producto_Entity empateA = producto("Empate A", categoria, base.plusSeconds(60));
+        Producto_Entity empateB = producto("Empate B", categoria, base.plusSeconds(60));
+        Producto_Entity nuevo = producto("Nuevo", categoria, base.plusSeconds(120));
+        entityManager.flush();
+
+        // Con cualquier tamaño de página, ninguna termina en una fila sin fecha (cuyo cursor no podría leerse)
+        List<Long> esperados = List.of(nuevo.getId(), empateB.getId(), empateA.getId(), antiguo.getId());
+        for (int tamano = 1; tamano <= 7; tamano++) {
+            int porPagina = tamano;
+            assertEquals(esperados, recorrer(cursor ->
+                    productoService.getAllProductos(cursor, porPagina, OrdenCatalogo.RECIENTES)));
+            assertEquals(esperados, recorrer(cursor ->
+                    productoService.getProductosByCategoria(categoria.getId(), cursor, porPagina, OrdenCatalogo.RECIENTES)));
+        }
+
+        // Los demás órdenes siguen listando también los productos sin fecha de alta
+        List<Long> porId = recorrer(cursor -> productoService.getAllProductos(cursor, 2, OrdenCatalogo.ID));
+        assertEquals(6, porId.size());
+        assertEquals(sinFecha.getId(), porId.get(1));
+    }
+
+    @Test
+    void unCursorDeDesplazamientoNegativoSeRechaza() {
+        String cursorBusqueda = CursorKeyset.codificar("relevancia", List.of(-1));
+        String cursorFiltro = CursorKeyset.codificar("filtro", List.of(-1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.searchProductosByNombre("ssd", cursorBusqueda, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.filtrarProductos(new FiltroProductosDTO(), cursorFiltro, 10));
+    }
+
+    @Test
+    void elEtagDelProductoCambiaSiCambiaElCatalogoYSigueValiendoParaIfMatch() throws Exception {
+        Categoria_Entity categoria = new Categoria_Entity();
+        categoria.setNombre("Discos");
+        entityManager.persist(categoria);
+        Producto_Entity producto = producto("SSD", categoria, null);
+        entityManager.flush();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new Producto_Controller(productoService, null, null, null,
+                versionCatalogoService, null, null, null)).build();
+
+        String etag = mockMvc.perform(get("/api/productos/{id}", producto.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/productos/{id}", producto.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Renombrar una categoría no toca la fila del producto, pero su nombre va en el cuerpo
+        versionCatalogoService.alRecargarCatalogo(new CatalogoRecargadoEvent("categorias", 0));
+        mockMvc.perform(get("/api/productos/{id}", producto.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+
+        // El ETag anterior sigue identificando la versión de la fila para If-Match
+        mockMvc.perform(put("/api/productos/{id}", producto.getId()).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"stock\": 5}"))
+                .andExpect(status().isOk());
+    }
+
+    private List<Long> recorrer(Function<String, PaginaDTO<ProductoResumenDTO>> pagina) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginaDTO<ProductoResumenDTO> actual = pagina.apply(cursor);
+            actual.getContenido().forEach(resumen -> ids.add(resumen.getId()));
+            cursor = actual.getSiguienteCursor();
+            assertFalse(ids.size() > 10, "el cursor no avanza");
+        } while (cursor != null);
+        return ids;
+    }
+
+    private Producto_Entity producto(String nombre, Categoria_Entity categoria, Instant creadoEn) {
+        Producto_Entity producto = new Producto_Entity();
+        producto.setNombre(nombre);
+        producto.setSku("SKU-" + nombre.replace(' ', '-'));
+        producto.setPrecio(BigDecimal.TEN);
+        producto.setStock(1);
+        producto.setIdCategoria(categoria);
+        producto.setCreadoEn(creadoEn);
+        entityManager.persist(producto);
+        return producto;
+    }
+}
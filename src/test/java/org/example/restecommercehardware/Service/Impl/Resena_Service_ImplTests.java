@@ -0,0 +1,281 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.restecommercehardware.DTOs.CalificacionesProductoDTO;
+import org.example.restecommercehardware.DTOs.OrdenResenas;
+import org.example.restecommercehardware.DTOs.PaginaDTO;
+import org.example.restecommercehardware.DTOs.ResenaResumenDTO;
+import org.example.restecommercehardware.DTOs.ValoracionDTO;
+import org.example.restecommercehardware.Events.ResenaCambiadaEvent;
+import org.example.restecommercehardware.Mapper.Categoria_Entity;
+import org.example.restecommercehardware.Mapper.Marca_Entity;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Mapper.Resena_Entity;
+import org.example.restecommercehardware.Mapper.Usuario_Entity;
+import org.example.restecommercehardware.Repository.Resena_Repository;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({Resena_Service_Impl.class, ValoracionesProductos_Service_Impl.class})
+class Resena_Service_ImplTests {
+
+    @Autowired
+    private Resena_Service_Impl resenaService;
+
+    @Autowired
+    private ValoracionesProductos_Service_Impl valoracionesService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoSpyBean
+    private Resena_Repository resenaRepository;
+
+    @Test
+    void listadoDeResenasUsaNumeroFijoDeSentencias() {
+        crearResenas("a", 2);
+        assertEquals(1, contarSentencias(() -> resenaService.getAllResenas()));
+
+        crearResenas("b", 30);
+        assertEquals(1, contarSentencias(() -> resenaService.getAllResenas()));
+    }
+
+    @Test
+    void resenasPorCalificacionTraenProductoUsuarioMarcaYCategoria() {
+        crearResenas("c", 5);
+        entityManager.clear();
+
+        List<Resena_Entity> resenas = resenaService.getResenasByCalificacion(3);
+
+        assertEquals(1, resenas.size());
+        Resena_Entity resena = resenas.get(0);
+        assertTrue(Hibernate.isInitialized(resena.getIdUsuario()));
+        assertTrue(Hibernate.isInitialized(resena.getIdProducto()));
+        assertTrue(Hibernate.isInitialized(resena.getIdProducto().getIdMarca()));
+        assertTrue(Hibernate.isInitialized(resena.getIdProducto().getIdCategoria()));
+    }
+
+    @Test
+    void valoracionSeCargaAgrupadaYSeAjustaConCadaCambio() {
+        Producto_Entity producto = crearResenas("d", 1).get(0).getIdProducto();
+        for (int calificacion : new int[]{5, 5, 3}) {
+            Resena_Entity resena = new Resena_Entity();
+            resena.setIdProducto(producto);
+            resena.setCalificacion(calificacion);
+            entityManager.persist(resena);
+        }
+        entityManager.flush();
+        valoracionesService.reconstruir();
+
+        ValoracionDTO valoracion = valoracionesService.getValoracion(producto.getId());
+        assertEquals(4, valoracion.getTotalResenas());
+        assertEquals(14, valoracion.getSumaCalificaciones());
+        assertEquals(3.5, valoracion.getCalificacionMedia());
+        assertArrayEquals(new long[]{0, 1, 0, 1, 0, 2}, valoracion.getHistograma());
+
+        // Una reseña pasa de 5 a 0 y otra se elimina
+        valoracionesService.alCambiarResena(new ResenaCambiadaEvent(producto.getId(), 5, producto.getId(), 0));
+        valoracionesService.alCambiarResena(new ResenaCambiadaEvent(producto.getId(), 3, null, null));
+
+        valoracion = valoracionesService.getValoracion(producto.getId());
+        assertEquals(3, valoracion.getTotalResenas());
+        assertEquals(2.0, valoracion.getCalificacionMedia());
+        assertArrayEquals(new long[]{1, 1, 0, 0, 0, 1}, valoracion.getHistograma());
+        assertNull(valoracionesService.getValoracion(-1L).getCalificacionMedia());
+    }
+
+    @Test
+    void resenasDeProductoSePaginanPorCursorConExtractoYFiltro() {
+        Producto_Entity producto = crearResenas("e", 1).get(0).getIdProducto();
+        Instant base = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < 7; i++) {
+            Resena_Entity resena = new Resena_Entity();
+            resena.setIdProducto(producto);
+            resena.setCalificacion(i % 2 == 0 ? 5 : 2);
+            resena.setComentario("x".repeat(500));
+            resena.setCreadoEn(base.plusSeconds(i));
+            entityManager.persist(resena);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // Solo las de 5 estrellas (i = 0, 2, 4, 6), de la más reciente a la más antigua, de 3 en 3
+        PaginaDTO<ResenaResumenDTO> primera = resenaService.getResenasByProducto(
+                producto.getId(), null, 3, OrdenResenas.RECIENTES, 4, null);
+        assertEquals(List.of(base.plusSeconds(6), base.plusSeconds(4), base.plusSeconds(2)),
+                primera.getContenido().stream().map(ResenaResumenDTO::getCreadoEn).toList());
+        assertTrue(primera.isHayMas());
+
+        ResenaResumenDTO resena = primera.getContenido().get(0);
+        assertEquals(280, resena.getExtracto().length());
+        assertTrue(resena.isComentarioRecortado());
+
+        PaginaDTO<ResenaResumenDTO> segunda = resenaService.getResenasByProducto(
+                producto.getId(), primera.getSiguienteCursor(), 3, OrdenResenas.RECIENTES, 4, null);
+        assertEquals(List.of(base.plusSeconds(0)),
+                segunda.getContenido().stream().map(ResenaResumenDTO::getCreadoEn).toList());
+        assertFalse(segunda.isHayMas());
+    }
+
+    @Test
+    void todosLosOrdenesRecorrenLasPaginasSinResenasSinFecha() {
+        Producto_Entity producto = crearResenas("f", 1).get(0).getIdProducto();
+        Instant base = Instant.parse("2025-02-01T00:00:00Z");
+        List<Long> fechadas = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            fechadas.add(resena(producto, i % 2 == 0 ? 5 : 3, base.plusSeconds(i / 2)).getId());
+        }
+        resena(producto, 5, null);
+        resena(producto, 3, null);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Con cualquier tamaño de página y en cualquier orden, ninguna página termina en una fila sin fecha
+        for (OrdenResenas orden : OrdenResenas.values()) {
+            for (int tamano = 1; tamano <= 7; tamano++) {
+                List<Long> ids = new ArrayList<>();
+                String cursor = null;
+                do {
+                    PaginaDTO<ResenaResumenDTO> pagina = resenaService.getResenasByProducto(
+                            producto.getId(), cursor, tamano, orden, null, null);
+                    pagina.getContenido().forEach(resumen -> ids.add(resumen.getId()));
+                    cursor = pagina.getSiguienteCursor();
+                    assertFalse(ids.size() > 10, "el cursor no avanza");
+                } while (cursor != null);
+                assertEquals(fechadas.stream().sorted().toList(), ids.stream().sorted().toList(),
+                        orden + " con páginas de " + tamano);
+            }
+        }
+    }
+
+    private Resena_Entity resena(Producto_Entity producto, int calificacion, Instant creadoEn) {
+        Resena_Entity resena = new Resena_Entity();
+        resena.setIdProducto(producto);
+        resena.setCalificacion(calificacion);
+        resena.setComentario("Comentario");
+        resena.setCreadoEn(creadoEn);
+        entityManager.persist(resena);
+        return resena;
+    }
+
+    @Test
+    void unaResenaQueLlegaDuranteLaRecargaNoSePierdeNiSeCuentaDosVeces() {
+        Producto_Entity producto = crearResenas("g", 1).get(0).getIdProducto();
+        // Entre la consulta agrupada y la sustitución del mapa se confirma otra reseña y llega su evento
+        doAnswer(invocacion -> {
+            List<CalificacionesProductoDTO> leidas = List.of(fila(producto.getId(), 1, 1));
+            Resena_Entity nueva = new Resena_Entity();
+            nueva.setIdProducto(producto);
+            nueva.setCalificacion(5);
+            entityManager.persist(nueva);
+            entityManager.flush();
+            valoracionesService.alCambiarResena(new ResenaCambiadaEvent(null, null, producto.getId(), 5));
+            return leidas;
+        }).when(resenaRepository).contarPorProductoYCalificacion();
+
+        valoracionesService.reconstruir();
+
+        ValoracionDTO valoracion = valoracionesService.getValoracion(producto.getId());
+        assertEquals(2, valoracion.getTotalResenas());
+        assertArrayEquals(new long[]{0, 1, 0, 0, 0, 1}, valoracion.getHistograma());
+    }
+
+    private static CalificacionesProductoDTO fila(Long idProducto, int calificacion, long total) {
+        return new CalificacionesProductoDTO() {
+            @Override
+            public Long getIdProducto() {
+                return idProducto;
+            }
+
+            @Override
+            public Integer getCalificacion() {
+                return calificacion;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+
+    private long contarSentencias(Supplier<List<Resena_Entity>> consulta) {
+        entityManager.clear();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        // Recorre las asociaciones como lo haría la serialización de la respuesta
+        for (Resena_Entity resena : consulta.get()) {
+            resena.getIdUsuario().getNombre();
+            resena.getIdProducto().getIdMarca().getNombre();
+            resena.getIdProducto().getIdCategoria().getNombre();
+        }
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private List<Resena_Entity> crearResenas(String prefijo, int cantidad) {
+        List<Resena_Entity> resenas = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            Categoria_Entity categoria = new Categoria_Entity();
+            categoria.setNombre("Categoria " + prefijo + i);
+            entityManager.persist(categoria);
+
+            Marca_Entity marca = new Marca_Entity();
+            marca.setNombre("Marca " + prefijo + i);
+            entityManager.persist(marca);
+
+            Producto_Entity producto = new Producto_Entity();
+            producto.setNombre("Producto " + prefijo + i);
+            producto.setPrecio(new BigDecimal(10 + i));
+            producto.setStock(5);
+            producto.setSku("SKU-" + prefijo + "-" + i);
+            producto.setIdCategoria(categoria);
+            producto.setIdMarca(marca);
+            entityManager.persist(producto);
+
+            Usuario_Entity usuario = new Usuario_Entity();
+            usuario.setNombre("Usuario " + i);
+            usuario.setCorreoElectronico(prefijo + i + "@correo.com");
+            usuario.setHashContrasena("hash");
+            usuario.setRol("cliente");
+            entityManager.persist(usuario);
+
+            Resena_Entity resena = new Resena_Entity();
+            resena.setIdProducto(producto);
+            resena.setIdUsuario(usuario);
+            resena.setCalificacion(i % 5 + 1);
+            resena.setComentario("Comentario " + i);
+            entityManager.persist(resena);
+            resenas.add(resena);
+        }
+        entityManager.flush();
+        return resenas;
+    }
+}
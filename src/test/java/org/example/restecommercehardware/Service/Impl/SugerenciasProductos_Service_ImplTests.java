@@ -0,0 +1,134 @@
+package org.example.restecommercehardware.Service.Impl;
+
+import jakarta.persistence.EntityManager;
+import org.example.restecommercehardware.DTOs.SugerenciaDTO;
+import org.example.restecommercehardware.Events.ProductoCambiadoEvent;
+import org.example.restecommercehardware.Mapper.Producto_Entity;
+import org.example.restecommercehardware.Repository.Producto_Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doAnswer;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SugerenciasProductos_Service_Impl.class)
+class SugerenciasProductos_Service_ImplTests {
+
+    @Autowired
+    private SugerenciasProductos_Service_Impl sugerenciasService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoSpyBean
+    private Producto_Repository productoRepository;
+
+    @BeforeEach
+    void vaciarTrie() {
+        // Los prefijos cortos ("pro", "pr") comparan la lista exacta de ids; sobra cualquier producto previo
+        sugerenciasService.reconstruir();
+    }
+
+    @Test
+    void completaDesdeCualquierPalabraDelNombreYPorSkuCompacto() {
+        sugerenciasService.indexarProducto(producto(1L, "Tarjeta gráfica RTX 4090", "NV-4090"));
+
+        assertEquals(List.of(1L), ids("tarj"));
+        assertEquals(List.of(1L), ids("grafica rt"));
+        assertEquals(List.of(1L), ids("4090"));
+        assertEquals(List.of(1L), ids("nv40"));
+        assertEquals(List.of(), ids("rtx 3080"));
+        assertEquals(List.of(), ids("  "));
+    }
+
+    @Test
+    void insertarParteLasAristasYEliminarLasVuelveAFusionar() {
+        sugerenciasService.indexarProducto(producto(1L, "Procesador", "A-1"));
+        // "producto" parte la arista "procesador" en "pro" + "cesador" / "ducto"
+        sugerenciasService.indexarProducto(producto(2L, "Producto", "B-1"));
+
+        assertEquals(List.of(1L, 2L), ids("pro"));
+        assertEquals(List.of(1L), ids("proc"));
+        assertEquals(List.of(2L), ids("prod"));
+
+        // Sin "producto", "pro" y "cesador" se fusionan de nuevo en una sola arista
+        sugerenciasService.eliminarProducto(2L);
+        assertEquals(List.of(1L), ids("pro"));
+        assertEquals(List.of(1L), ids("procesa"));
+        assertEquals(List.of(), ids("prod"));
+
+        // Y la arista fusionada se puede volver a partir por otro punto
+        sugerenciasService.indexarProducto(producto(3L, "Prueba", "C-1"));
+        assertEquals(List.of(1L, 3L), ids("pr"));
+        assertEquals(List.of(3L), ids("pru"));
+        assertEquals(List.of(1L), ids("procesador"));
+    }
+
+    @Test
+    void reindexarCambiaLasClavesYElLimiteSeRespeta() {
+        sugerenciasService.indexarProducto(producto(1L, "Monitor curvo", "M-1"));
+        sugerenciasService.indexarProducto(producto(1L, "Pantalla curva", "M-1"));
+
+        assertEquals(List.of(), ids("monitor"));
+        assertEquals(List.of(1L), ids("pantalla"));
+
+        for (long id = 10; id < 22; id++) {
+            sugerenciasService.indexarProducto(producto(id, "Altavoz " + id, "ALT-" + id));
+        }
+        // A igual popularidad se ordena por nombre
+        List<Long> sugeridos = ids("altavoz");
+        assertEquals(SugerenciasProductos_Service_Impl.MAX_SUGERENCIAS, sugeridos.size());
+        assertEquals(List.of(10L, 11L, 12L), sugeridos.subList(0, 3));
+        assertEquals(3, sugerenciasService.sugerir("alt", 3).size());
+    }
+
+    private List<Long> ids(String prefijo) {
+        return sugerenciasService.sugerir(prefijo, 50).stream().map(SugerenciaDTO::getIdProducto).toList();
+    }
+
+    @Test
+    void unCambioQueLlegaDuranteLaReconstruccionNoSePierde() {
+        entityManager.persist(producto(null, "Monitor curvo", "MON-1"));
+        entityManager.flush();
+        AtomicReference<Long> idNuevo = new AtomicReference<>();
+        // Entre la lectura del catálogo y la sustitución del trie se confirma otro producto y llega su evento
+        doAnswer(invocacion -> {
+            List<Producto_Entity> leidos = entityManager
+                    .createQuery("select p from Producto_Entity p", Producto_Entity.class).getResultList();
+            Producto_Entity nuevo = producto(null, "Monitor plano", "MON-2");
+            entityManager.persist(nuevo);
+            entityManager.flush();
+            idNuevo.set(nuevo.getId());
+            sugerenciasService.alCambiarProducto(new ProductoCambiadoEvent(nuevo.getId(), ProductoCambiadoEvent.Tipo.CREADO));
+            return leidos;
+        }).when(productoRepository).findAll();
+
+        sugerenciasService.reconstruir();
+
+        assertEquals(List.of(idNuevo.get()), ids("monitor pla"));
+        assertEquals(2, ids("monitor").size());
+    }
+
+    private Producto_Entity producto(Long id, String nombre, String sku) {
+        Producto_Entity producto = new Producto_Entity();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setSku(sku);
+        producto.setPrecio(BigDecimal.TEN);
+        producto.setStock(1);
+        return producto;
+    }
+}